@@ -37,6 +37,14 @@ public class AppFile {
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
+    // set by the integrity scrubber
+    @Column(name = "last_verified_at")
+    private OffsetDateTime lastVerifiedAt;
+
+    // null = the stored bytes matched sha256 when last verified
+    @Column(name = "integrity_error", length = 40)
+    private String integrityError;
+
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
 
@@ -60,4 +68,10 @@ public class AppFile {
 
     public OffsetDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+
+    public OffsetDateTime getLastVerifiedAt() { return lastVerifiedAt; }
+    public void setLastVerifiedAt(OffsetDateTime lastVerifiedAt) { this.lastVerifiedAt = lastVerifiedAt; }
+
+    public String getIntegrityError() { return integrityError; }
+    public void setIntegrityError(String integrityError) { this.integrityError = integrityError; }
 }
@@ -0,0 +1,64 @@
+package com.example.demo.domain;
+
+import java.time.OffsetDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "storage_job_state")
+public class StorageJobState {
+
+    @Id
+    @Column(name = "job", nullable = false, length = 40)
+    private String job;
+
+    // keyset position inside the current pass; null = start a new pass
+    @Column(name = "cursor", columnDefinition = "text")
+    private String cursor;
+
+    @Column(name = "pass_count", nullable = false)
+    private long passCount;
+
+    @Column(name = "processed_count", nullable = false)
+    private long processedCount;
+
+    @Column(name = "reclaimed_bytes", nullable = false)
+    private long reclaimedBytes;
+
+    // integrity scrubber: files whose bytes did not match
+    @Column(name = "error_count", nullable = false)
+    private long errorCount;
+
+    @Column(name = "last_pass_finished_at")
+    private OffsetDateTime lastPassFinishedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    public String getJob() { return job; }
+    public void setJob(String job) { this.job = job; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public long getPassCount() { return passCount; }
+    public void setPassCount(long passCount) { this.passCount = passCount; }
+
+    public long getProcessedCount() { return processedCount; }
+    public void setProcessedCount(long processedCount) { this.processedCount = processedCount; }
+
+    public long getReclaimedBytes() { return reclaimedBytes; }
+    public void setReclaimedBytes(long reclaimedBytes) { this.reclaimedBytes = reclaimedBytes; }
+
+    public long getErrorCount() { return errorCount; }
+    public void setErrorCount(long errorCount) { this.errorCount = errorCount; }
+
+    public OffsetDateTime getLastPassFinishedAt() { return lastPassFinishedAt; }
+    public void setLastPassFinishedAt(OffsetDateTime lastPassFinishedAt) { this.lastPassFinishedAt = lastPassFinishedAt; }
+
+    public OffsetDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.dto;
 
+import java.time.Instant;
 import java.util.UUID;
 
 import com.example.demo.domain.AccountStatus;
@@ -10,6 +11,11 @@ public class AuthResponse {
     public AccountStatus accountStatus; // for USER
     public String fullName; // for USER
 
+    // Signed access token (send as "Authorization: Bearer <accessToken>")
+    public String accessToken;
+    public String tokenType;
+    public Instant expiresAt;
+
     public static AuthResponse user(UUID id, AccountStatus status, String fullName) {
         AuthResponse r = new AuthResponse();
         r.role = "USER";
@@ -24,4 +30,11 @@ public class AuthResponse {
         r.role = "ADMIN";
         return r;
     }
+
+    public AuthResponse withToken(String token, String type, Instant expiresAt) {
+        this.accessToken = token;
+        this.tokenType = type;
+        this.expiresAt = expiresAt;
+        return this;
+    }
 }
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public class CreateUploadSessionRequest {
+    @NotBlank
+    public String fileName;
+
+    // validated when the upload is used (image / PDF endpoints)
+    public String contentType;
+
+    @NotNull
+    @Positive
+    public Long totalBytes;
+}
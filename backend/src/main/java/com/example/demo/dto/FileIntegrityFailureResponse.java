@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public class FileIntegrityFailureResponse {
+    public UUID fileId;
+    public UUID ownerUserId;
+    public String originalName;
+    public String storageKey;
+    public String sha256;
+    public long sizeBytes;
+    // SHA256_MISMATCH, MISSING or UNREADABLE
+    public String integrityError;
+    public OffsetDateTime lastVerifiedAt;
+}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+public class SignedUrlResponse {
+    // relative to the API origin, usable without an Authorization header until expiresAt
+    public String url;
+    public Instant expiresAt;
+}
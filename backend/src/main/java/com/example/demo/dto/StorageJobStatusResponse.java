@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.time.OffsetDateTime;
+
+public class StorageJobStatusResponse {
+    public String job;
+    // keyset position of the running pass; null between passes
+    public String cursor;
+    public long passCount;
+    public long processedCount;
+    public long reclaimedBytes;
+    public long errorCount;
+    public OffsetDateTime lastPassFinishedAt;
+    public OffsetDateTime updatedAt;
+}
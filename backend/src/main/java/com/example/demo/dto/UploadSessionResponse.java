@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public class UploadSessionResponse {
+    public UUID uploadId;
+    public String fileName;
+    public String contentType;
+    public long totalBytes;
+    // next PUT offset
+    public long receivedBytes;
+    public boolean completed;
+    // set once completed
+    public String sha256;
+    // if no chunk arrives before then
+    public OffsetDateTime expiresAt;
+}
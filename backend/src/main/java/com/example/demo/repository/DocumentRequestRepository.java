@@ -5,13 +5,15 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import com.example.demo.domain.DocumentRequest;
 import com.example.demo.domain.DocumentRequestKind;
 import com.example.demo.domain.DocumentRequestStatus;
 import com.example.demo.domain.DocumentType;
 
-public interface DocumentRequestRepository extends JpaRepository<DocumentRequest, UUID> {
+public interface DocumentRequestRepository extends JpaRepository<DocumentRequest, UUID>,
+        JpaSpecificationExecutor<DocumentRequest> {
 
     // User side
     List<DocumentRequest> findAllByUserIdOrderByCreatedAtDesc(UUID userId);
@@ -27,7 +29,5 @@ public interface DocumentRequestRepository extends JpaRepository<DocumentRequest
                                                         DocumentRequestStatus status,
                                                         UUID documentId);
 
-    // Admin side
-    List<DocumentRequest> findAllByStatusNotOrderByCreatedAtDesc(DocumentRequestStatus status);
-    List<DocumentRequest> findAllByStatusOrderByCreatedAtDesc(DocumentRequestStatus status);
+    // Admin side: keyset pages through JpaSpecificationExecutor (see RequestPages)
 }
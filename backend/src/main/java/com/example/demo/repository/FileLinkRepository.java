@@ -1,9 +1,15 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.domain.FileLink;
@@ -11,6 +17,33 @@ import com.example.demo.domain.FileLink;
 public interface FileLinkRepository extends JpaRepository<FileLink, UUID> {
     Optional<FileLink> findByEntityTypeAndEntityIdAndTag(String entityType, UUID entityId, String tag);
 
+    List<FileLink> findAllByEntityTypeAndEntityIdOrderByTag(String entityType, UUID entityId);
+
     @Transactional
     void deleteByEntityTypeAndEntityIdAndTag(String entityType, UUID entityId, String tag);
+
+    // keyset page of link ids (orphan GC)
+    @Query("select l.id from FileLink l where l.id > :after order by l.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Pageable page);
+
+    // links whose entity row is gone (entity_id has no FK, the table depends on entity_type); unknown types are kept
+    @Modifying
+    @Transactional
+    @Query(value = """
+            delete from file_links l
+            where l.id in (:ids)
+              and not (case l.entity_type
+                when 'USER' then exists (select 1 from users e where e.id = l.entity_id)
+                when 'DOCUMENT' then exists (select 1 from documents e where e.id = l.entity_id)
+                when 'DOCUMENT_REQUEST' then exists (select 1 from document_requests e where e.id = l.entity_id)
+                when 'HEALTH_REQUEST' then exists (select 1 from health_requests e where e.id = l.entity_id)
+                when 'HEALTH_REFERRAL' then exists (select 1 from health_referrals e where e.id = l.entity_id)
+                when 'PROPERTY' then exists (select 1 from properties e where e.id = l.entity_id)
+                when 'PROPERTY_REQUEST' then exists (select 1 from property_requests e where e.id = l.entity_id)
+                when 'TRANSPORT_VEHICLE' then exists (select 1 from transport_vehicles e where e.id = l.entity_id)
+                when 'TRANSPORT_VEHICLE_REQUEST' then exists (select 1 from transport_vehicle_requests e where e.id = l.entity_id)
+                else true
+              end)
+            """, nativeQuery = true)
+    int deleteOrphaned(@Param("ids") Collection<UUID> ids);
 }
@@ -1,12 +1,123 @@
 package com.example.demo.repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.domain.AppFile;
 
 public interface FileRepository extends JpaRepository<AppFile, UUID> {
     List<AppFile> findAllByOwnerUserId(UUID ownerUserId);
+
+    // blobs are shared between rows with identical content
+    long countByStorageKey(String storageKey);
+
+    // link -> file in one round trip (uq_file_links_entity_tag makes it at most one row)
+    @Query("""
+            select f from AppFile f
+            join FileLink l on l.fileId = f.id
+            where l.entityType = :entityType and l.entityId = :entityId and l.tag = :tag
+            """)
+    Optional<AppFile> findLinked(@Param("entityType") String entityType,
+                                 @Param("entityId") UUID entityId,
+                                 @Param("tag") String tag);
+
+    // current key of a row whose cached copy may point at moved bytes (pack compaction / migration)
+    @Query("select f.storageKey from AppFile f where f.id = :id")
+    Optional<String> findStorageKeyById(@Param("id") UUID id);
+
+    @Query("select distinct f.storageKey from AppFile f where f.storageKey like concat(:prefix, '%')")
+    List<String> findStorageKeysStartingWith(@Param("prefix") String prefix);
+
+    // loose blobs small enough for a pack, in key order (keyset: pass the last key of the previous batch)
+    @Query("""
+            select distinct f.storageKey from AppFile f
+            where f.storageKey like 'blobs/%' and f.storageKey > :after and f.sizeBytes <= :maxBytes
+            order by f.storageKey
+            """)
+    List<String> findLooseKeysAfter(@Param("after") String after,
+                                    @Param("maxBytes") long maxBytes,
+                                    Pageable page);
+
+    // hot local keys (loose / pack) whose every row is linked only to requests decided before :cutoff, in key
+    // order (keyset: pass the last key of the previous batch). Unlinked rows and any other link keep a key hot.
+    @Query(value = """
+            select distinct f.storage_key from files f
+            where f.storage_key > :after
+              and (f.storage_key like 'blobs/%' or f.storage_key like 'pack/%')
+              and not exists (
+                select 1 from files g
+                where g.storage_key = f.storage_key
+                  and not exists (select 1 from file_links l where l.file_id = g.id))
+              and not exists (
+                select 1 from files g
+                join file_links l on l.file_id = g.id
+                where g.storage_key = f.storage_key
+                  and not (case l.entity_type
+                    when 'DOCUMENT_REQUEST' then exists (select 1 from document_requests e
+                      where e.id = l.entity_id and e.decided_at < :cutoff)
+                    when 'HEALTH_REQUEST' then exists (select 1 from health_requests e
+                      where e.id = l.entity_id and e.decided_at < :cutoff)
+                    when 'PROPERTY_REQUEST' then exists (select 1 from property_requests e
+                      where e.id = l.entity_id and e.decided_at < :cutoff)
+                    when 'TRANSPORT_VEHICLE_REQUEST' then exists (select 1 from transport_vehicle_requests e
+                      where e.id = l.entity_id and e.decided_at < :cutoff)
+                    else false
+                  end))
+            order by f.storage_key
+            limit :limit
+            """, nativeQuery = true)
+    List<String> findColdCandidateKeysAfter(@Param("after") String after,
+                                            @Param("cutoff") OffsetDateTime cutoff,
+                                            @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("update AppFile f set f.storageKey = :to where f.storageKey = :from")
+    int moveStorageKey(@Param("from") String from, @Param("to") String to);
+
+    // keyset page of file ids (orphan GC)
+    @Query("select f.id from AppFile f where f.id > :after order by f.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Pageable page);
+
+    // keyset page of whole rows (integrity scrubber)
+    @Query("select f from AppFile f where f.id > :after order by f.id")
+    List<AppFile> findPageAfter(@Param("after") UUID after, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("update AppFile f set f.lastVerifiedAt = :at, f.integrityError = null where f.id in :ids")
+    int markVerified(@Param("ids") Collection<UUID> ids, @Param("at") OffsetDateTime at);
+
+    @Modifying
+    @Transactional
+    @Query("update AppFile f set f.lastVerifiedAt = :at, f.integrityError = :error where f.id in :ids")
+    int markIntegrityError(@Param("ids") Collection<UUID> ids,
+                           @Param("error") String error,
+                           @Param("at") OffsetDateTime at);
+
+    List<AppFile> findAllByIntegrityErrorIsNotNullOrderByLastVerifiedAtDesc(Pageable page);
+
+    @Query("""
+            select f from AppFile f
+            where f.id in :ids and f.createdAt < :createdBefore
+              and not exists (select 1 from FileLink l where l.fileId = f.id)
+            """)
+    List<AppFile> findUnlinked(@Param("ids") Collection<UUID> ids,
+                               @Param("createdBefore") OffsetDateTime createdBefore);
+
+    // re-checks the links at delete time: a candidate may have been linked since it was selected
+    @Modifying
+    @Transactional
+    @Query("delete from AppFile f where f.id in :ids and not exists (select 1 from FileLink l where l.fileId = f.id)")
+    int deleteUnlinked(@Param("ids") Collection<UUID> ids);
 }
@@ -5,12 +5,14 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import com.example.demo.domain.HealthRequest;
 import com.example.demo.domain.HealthRequestKind;
 import com.example.demo.domain.HealthRequestStatus;
 
-public interface HealthRequestRepository extends JpaRepository<HealthRequest, UUID> {
+public interface HealthRequestRepository extends JpaRepository<HealthRequest, UUID>,
+        JpaSpecificationExecutor<HealthRequest> {
 
     // User side
     List<HealthRequest> findAllByUserIdOrderByCreatedAtDesc(UUID userId);
@@ -19,7 +21,5 @@ public interface HealthRequestRepository extends JpaRepository<HealthRequest, UU
     // Validation helper
     boolean existsByUserIdAndKindAndStatus(UUID userId, HealthRequestKind kind, HealthRequestStatus status);
 
-    // Admin side
-    List<HealthRequest> findAllByStatusOrderByCreatedAtDesc(HealthRequestStatus status);
-    List<HealthRequest> findAllByOrderByCreatedAtDesc();
+    // Admin side: keyset pages through JpaSpecificationExecutor (see RequestPages)
 }
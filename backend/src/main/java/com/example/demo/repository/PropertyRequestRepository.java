@@ -5,12 +5,14 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import com.example.demo.domain.PropertyRequest;
 import com.example.demo.domain.PropertyRequestKind;
 import com.example.demo.domain.PropertyRequestStatus;
 
-public interface PropertyRequestRepository extends JpaRepository<PropertyRequest, UUID> {
+public interface PropertyRequestRepository extends JpaRepository<PropertyRequest, UUID>,
+        JpaSpecificationExecutor<PropertyRequest> {
 
     // User side
     List<PropertyRequest> findAllByUserIdOrderByCreatedAtDesc(UUID userId);
@@ -22,9 +24,5 @@ public interface PropertyRequestRepository extends JpaRepository<PropertyRequest
 
     boolean existsByPropertyIdAndKindAndStatus(UUID propertyId, PropertyRequestKind kind, PropertyRequestStatus status);
 
-    // Admin side
-    List<PropertyRequest> findAllByStatusNotOrderByCreatedAtDesc(PropertyRequestStatus status);
-
-    // (Optional but useful)
-    List<PropertyRequest> findAllByStatusOrderByCreatedAtDesc(PropertyRequestStatus status);
+    // Admin side: keyset pages through JpaSpecificationExecutor (see RequestPages)
 }
@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.example.demo.domain.StorageJobState;
+
+public interface StorageJobStateRepository extends JpaRepository<StorageJobState, String> {
+}
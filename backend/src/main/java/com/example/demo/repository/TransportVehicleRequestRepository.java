@@ -5,12 +5,14 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import com.example.demo.domain.TransportVehicleRequest;
 import com.example.demo.domain.TransportVehicleRequestKind;
 import com.example.demo.domain.TransportVehicleRequestStatus;
 
-public interface TransportVehicleRequestRepository extends JpaRepository<TransportVehicleRequest, UUID> {
+public interface TransportVehicleRequestRepository extends JpaRepository<TransportVehicleRequest, UUID>,
+        JpaSpecificationExecutor<TransportVehicleRequest> {
 
     // User side
     List<TransportVehicleRequest> findAllByUserIdOrderByCreatedAtDesc(UUID userId);
@@ -25,7 +27,5 @@ public interface TransportVehicleRequestRepository extends JpaRepository<Transpo
                                               TransportVehicleRequestStatus status,
                                               UUID vehicleId);
 
-    // Admin side
-    List<TransportVehicleRequest> findAllByStatusNotOrderByCreatedAtDesc(TransportVehicleRequestStatus status);
-    List<TransportVehicleRequest> findAllByStatusOrderByCreatedAtDesc(TransportVehicleRequestStatus status);
+    // Admin side: keyset pages through JpaSpecificationExecutor (see RequestPages)
 }
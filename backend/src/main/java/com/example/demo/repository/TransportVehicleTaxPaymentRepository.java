@@ -1,5 +1,6 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -10,5 +11,6 @@ import com.example.demo.domain.TransportVehicleTaxPayment;
 
 public interface TransportVehicleTaxPaymentRepository extends JpaRepository<TransportVehicleTaxPayment, UUID> {
     List<TransportVehicleTaxPayment> findAllByVehicleIdOrderByTaxYearDesc(UUID vehicleId);
+    List<TransportVehicleTaxPayment> findAllByVehicleIdInOrderByTaxYearDesc(Collection<UUID> vehicleIds);
     Optional<TransportVehicleTaxPayment> findByVehicleIdAndTaxYear(UUID vehicleId, Integer taxYear);
 }
@@ -1,21 +1,99 @@
 package com.example.demo.repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 import com.example.demo.domain.AccountStatus;
 import com.example.demo.domain.User;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEgn(String egn);
-    boolean existsByEgn(String egn);
-    boolean existsByEmail(String email);
-    boolean existsByDocNumber(String docNumber);
-    boolean existsByPhone(String phone);
 
+    /**
+     * Registration pre-check in one round trip: which of the four unique identifiers are already taken.
+     */
+    @Query(value = """
+            select coalesce(bool_or(u.egn = :egn), false)              as "egnTaken",
+                   coalesce(bool_or(u.email = :email), false)          as "emailTaken",
+                   coalesce(bool_or(u.doc_number = :docNumber), false) as "docNumberTaken",
+                   coalesce(bool_or(u.phone = :phone), false)          as "phoneTaken"
+            from users u
+            where u.egn = :egn or u.email = :email or u.doc_number = :docNumber or u.phone = :phone
+            """, nativeQuery = true)
+    TakenIdentifiers findTakenIdentifiers(String egn, String email, String docNumber, String phone);
+
+    /**
+     * All unique identifiers, streamed (used to warm the registration Bloom filter).
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.egn as egn, u.email as email, u.docNumber as docNumber, u.phone as phone from User u")
+    Stream<UserIdentifiers> streamIdentifiers();
+
+    @Query("select u.accountStatus from User u where u.id = :id")
+    Optional<AccountStatus> findAccountStatusById(UUID id);
+
+    /**
+     * Admin registration queue: newest first on (created_at, id), each user together with their ID card
+     * file ids (file_links USER / ID_CARD_FRONT, ID_CARD_BACK), so a page is one query.
+     */
+    @Query("""
+            select u as user, front.fileId as idCardFrontFileId, back.fileId as idCardBackFileId
+            from User u
+            left join FileLink front on front.entityType = 'USER' and front.entityId = u.id and front.tag = 'ID_CARD_FRONT'
+            left join FileLink back on back.entityType = 'USER' and back.entityId = u.id and back.tag = 'ID_CARD_BACK'
+            where u.accountStatus = :status
+            order by u.createdAt desc, u.id desc
+            """)
+    List<RegistrationRow> findRegistrationPage(@Param("status") AccountStatus status, Pageable page);
+
+    /**
+     * Next page of findRegistrationPage: rows strictly older than (createdAt, id). The redundant
+     * createdAt <= bound is what Postgres can use as the index range start; the OR alone is only a filter.
+     */
+    @Query("""
+            select u as user, front.fileId as idCardFrontFileId, back.fileId as idCardBackFileId
+            from User u
+            left join FileLink front on front.entityType = 'USER' and front.entityId = u.id and front.tag = 'ID_CARD_FRONT'
+            left join FileLink back on back.entityType = 'USER' and back.entityId = u.id and back.tag = 'ID_CARD_BACK'
+            where u.accountStatus = :status
+              and u.createdAt <= :createdAt
+              and (u.createdAt < :createdAt or (u.createdAt = :createdAt and u.id < :id))
+            order by u.createdAt desc, u.id desc
+            """)
+    List<RegistrationRow> findRegistrationPageAfter(@Param("status") AccountStatus status,
+                                                    @Param("createdAt") OffsetDateTime createdAt,
+                                                    @Param("id") UUID id,
+                                                    Pageable page);
+
+    interface RegistrationRow {
+        User getUser();
+        UUID getIdCardFrontFileId();
+        UUID getIdCardBackFileId();
+    }
+
+    interface TakenIdentifiers {
+        boolean getEgnTaken();
+        boolean getEmailTaken();
+        boolean getDocNumberTaken();
+        boolean getPhoneTaken();
+    }
 
-    List<User> findByAccountStatusOrderByCreatedAtDesc(AccountStatus status);
+    interface UserIdentifiers {
+        String getEgn();
+        String getEmail();
+        String getDocNumber();
+        String getPhone();
+    }
 }
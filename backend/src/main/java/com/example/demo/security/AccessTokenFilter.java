@@ -0,0 +1,63 @@
+package com.example.demo.security;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authenticates "Authorization: Bearer <token>" requests from the signed token alone
+ * (no UserDetailsService, no password hashing). Requests without a bearer token pass through
+ * untouched, so HTTP Basic can still handle them when it is enabled.
+ */
+public class AccessTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AccessTokenService tokenService;
+    private final AccessTokenService.Kind kind;
+
+    public AccessTokenFilter(AccessTokenService tokenService, AccessTokenService.Kind kind) {
+        this.tokenService = tokenService;
+        this.kind = kind;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Object principal = tokenService.verify(header.substring(BEARER_PREFIX.length()).trim(), kind);
+        if (!(principal instanceof UserDetails details)) {
+            response.setStatus(401);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Invalid or expired token\"}");
+            return;
+        }
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(details, null, details.getAuthorities()));
+        SecurityContextHolder.setContext(context);
+
+        filterChain.doFilter(request, response);
+    }
+}
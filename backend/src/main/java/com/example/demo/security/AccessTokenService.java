@@ -0,0 +1,65 @@
+package com.example.demo.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import com.example.demo.domain.AccountStatus;
+
+/**
+ * Issues and verifies short-lived, HMAC-SHA256 signed access tokens (format: see HmacTokenCodec).
+ *
+ * Payload: "U|userId|exp|accountStatus|egn" for users and "A|adminId|exp|-|username" for admins.
+ *
+ * Verification is pure CPU (one HMAC), no DB lookup and no BCrypt.
+ */
+public class AccessTokenService {
+
+    public enum Kind { USER, ADMIN }
+
+    public static final String TOKEN_TYPE = "Bearer";
+
+    private final HmacTokenCodec codec;
+    private final Duration ttl;
+
+    public AccessTokenService(String secret, Duration ttl) {
+        // no shared secret configured -> per-process key (tokens do not survive a restart / other nodes)
+        this.codec = new HmacTokenCodec(secret);
+        this.ttl = ttl;
+    }
+
+    public Duration getTtl() { return ttl; }
+
+    public IssuedToken issueUser(UUID userId, String egn, AccountStatus status) {
+        Instant exp = Instant.now().plus(ttl);
+        return new IssuedToken(codec.encode(HmacTokenCodec.USER, userId, exp.getEpochSecond(), status.name(), egn), exp);
+    }
+
+    public IssuedToken issueAdmin(UUID adminId, String username) {
+        Instant exp = Instant.now().plus(ttl);
+        return new IssuedToken(codec.encode(HmacTokenCodec.ADMIN, adminId, exp.getEpochSecond(), "-", username), exp);
+    }
+
+    /**
+     * Returns the principal encoded in the token, or null if the token is malformed,
+     * has a bad signature, is expired or is of another kind.
+     */
+    public Object verify(String token, Kind expected) {
+        String[] parts = codec.decode(token, expected == Kind.USER ? HmacTokenCodec.USER : HmacTokenCodec.ADMIN, 4);
+        if (parts == null) return null;
+
+        try {
+            long exp = Long.parseLong(parts[1]);
+            if (Instant.now().getEpochSecond() >= exp) return null;
+
+            UUID id = UUID.fromString(parts[0]);
+            return expected == Kind.USER
+                    ? new UserPrincipal(id, parts[3], null, AccountStatus.valueOf(parts[2]))
+                    : new AdminPrincipal(id, parts[3], null, true);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public record IssuedToken(String token, Instant expiresAt) {}
+}
@@ -0,0 +1,75 @@
+package com.example.demo.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.example.demo.domain.AccountStatus;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * In-process userId -> AccountStatus cache shared by EgnUserDetailsService and ActiveUserFilter.
+ *
+ * Values are enum constants (shared singletons), so an entry costs only the map node and the UUID key.
+ * Bounded as an LRU (like FileServingService's metadata cache): a full cache drops its least recently
+ * used user, not every entry.
+ * Local writes happen on approve/reject; other nodes are invalidated through
+ * AccountStatusNotificationListener (Postgres LISTEN/NOTIFY).
+ */
+public class AccountStatusCache {
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+
+    private final Map<UUID, AccountStatus> statuses;
+
+    public AccountStatusCache(UserRepository userRepository, int maxEntries) {
+        this.userRepository = userRepository;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.statuses = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, AccountStatus> eldest) {
+                return size() > AccountStatusCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached status, loading it with a single-column query on a miss.
+     * Returns null if the user no longer exists.
+     */
+    public AccountStatus get(UUID userId) {
+        synchronized (statuses) {
+            AccountStatus cached = statuses.get(userId);
+            if (cached != null) return cached;
+        }
+
+        AccountStatus loaded = userRepository.findAccountStatusById(userId).orElse(null);
+        if (loaded != null) put(userId, loaded);
+        return loaded;
+    }
+
+    public void put(UUID userId, AccountStatus status) {
+        synchronized (statuses) {
+            statuses.put(userId, status);
+        }
+    }
+
+    public void evict(UUID userId) {
+        synchronized (statuses) {
+            statuses.remove(userId);
+        }
+    }
+
+    public void clear() {
+        synchronized (statuses) {
+            statuses.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (statuses) {
+            return statuses.size();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.security;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Keeps AccountStatusCache coherent across backend nodes.
+ *
+ * V17 installs a trigger that runs pg_notify('account_status_changed', users.id) whenever a user's
+ * account_status changes or the user is deleted. Postgres delivers the notification on commit, and
+ * every node listening here evicts that user from its local cache.
+ *
+ * LISTEN ties up its connection for the node's lifetime, so {@code dataSource} should open connections
+ * directly (SecurityConfig passes one built from spring.datasource.*), not lend one from the pool.
+ */
+public class AccountStatusNotificationListener implements SmartLifecycle {
+
+    public static final String CHANNEL = "account_status_changed";
+
+    private static final Logger log = LoggerFactory.getLogger(AccountStatusNotificationListener.class);
+
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long RECONNECT_DELAY_MS = 10_000;
+
+    private final DataSource dataSource;
+    private final AccountStatusCache cache;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AccountStatusNotificationListener(DataSource dataSource, AccountStatusCache cache) {
+        this.dataSource = dataSource;
+        this.cache = cache;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::listenLoop, "account-status-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection c = dataSource.getConnection()) {
+                PGConnection pg = c.unwrap(PGConnection.class);
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+
+                // anything could have changed while we were not listening
+                cache.clear();
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        evict(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Account status listener disconnected, retrying in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                cache.clear();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void evict(String payload) {
+        try {
+            cache.evict(UUID.fromString(payload.trim()));
+        } catch (IllegalArgumentException e) {
+            cache.clear();
+        }
+    }
+}
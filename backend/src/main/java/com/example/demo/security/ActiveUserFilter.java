@@ -16,6 +16,12 @@ import jakarta.servlet.http.HttpServletResponse;
 
 public class ActiveUserFilter extends OncePerRequestFilter {
 
+    private final AccountStatusCache accountStatusCache;
+
+    public ActiveUserFilter(AccountStatusCache accountStatusCache) {
+        this.accountStatusCache = accountStatusCache;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
@@ -33,7 +39,15 @@ public class ActiveUserFilter extends OncePerRequestFilter {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.getPrincipal() instanceof UserPrincipal up) {
-            if (up.getAccountStatus() != AccountStatus.ACTIVE) {
+            // the principal's status may be stale (token / cached credentials); the shared cache is authoritative
+            AccountStatus status = accountStatusCache.get(up.getUserId());
+            if (status == null) {
+                response.setStatus(401);
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"message\":\"Account not found\"}");
+                return;
+            }
+            if (status != AccountStatus.ACTIVE) {
                 response.setStatus(403);
                 response.setContentType(MediaType.APPLICATION_JSON_VALUE);
                 response.getWriter().write("{\"message\":\"Account pending approval\"}");
@@ -0,0 +1,140 @@
+package com.example.demo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Bounded, TTL-evicting cache of successful authentications in front of a DaoAuthenticationProvider.
+ *
+ * Key = username + HMAC(per-process key, presented password), so plain passwords are never kept
+ * and a wrong password simply misses. A hit skips both the UserDetailsService lookup and BCrypt.
+ * Failed authentications are never cached.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final SecretKeySpec key;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate,
+                                         Duration ttl,
+                                         int maxEntries,
+                                         MeterRegistry meterRegistry,
+                                         String cacheName) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+
+        byte[] raw = new byte[32];
+        new SecureRandom().nextBytes(raw);
+        this.key = new SecretKeySpec(raw, ALGORITHM);
+
+        this.hits = Counter.builder("auth.credential.cache")
+                .tag("cache", cacheName).tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("auth.credential.cache")
+                .tag("cache", cacheName).tag("result", "miss")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.credential.cache.size",
+                Tags.of("cache", cacheName), cache, Map::size);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String username = authentication.getName();
+        String cacheKey = cacheKey(username, credentials.toString());
+        long now = System.nanoTime();
+
+        Entry e = cache.get(cacheKey);
+        if (e != null) {
+            if (now - e.createdAtNanos < ttlNanos) {
+                hits.increment();
+                return e.result;
+            }
+            cache.remove(cacheKey, e);
+        }
+
+        misses.increment();
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            makeRoom(now);
+            cache.put(cacheKey, new Entry(username, result, now));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    /**
+     * Drops every cached authentication for the given username (EGN / admin username).
+     * Call whenever the account changes (approval, deletion, password change).
+     */
+    public void evict(String username) {
+        if (username == null) return;
+        cache.values().removeIf(e -> e.username.equals(username));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private void makeRoom(long now) {
+        if (cache.size() < maxEntries) return;
+
+        cache.values().removeIf(e -> now - e.createdAtNanos >= ttlNanos);
+
+        Iterator<String> it = cache.keySet().iterator();
+        while (cache.size() >= maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private String cacheKey(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] h = mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+            return username + ':' + HexFormat.of().formatHex(h);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+
+    private record Entry(String username, Authentication result, long createdAtNanos) {}
+}
@@ -10,15 +10,19 @@ import com.example.demo.repository.UserRepository;
 public class EgnUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final AccountStatusCache accountStatusCache;
 
-    public EgnUserDetailsService(UserRepository userRepository) {
+    public EgnUserDetailsService(UserRepository userRepository, AccountStatusCache accountStatusCache) {
         this.userRepository = userRepository;
+        this.accountStatusCache = accountStatusCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String egn) throws UsernameNotFoundException {
         User user = userRepository.findByEgn(egn)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        // the row was read anyway (password hash) -> refresh the shared status cache for ActiveUserFilter
+        accountStatusCache.put(user.getId(), user.getAccountStatus());
         return new UserPrincipal(user.getId(), user.getEgn(), user.getPasswordHash(), user.getAccountStatus());
     }
 }
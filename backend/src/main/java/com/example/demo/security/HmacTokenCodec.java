@@ -0,0 +1,92 @@
+package com.example.demo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The signed token format shared by AccessTokenService and SignedUrlService:
+ * base64url(payload) + "." + base64url(hmacSha256(payload)), payload = "domain|field|field|...".
+ *
+ * The domain is always the first field and is checked on decode. Both services may run on the same
+ * secret, so it is what keeps an access token from passing as a signed URL and vice versa; all domains
+ * are defined here so they cannot collide.
+ */
+final class HmacTokenCodec {
+
+    /** user access token (AccessTokenService) */
+    static final String USER = "U";
+    /** admin access token (AccessTokenService) */
+    static final String ADMIN = "A";
+    /** signed file URL (SignedUrlService) */
+    static final String FILE = "F";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+
+    /** a blank secret means a per-process random key: tokens only verify on the node that issued them */
+    HmacTokenCodec(String secret) {
+        byte[] raw;
+        if (secret == null || secret.isBlank()) {
+            raw = new byte[32];
+            new SecureRandom().nextBytes(raw);
+        } else {
+            raw = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(raw, ALGORITHM);
+    }
+
+    String encode(String domain, Object... fields) {
+        StringBuilder payload = new StringBuilder(domain);
+        for (Object field : fields) payload.append('|').append(field);
+        byte[] bytes = payload.toString().getBytes(StandardCharsets.UTF_8);
+        return B64.encodeToString(bytes) + "." + B64.encodeToString(hmac(bytes));
+    }
+
+    /**
+     * The {@code fields} fields after the domain (the last one may contain '|'), or null if the token is
+     * malformed, has a bad signature or belongs to another domain.
+     */
+    String[] decode(String token, String domain, int fields) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) return null;
+
+        byte[] payloadBytes;
+        byte[] sig;
+        try {
+            payloadBytes = B64D.decode(token.substring(0, dot));
+            sig = B64D.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (!MessageDigest.isEqual(sig, hmac(payloadBytes))) return null;
+
+        String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", fields + 1);
+        if (parts.length != fields + 1 || !domain.equals(parts[0])) return null;
+
+        String[] values = new String[fields];
+        System.arraycopy(parts, 1, values, 0, fields);
+        return values;
+    }
+
+    private byte[] hmac(byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
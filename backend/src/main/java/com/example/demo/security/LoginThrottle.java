@@ -0,0 +1,206 @@
+package com.example.demo.security;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory login limiter: one token bucket per login identifier (EGN / admin username) and one per
+ * client IP. An attempt must take a token from both buckets before any DB or BCrypt work happens.
+ *
+ * Buckets are lock-free (a single AtomicLong packing tokens + last refill time, updated by CAS) and
+ * live in a fixed number of stripes; each stripe is bounded and drops idle buckets when it fills up.
+ */
+public class LoginThrottle {
+
+    public enum Scope { IDENTIFIER, IP }
+
+    private static final int STRIPES = 16;
+
+    // packed state: high 20 bits = tokens * TOKEN_SCALE, low 44 bits = last refill time (ms since base)
+    private static final int TIME_BITS = 44;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long TOKEN_SCALE = 1000;
+
+    private final Limits identifierLimits;
+    private final Limits ipLimits;
+    private final int maxBucketsPerStripe;
+    private final long idleMs;
+    private final long baseMs = System.currentTimeMillis();
+
+    @SuppressWarnings("unchecked")
+    private final Map<String, Bucket>[] stripes = new Map[STRIPES];
+
+    private final Counter identifierRejections;
+    private final Counter ipRejections;
+
+    public LoginThrottle(Limits identifierLimits,
+                         Limits ipLimits,
+                         int maxBuckets,
+                         long idleMs,
+                         MeterRegistry meterRegistry) {
+        this.identifierLimits = identifierLimits;
+        this.ipLimits = ipLimits;
+        this.maxBucketsPerStripe = Math.max(1, maxBuckets / STRIPES);
+        this.idleMs = idleMs;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ConcurrentHashMap<>();
+
+        this.identifierRejections = Counter.builder("auth.login.throttled").tag("scope", "identifier").register(meterRegistry);
+        this.ipRejections = Counter.builder("auth.login.throttled").tag("scope", "ip").register(meterRegistry);
+        meterRegistry.gauge("auth.login.throttle.buckets", this, LoginThrottle::bucketCount);
+    }
+
+    /**
+     * Takes one token for the identifier and one for the IP.
+     * Returns 0 if the attempt may proceed, otherwise the number of seconds to wait.
+     */
+    public long tryAcquire(String realm, String identifier, String clientIp) {
+        long now = System.currentTimeMillis() - baseMs;
+
+        if (clientIp != null && !clientIp.isBlank()) {
+            long wait = bucket(Scope.IP, realm + "|ip|" + clientIp, ipLimits, now).tryTake(now);
+            if (wait > 0) {
+                ipRejections.increment();
+                return wait;
+            }
+        }
+
+        if (identifier != null && !identifier.isBlank()) {
+            long wait = bucket(Scope.IDENTIFIER, realm + "|id|" + identifier.trim(), identifierLimits, now)
+                    .tryTake(now);
+            if (wait > 0) {
+                identifierRejections.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Keys with the most rejected attempts (per-key view of credential stuffing / brute force).
+     */
+    public List<KeyStats> topRejected(int limit) {
+        List<KeyStats> all = new ArrayList<>();
+        for (Map<String, Bucket> stripe : stripes) {
+            stripe.forEach((key, b) -> {
+                long r = b.rejections.get();
+                if (r > 0) all.add(new KeyStats(key, b.scope, r));
+            });
+        }
+        all.sort(Comparator.comparingLong(KeyStats::rejections).reversed());
+        return all.size() > limit ? all.subList(0, limit) : all;
+    }
+
+    public int bucketCount() {
+        int n = 0;
+        for (Map<String, Bucket> stripe : stripes) n += stripe.size();
+        return n;
+    }
+
+    private Bucket bucket(Scope scope, String key, Limits limits, long now) {
+        Map<String, Bucket> stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        Bucket b = stripe.get(key);
+        if (b != null) return b;
+
+        if (stripe.size() >= maxBucketsPerStripe) {
+            evictIdle(stripe, now);
+        }
+        return stripe.computeIfAbsent(key, k -> new Bucket(scope, limits, pack(limits.capacity * TOKEN_SCALE, now)));
+    }
+
+    private void evictIdle(Map<String, Bucket> stripe, long now) {
+        // a bucket that has refilled to capacity behaves exactly like a new one, so dropping it loses nothing
+        stripe.values().removeIf(b -> now - unpackTime(b.state.get()) > idleMs || b.isFull(now));
+
+        // still full of partially drained buckets (e.g. a spray of random identifiers): bound memory anyway
+        Iterator<Bucket> it = stripe.values().iterator();
+        while (stripe.size() >= maxBucketsPerStripe && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static long pack(long scaledTokens, long timeMs) {
+        return (scaledTokens << TIME_BITS) | (timeMs & TIME_MASK);
+    }
+
+    private static long unpackTokens(long state) {
+        return state >>> TIME_BITS;
+    }
+
+    private static long unpackTime(long state) {
+        return state & TIME_MASK;
+    }
+
+    /**
+     * capacity = burst size, refillPerMinute = sustained attempts per minute.
+     */
+    public record Limits(long capacity, long refillPerMinute) {
+        public Limits {
+            if (capacity < 1 || capacity > 1000) throw new IllegalArgumentException("capacity must be 1..1000");
+            if (refillPerMinute < 1) throw new IllegalArgumentException("refillPerMinute must be >= 1");
+        }
+    }
+
+    public record KeyStats(String key, Scope scope, long rejections) {}
+
+    private static final class Bucket {
+        final Scope scope;
+        final Limits limits;
+        final AtomicLong state;
+        final AtomicLong rejections = new AtomicLong();
+
+        Bucket(Scope scope, Limits limits, long initialState) {
+            this.scope = scope;
+            this.limits = limits;
+            this.state = new AtomicLong(initialState);
+        }
+
+        boolean isFull(long now) {
+            long cur = state.get();
+            long elapsed = Math.max(0, now - unpackTime(cur));
+            return unpackTokens(cur) + refill(limits, elapsed) >= limits.capacity * TOKEN_SCALE;
+        }
+
+        static long refill(Limits limits, long elapsedMs) {
+            // scaled tokens regained = elapsed * refillPerMinute * TOKEN_SCALE / 60_000 (saturating for long idle gaps)
+            if (elapsedMs > 60_000L * limits.capacity) return limits.capacity * TOKEN_SCALE;
+            return elapsedMs * limits.refillPerMinute * TOKEN_SCALE / 60_000L;
+        }
+
+        /** @return 0 when a token was taken, else seconds until one is available */
+        long tryTake(long now) {
+            long max = limits.capacity * TOKEN_SCALE;
+            while (true) {
+                long cur = state.get();
+                long tokens = unpackTokens(cur);
+                long last = unpackTime(cur);
+                long elapsed = Math.max(0, now - last);
+
+                long refill = refill(limits, elapsed);
+                long available = Math.min(max, tokens + refill);
+                // only advance the clock when something was refilled, so sub-token gaps are not lost
+                long newTime = refill > 0 ? now : last;
+
+                if (available < TOKEN_SCALE) {
+                    rejections.incrementAndGet();
+                    long missing = TOKEN_SCALE - available;
+                    long waitMs = (missing * 60_000L + limits.refillPerMinute * TOKEN_SCALE - 1)
+                            / (limits.refillPerMinute * TOKEN_SCALE);
+                    return Math.max(1, (waitMs + 999) / 1000);
+                }
+
+                if (state.compareAndSet(cur, pack(available - TOKEN_SCALE, newTime))) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.example.demo.security;
 
+import java.time.Duration;
 import java.util.List;
 
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.Customizer;
 import static org.springframework.security.config.Customizer.withDefaults;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -21,11 +30,20 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.example.demo.repository.AdminRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.RequestPages;
+import com.example.demo.web.FileDownloadHandler;
+import com.example.demo.web.SignedDownloadFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // HTTP Basic (BCrypt on every request) is an opt-in fallback; the default is signed bearer tokens.
+    @Value("${app.security.basic-auth.enabled:false}")
+    private boolean basicAuthEnabled;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -40,16 +58,85 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider userAuthProvider(UserRepository userRepository, PasswordEncoder encoder) {
+    public DaoAuthenticationProvider userAuthProvider(UserRepository userRepository,
+                                                      PasswordEncoder encoder,
+                                                      AccountStatusCache accountStatusCache) {
         DaoAuthenticationProvider p = new DaoAuthenticationProvider();
-        p.setUserDetailsService(new EgnUserDetailsService(userRepository));
+        p.setUserDetailsService(new EgnUserDetailsService(userRepository, accountStatusCache));
         p.setPasswordEncoder(encoder);
         return p;
     }
 
     @Bean
-    public ActiveUserFilter activeUserFilter() {
-        return new ActiveUserFilter();
+    public CachingAuthenticationProvider adminCredentialCache(DaoAuthenticationProvider adminAuthProvider,
+                                                              MeterRegistry meterRegistry,
+                                                              @Value("${app.security.credential-cache.ttl:PT5M}") Duration ttl,
+                                                              @Value("${app.security.credential-cache.max-entries:10000}") int maxEntries) {
+        return new CachingAuthenticationProvider(adminAuthProvider, ttl, maxEntries, meterRegistry, "admin");
+    }
+
+    @Bean
+    public CachingAuthenticationProvider userCredentialCache(DaoAuthenticationProvider userAuthProvider,
+                                                             MeterRegistry meterRegistry,
+                                                             @Value("${app.security.credential-cache.ttl:PT5M}") Duration ttl,
+                                                             @Value("${app.security.credential-cache.max-entries:10000}") int maxEntries) {
+        return new CachingAuthenticationProvider(userAuthProvider, ttl, maxEntries, meterRegistry, "user");
+    }
+
+    @Bean
+    public AccessTokenService accessTokenService(@Value("${app.security.token.secret:}") String secret,
+                                                 @Value("${app.security.token.ttl:PT30M}") Duration ttl) {
+        return new AccessTokenService(secret, ttl);
+    }
+
+    @Bean
+    public SignedUrlService signedUrlService(@Value("${app.security.signed-url.secret:${app.security.token.secret:}}") String secret,
+                                             @Value("${app.security.signed-url.ttl:PT5M}") Duration ttl) {
+        return new SignedUrlService(secret, ttl);
+    }
+
+    // runs before springSecurityFilterChain: signed downloads skip authentication entirely
+    @Bean
+    public FilterRegistrationBean<SignedDownloadFilter> signedDownloadFilter(SignedUrlService signedUrlService,
+                                                                             FileDownloadHandler downloads) {
+        FilterRegistrationBean<SignedDownloadFilter> registration =
+                new FilterRegistrationBean<>(new SignedDownloadFilter(signedUrlService, downloads));
+        registration.addUrlPatterns(SignedUrlService.PATH_PREFIX + "*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    @Bean
+    public AccountStatusCache accountStatusCache(UserRepository userRepository,
+                                                 @Value("${app.security.account-status-cache.max-entries:100000}") int maxEntries) {
+        return new AccountStatusCache(userRepository, maxEntries);
+    }
+
+    @Bean
+    public AccountStatusNotificationListener accountStatusNotificationListener(DataSourceProperties dataSource,
+                                                                               AccountStatusCache accountStatusCache) {
+        // LISTEN needs its connection for as long as the node runs: opened from spring.datasource.*, not the pool
+        DataSource direct = dataSource.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build();
+        return new AccountStatusNotificationListener(direct, accountStatusCache);
+    }
+
+    @Bean
+    public LoginThrottle loginThrottle(MeterRegistry meterRegistry,
+                                       @Value("${app.security.login-throttle.identifier.capacity:5}") long idCapacity,
+                                       @Value("${app.security.login-throttle.identifier.refill-per-minute:5}") long idRefill,
+                                       @Value("${app.security.login-throttle.ip.capacity:30}") long ipCapacity,
+                                       @Value("${app.security.login-throttle.ip.refill-per-minute:60}") long ipRefill,
+                                       @Value("${app.security.login-throttle.max-buckets:100000}") int maxBuckets,
+                                       @Value("${app.security.login-throttle.idle-eviction:PT15M}") Duration idle) {
+        return new LoginThrottle(
+                new LoginThrottle.Limits(idCapacity, idRefill),
+                new LoginThrottle.Limits(ipCapacity, ipRefill),
+                maxBuckets, idle.toMillis(), meterRegistry);
+    }
+
+    @Bean
+    public ActiveUserFilter activeUserFilter(AccountStatusCache accountStatusCache) {
+        return new ActiveUserFilter(accountStatusCache);
     }
 
     @Bean
@@ -58,6 +145,7 @@ public class SecurityConfig {
         cfg.setAllowedOrigins(List.of("http://localhost:3000", "http://localhost:5173"));
         cfg.setAllowedMethods(List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
         cfg.setAllowedHeaders(List.of("*"));
+        cfg.setExposedHeaders(List.of(RequestPages.NEXT_CURSOR_HEADER));
         cfg.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -68,18 +156,22 @@ public class SecurityConfig {
     @Bean
     @Order(1)
     public SecurityFilterChain adminChain(org.springframework.security.config.annotation.web.builders.HttpSecurity http,
-                                         DaoAuthenticationProvider adminAuthProvider) throws Exception {
+                                         CachingAuthenticationProvider adminCredentialCache,
+                                         AccessTokenService accessTokenService) throws Exception {
 
         http.securityMatcher("/api/admin/**")
                 .cors(withDefaults())
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(adminAuthProvider)
+                .authenticationProvider(adminCredentialCache)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.POST, "/api/admin/auth/login").permitAll()
                         .anyRequest().hasRole("ADMIN")
                 )
-                .httpBasic(Customizer.withDefaults());
+                .addFilterBefore(new AccessTokenFilter(accessTokenService, AccessTokenService.Kind.ADMIN),
+                        BasicAuthenticationFilter.class);
+
+        configureBasicFallback(http);
 
         return http.build();
     }
@@ -87,22 +179,34 @@ public class SecurityConfig {
     @Bean
     @Order(2)
     public SecurityFilterChain userChain(org.springframework.security.config.annotation.web.builders.HttpSecurity http,
-                                        DaoAuthenticationProvider userAuthProvider,
-                                        ActiveUserFilter activeUserFilter) throws Exception {
+                                        CachingAuthenticationProvider userCredentialCache,
+                                        ActiveUserFilter activeUserFilter,
+                                        AccessTokenService accessTokenService) throws Exception {
 
         http.securityMatcher("/api/**")
                 .cors(withDefaults())
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(userAuthProvider)
+                .authenticationProvider(userCredentialCache)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.POST, "/api/auth/register").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
                         .anyRequest().authenticated()
                 )
-                .httpBasic(withDefaults())
+                .addFilterBefore(new AccessTokenFilter(accessTokenService, AccessTokenService.Kind.USER),
+                        BasicAuthenticationFilter.class)
                 .addFilterAfter(activeUserFilter, BasicAuthenticationFilter.class);
 
+        configureBasicFallback(http);
+
         return http.build();
     }
+
+    private void configureBasicFallback(org.springframework.security.config.annotation.web.builders.HttpSecurity http) throws Exception {
+        if (basicAuthEnabled) {
+            http.httpBasic(withDefaults());
+        } else {
+            http.exceptionHandling(eh -> eh.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        }
+    }
 }
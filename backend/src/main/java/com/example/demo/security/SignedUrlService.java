@@ -0,0 +1,72 @@
+package com.example.demo.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import com.example.demo.domain.AppFile;
+
+/**
+ * Short-lived, HMAC-SHA256 signed download URLs (/api/files/signed/<token>), for embedding images and
+ * PDFs without an Authorization header. Token format: see HmacTokenCodec.
+ *
+ * Payload: "F|fileId|exp|sizeBytes|createdAtMillis|sha256|storageKey|mimeType|originalName": everything the
+ * download needs, so serving it takes no user, link or file lookup. The token can only be created by an
+ * endpoint that has already checked access to the file.
+ */
+public class SignedUrlService {
+
+    public static final String PATH_PREFIX = "/api/files/signed/";
+
+    private final HmacTokenCodec codec;
+    private final Duration ttl;
+
+    public SignedUrlService(String secret, Duration ttl) {
+        // no shared secret configured -> per-process key (URLs only work on the node that signed them)
+        this.codec = new HmacTokenCodec(secret);
+        this.ttl = ttl;
+    }
+
+    public SignedUrl sign(AppFile f) {
+        Instant exp = Instant.now().plus(ttl);
+        String token = codec.encode(HmacTokenCodec.FILE, f.getId(),
+                exp.getEpochSecond(),
+                f.getSizeBytes(),
+                f.getCreatedAt() == null ? 0 : f.getCreatedAt().toInstant().toEpochMilli(),
+                f.getSha256() == null ? "-" : f.getSha256(),
+                f.getStorageKey(),
+                f.getMimeType(),
+                f.getOriginalName());
+        return new SignedUrl(PATH_PREFIX + token, exp);
+    }
+
+    /**
+     * The file described by the token (detached, not loaded from the DB), or null if the token is
+     * malformed, has a bad signature or is expired.
+     */
+    public AppFile verify(String token) {
+        String[] parts = codec.decode(token, HmacTokenCodec.FILE, 8);
+        if (parts == null) return null;
+
+        try {
+            if (Instant.now().getEpochSecond() >= Long.parseLong(parts[1])) return null;
+
+            AppFile f = new AppFile();
+            f.setId(UUID.fromString(parts[0]));
+            f.setSizeBytes(Long.parseLong(parts[2]));
+            f.setCreatedAt(OffsetDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(parts[3])), ZoneOffset.UTC));
+            f.setSha256("-".equals(parts[4]) ? null : parts[4]);
+            f.setStorageKey(parts[5]);
+            f.setMimeType(parts[6]);
+            f.setOriginalName(parts[7]);
+            return f;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** path relative to the API origin */
+    public record SignedUrl(String url, Instant expiresAt) {}
+}
@@ -8,16 +8,21 @@ import org.springframework.web.server.ResponseStatusException;
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.repository.AdminRepository;
+import com.example.demo.security.AccessTokenService;
 
 @Service
 public class AdminAuthService {
 
     private final AdminRepository adminRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AccessTokenService accessTokenService;
 
-    public AdminAuthService(AdminRepository adminRepository, PasswordEncoder passwordEncoder) {
+    public AdminAuthService(AdminRepository adminRepository,
+                            PasswordEncoder passwordEncoder,
+                            AccessTokenService accessTokenService) {
         this.adminRepository = adminRepository;
         this.passwordEncoder = passwordEncoder;
+        this.accessTokenService = accessTokenService;
     }
 
     public AuthResponse login(LoginRequest req) {
@@ -32,6 +37,7 @@ public class AdminAuthService {
             throw new ResponseStatusException(UNAUTHORIZED, "Invalid credentials");
         }
 
-        return AuthResponse.admin();
+        AccessTokenService.IssuedToken token = accessTokenService.issueAdmin(admin.getId(), admin.getUsername());
+        return AuthResponse.admin().withToken(token.token(), AccessTokenService.TOKEN_TYPE, token.expiresAt());
     }
 }
@@ -1,7 +1,6 @@
 package com.example.demo.service;
 
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -37,20 +36,27 @@ public class AdminDocumentRequestService {
     private final DocumentRequestRepository requestRepo;
     private final DocumentRepository documentRepo;
     private final FileLinkRepository fileLinkRepo;
+    private final FileServingService fileServing;
     private final ObjectMapper objectMapper;
 
     public AdminDocumentRequestService(DocumentRequestRepository requestRepo,
                                        DocumentRepository documentRepo,
                                        FileLinkRepository fileLinkRepo,
+                                       FileServingService fileServing,
                                        ObjectMapper objectMapper) {
         this.requestRepo = requestRepo;
         this.documentRepo = documentRepo;
         this.fileLinkRepo = fileLinkRepo;
+        this.fileServing = fileServing;
         this.objectMapper = objectMapper;
     }
 
-    public List<DocumentRequest> listAllNonRejected() {
-        return requestRepo.findAllByStatusNotOrderByCreatedAtDesc(DocumentRequestStatus.REJECTED);
+    /**
+     * Newest first, one keyset page. Without a status filter rejected requests are left out.
+     */
+    public RequestPages.Page<DocumentRequest> list(DocumentRequestStatus status, DocumentRequestKind kind, String cursor, Integer limit) {
+        return RequestPages.fetch(requestRepo, status, DocumentRequestStatus.REJECTED, kind, cursor, limit,
+                DocumentRequest::getCreatedAt, DocumentRequest::getId);
     }
 
     public DocumentRequest get(UUID id) {
@@ -176,7 +182,7 @@ public class AdminDocumentRequestService {
                 ENTITY_TYPE_DOCUMENT_REQUEST, req.getId(), TAG_PHOTO_2).orElse(null);
 
         if (req1 != null) {
-            fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_1);
+            fileServing.unlink(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_1);
 
             FileLink l1 = new FileLink();
             l1.setId(UUID.randomUUID());
@@ -189,7 +195,7 @@ public class AdminDocumentRequestService {
         }
 
         if (req2 != null) {
-            fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_2);
+            fileServing.unlink(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_2);
 
             FileLink l2 = new FileLink();
             l2.setId(UUID.randomUUID());
@@ -248,8 +254,8 @@ public class AdminDocumentRequestService {
             throw new ResponseStatusException(CONFLICT, "DOCUMENT_OWNER_MISMATCH");
         }
 
-        fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_1);
-        fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_2);
+        fileServing.unlink(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_1);
+        fileServing.unlink(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_PHOTO_2);
 
         documentRepo.deleteById(d.getId());
     }
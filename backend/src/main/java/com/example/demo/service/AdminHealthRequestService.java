@@ -1,7 +1,6 @@
 package com.example.demo.service;
 
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -20,7 +19,6 @@ import com.example.demo.domain.HealthRequestKind;
 import com.example.demo.domain.HealthRequestStatus;
 import com.example.demo.domain.HealthUserProfile;
 import com.example.demo.repository.FileLinkRepository;
-import com.example.demo.repository.FileRepository;
 import com.example.demo.repository.HealthDoctorRepository;
 import com.example.demo.repository.HealthReferralRepository;
 import com.example.demo.repository.HealthRequestRepository;
@@ -43,7 +41,7 @@ public class AdminHealthRequestService {
     private final HealthUserProfileRepository profileRepo;
     private final HealthReferralRepository referralRepo;
 
-    private final FileRepository fileRepo;
+    private final FileServingService fileServing;
     private final FileLinkRepository fileLinkRepo;
 
     private final ObjectMapper objectMapper;
@@ -52,29 +50,25 @@ public class AdminHealthRequestService {
                                      HealthDoctorRepository doctorRepo,
                                      HealthUserProfileRepository profileRepo,
                                      HealthReferralRepository referralRepo,
-                                     FileRepository fileRepo,
+                                     FileServingService fileServing,
                                      FileLinkRepository fileLinkRepo,
                                      ObjectMapper objectMapper) {
         this.requestRepo = requestRepo;
         this.doctorRepo = doctorRepo;
         this.profileRepo = profileRepo;
         this.referralRepo = referralRepo;
-        this.fileRepo = fileRepo;
+        this.fileServing = fileServing;
         this.fileLinkRepo = fileLinkRepo;
         this.objectMapper = objectMapper;
     }
 
-    public List<HealthRequest> listAll(String status) {
-        if (status == null || status.isBlank()) {
-            return requestRepo.findAllByOrderByCreatedAtDesc();
-        }
-        HealthRequestStatus st;
-        try {
-            st = HealthRequestStatus.valueOf(status.trim().toUpperCase());
-        } catch (Exception e) {
-            throw new ResponseStatusException(BAD_REQUEST, "STATUS_INVALID");
-        }
-        return requestRepo.findAllByStatusOrderByCreatedAtDesc(st);
+    /**
+     * Newest first, one keyset page, all statuses unless one is given.
+     */
+    public RequestPages.Page<HealthRequest> list(HealthRequestStatus status, HealthRequestKind kind,
+                                                 String cursor, Integer limit) {
+        return RequestPages.fetch(requestRepo, status, null, kind, cursor, limit,
+                HealthRequest::getCreatedAt, HealthRequest::getId);
     }
 
     public HealthRequest get(UUID id) {
@@ -135,10 +129,7 @@ public class AdminHealthRequestService {
         HealthRequest r = requestRepo.findById(requestId)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
 
-        FileLink link = fileLinkRepo.findByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_HEALTH_REQUEST, r.getId(), tag)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
-
-        return fileRepo.findById(link.getFileId())
+        return fileServing.findLinked(ENTITY_TYPE_HEALTH_REQUEST, r.getId(), tag)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
     }
 
@@ -2,7 +2,6 @@ package com.example.demo.service;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -10,7 +9,9 @@ import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -47,8 +48,10 @@ public class AdminPropertyRequestService {
 
     private final FileStorageService fileStorageService;
     private final FileLinkRepository fileLinkRepo;
+    private final FileServingService fileServing;
 
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
 
     public AdminPropertyRequestService(PropertyRequestRepository requestRepo,
                                       PropertyRepository propertyRepo,
@@ -56,18 +59,26 @@ public class AdminPropertyRequestService {
                                       PropertySketchRepository sketchRepo,
                                       FileStorageService fileStorageService,
                                       FileLinkRepository fileLinkRepo,
-                                      ObjectMapper objectMapper) {
+                                      FileServingService fileServing,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager) {
         this.requestRepo = requestRepo;
         this.propertyRepo = propertyRepo;
         this.taxRepo = taxRepo;
         this.sketchRepo = sketchRepo;
         this.fileStorageService = fileStorageService;
         this.fileLinkRepo = fileLinkRepo;
+        this.fileServing = fileServing;
         this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
-    public List<PropertyRequest> listAllNonRejected() {
-        return requestRepo.findAllByStatusNotOrderByCreatedAtDesc(PropertyRequestStatus.REJECTED);
+    /**
+     * Newest first, one keyset page. Without a status filter rejected requests are left out.
+     */
+    public RequestPages.Page<PropertyRequest> list(PropertyRequestStatus status, PropertyRequestKind kind, String cursor, Integer limit) {
+        return RequestPages.fetch(requestRepo, status, PropertyRequestStatus.REJECTED, kind, cursor, limit,
+                PropertyRequest::getCreatedAt, PropertyRequest::getId);
     }
 
     public PropertyRequest get(UUID id) {
@@ -121,8 +132,20 @@ public class AdminPropertyRequestService {
         return requestRepo.save(req);
     }
 
-    @Transactional
     public PropertyRequest approveSketch(UUID requestId, UUID adminId, String note, MultipartFile pdf) {
+        PropertyRequestService.requirePdf(pdf);
+
+        // stage the sketch PDF before the transaction; the owner is only known once the property is loaded
+        StagedFile staged = fileStorageService.stageUserPdf(null, pdf);
+        try {
+            return tx.execute(status -> approveSketchInTx(requestId, adminId, note, staged));
+        } catch (RuntimeException e) {
+            fileStorageService.discard(staged);
+            throw e;
+        }
+    }
+
+    private PropertyRequest approveSketchInTx(UUID requestId, UUID adminId, String note, StagedFile staged) {
         PropertyRequest req = get(requestId);
 
         if (req.getKind() != PropertyRequestKind.SKETCH) {
@@ -132,8 +155,6 @@ public class AdminPropertyRequestService {
             throw new ResponseStatusException(CONFLICT, "REQUEST_ALREADY_DECIDED");
         }
 
-        PropertyRequestService.requirePdf(pdf);
-
         UUID propertyId = req.getPropertyId();
         if (propertyId == null) {
             throw new ResponseStatusException(BAD_REQUEST, "PROPERTY_ID_REQUIRED");
@@ -163,11 +184,11 @@ public class AdminPropertyRequestService {
 
         sketchRepo.save(sketch);
 
-        // store pdf under owner's folder
-        AppFile stored = fileStorageService.storeUserPdf(p.getOwnerUserId(), pdf);
+        // pdf row under owner's folder (promoted from staging after commit)
+        AppFile stored = fileStorageService.persist(staged.withOwner(p.getOwnerUserId()));
 
         // overwrite property sketch link
-        fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_PROPERTY, propertyId, TAG_SKETCH_PDF);
+        fileServing.unlink(ENTITY_TYPE_PROPERTY, propertyId, TAG_SKETCH_PDF);
 
         FileLink link = new FileLink();
         link.setId(UUID.randomUUID());
@@ -213,7 +234,7 @@ public class AdminPropertyRequestService {
                 .orElse(null);
 
         if (reqLink != null) {
-            fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_PROPERTY, prop.getId(), TAG_OWNERSHIP_DOC);
+            fileServing.unlink(ENTITY_TYPE_PROPERTY, prop.getId(), TAG_OWNERSHIP_DOC);
 
             FileLink propertyLink = new FileLink();
             propertyLink.setId(UUID.randomUUID());
@@ -5,8 +5,11 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AccountStatus;
@@ -20,6 +23,8 @@ import com.example.demo.repository.DocumentRepository;
 import com.example.demo.repository.FileLinkRepository;
 import com.example.demo.repository.FileRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AccountStatusCache;
+import com.example.demo.security.CachingAuthenticationProvider;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
@@ -37,29 +42,57 @@ public class AdminRegistrationService {
     private final UserRepository userRepository;
     private final FileRepository fileRepository;
     private final FileLinkRepository fileLinkRepository;
+    private final FileServingService fileServing;
     private final FileStorageService fileStorageService;
 
     private final DocumentRepository documentRepository;
     private final ObjectMapper objectMapper;
 
+    private final CachingAuthenticationProvider userCredentialCache;
+    private final AccountStatusCache accountStatusCache;
+    private final RegistrationIdentifierFilter registrationIdentifierFilter;
+
     public AdminRegistrationService(UserRepository userRepository,
                                     FileRepository fileRepository,
                                     FileLinkRepository fileLinkRepository,
+                                    FileServingService fileServing,
                                     FileStorageService fileStorageService,
                                     DocumentRepository documentRepository,
-                                    ObjectMapper objectMapper) {
+                                    ObjectMapper objectMapper,
+                                    CachingAuthenticationProvider userCredentialCache,
+                                    AccountStatusCache accountStatusCache,
+                                    RegistrationIdentifierFilter registrationIdentifierFilter) {
         this.userRepository = userRepository;
         this.fileRepository = fileRepository;
         this.fileLinkRepository = fileLinkRepository;
+        this.fileServing = fileServing;
         this.fileStorageService = fileStorageService;
         this.documentRepository = documentRepository;
         this.objectMapper = objectMapper;
+        this.userCredentialCache = userCredentialCache;
+        this.accountStatusCache = accountStatusCache;
+        this.registrationIdentifierFilter = registrationIdentifierFilter;
     }
 
-    public List<AdminUserSummaryResponse> list(AccountStatus status) {
-        return userRepository.findByAccountStatusOrderByCreatedAtDesc(status).stream()
-                .map(this::toSummary)
-                .toList();
+    /**
+     * Newest first, one keyset page; users and their ID card links come from a single query.
+     */
+    public RequestPages.Page<AdminUserSummaryResponse> list(AccountStatus status, String cursor, Integer limit) {
+        int size = RequestPages.size(limit);
+        RequestPages.Cursor after = RequestPages.decode(cursor);
+        // one extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<UserRepository.RegistrationRow> rows = after == null
+                ? userRepository.findRegistrationPage(status, page)
+                : userRepository.findRegistrationPageAfter(status, after.createdAt(), after.id(), page);
+
+        List<AdminUserSummaryResponse> items = rows.stream().limit(size).map(this::toSummary).toList();
+        String next = null;
+        if (rows.size() > size) {
+            AdminUserSummaryResponse last = items.get(size - 1);
+            next = RequestPages.encode(last.createdAt, last.id);
+        }
+        return new RequestPages.Page<>(items, next);
     }
 
     /**
@@ -78,19 +111,38 @@ public class AdminRegistrationService {
         userRepository.save(u);
 
         ensureIdCardDocumentForApprovedUser(u);
+
+        // cached Basic authentications still carry the old (PENDING) status; drop them once the change is visible.
+        // Other nodes are invalidated by the account_status_changed NOTIFY (V17 trigger).
+        UUID id = u.getId();
+        String egn = u.getEgn();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accountStatusCache.put(id, AccountStatus.ACTIVE);
+                userCredentialCache.evict(egn);
+            }
+        });
     }
 
     public void rejectAndDelete(UUID userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new ResponseStatusException(NOT_FOUND, "User not found");
-        }
+        User u = userRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "User not found"));
 
-        // Clean up physical files first (DB rows are removed via ON DELETE CASCADE)
-        for (AppFile f : fileRepository.findAllByOwnerUserId(userId)) {
+        List<AppFile> files = fileRepository.findAllByOwnerUserId(userId);
+
+        // DB rows go first (files are removed via ON DELETE CASCADE); blobs are released afterwards,
+        // and only if no other files row still shares them
+        userRepository.deleteById(userId);
+
+        fileServing.evictFiles(files);
+        for (AppFile f : files) {
             fileStorageService.deletePhysicalIfExists(f);
         }
 
-        userRepository.deleteById(userId);
+        registrationIdentifierFilter.remove(u);
+        userCredentialCache.evict(u.getEgn());
+        accountStatusCache.evict(userId);
     }
 
     private void ensureIdCardDocumentForApprovedUser(User u) {
@@ -145,7 +197,7 @@ public class AdminRegistrationService {
                 .orElse(null);
 
         if (frontFileId != null) {
-            fileLinkRepository.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_DOC_PHOTO_1);
+            fileServing.unlink(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_DOC_PHOTO_1);
 
             FileLink l1 = new FileLink();
             l1.setId(UUID.randomUUID());
@@ -158,7 +210,7 @@ public class AdminRegistrationService {
         }
 
         if (backFileId != null) {
-            fileLinkRepository.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_DOC_PHOTO_2);
+            fileServing.unlink(ENTITY_TYPE_DOCUMENT, d.getId(), TAG_DOC_PHOTO_2);
 
             FileLink l2 = new FileLink();
             l2.setId(UUID.randomUUID());
@@ -193,7 +245,8 @@ public class AdminRegistrationService {
         return new NameParts(first, middle, last);
     }
 
-    private AdminUserSummaryResponse toSummary(User u) {
+    private AdminUserSummaryResponse toSummary(UserRepository.RegistrationRow row) {
+        User u = row.getUser();
         AdminUserSummaryResponse r = new AdminUserSummaryResponse();
         r.id = u.getId();
         r.fullName = u.getFullName();
@@ -211,15 +264,8 @@ public class AdminRegistrationService {
         r.address = u.getAddress();
         r.phone = u.getPhone();
 
-        r.idCardFrontFileId = fileLinkRepository
-                .findByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_USER, u.getId(), TAG_ID_CARD_FRONT)
-                .map(FileLink::getFileId)
-                .orElse(null);
-
-        r.idCardBackFileId = fileLinkRepository
-                .findByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_USER, u.getId(), TAG_ID_CARD_BACK)
-                .map(FileLink::getFileId)
-                .orElse(null);
+        r.idCardFrontFileId = row.getIdCardFrontFileId();
+        r.idCardBackFileId = row.getIdCardBackFileId();
 
         r.accountStatus = u.getAccountStatus();
         r.createdAt = u.getCreatedAt();
@@ -2,7 +2,6 @@ package com.example.demo.service;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.UUID;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -15,6 +14,7 @@ import org.springframework.web.server.ResponseStatusException;
 import com.example.demo.domain.FileLink;
 import com.example.demo.domain.TransportVehicle;
 import com.example.demo.domain.TransportVehicleRequest;
+import com.example.demo.domain.TransportVehicleRequestKind;
 import com.example.demo.domain.TransportVehicleRequestStatus;
 import com.example.demo.repository.FileLinkRepository;
 import com.example.demo.repository.TransportVehicleRepository;
@@ -33,17 +33,24 @@ public class AdminTransportRequestService {
     private final TransportVehicleRequestRepository requestRepo;
     private final TransportVehicleRepository vehicleRepo;
     private final FileLinkRepository fileLinkRepo;
+    private final FileServingService fileServing;
 
     public AdminTransportRequestService(TransportVehicleRequestRepository requestRepo,
                                        TransportVehicleRepository vehicleRepo,
-                                       FileLinkRepository fileLinkRepo) {
+                                       FileLinkRepository fileLinkRepo,
+                                       FileServingService fileServing) {
         this.requestRepo = requestRepo;
         this.vehicleRepo = vehicleRepo;
         this.fileLinkRepo = fileLinkRepo;
+        this.fileServing = fileServing;
     }
 
-    public List<TransportVehicleRequest> listAllNonRejected() {
-        return requestRepo.findAllByStatusNotOrderByCreatedAtDesc(TransportVehicleRequestStatus.REJECTED);
+    /**
+     * Newest first, one keyset page. Without a status filter rejected requests are left out.
+     */
+    public RequestPages.Page<TransportVehicleRequest> list(TransportVehicleRequestStatus status, TransportVehicleRequestKind kind, String cursor, Integer limit) {
+        return RequestPages.fetch(requestRepo, status, TransportVehicleRequestStatus.REJECTED, kind, cursor, limit,
+                TransportVehicleRequest::getCreatedAt, TransportVehicleRequest::getId);
     }
 
     public TransportVehicleRequest get(UUID id) {
@@ -124,7 +131,7 @@ public class AdminTransportRequestService {
                 .orElse(null);
 
         if (reqLink != null) {
-            fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(), TAG_REGISTRATION_DOC);
+            fileServing.unlink(ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(), TAG_REGISTRATION_DOC);
 
             FileLink newLink = new FileLink();
             newLink.setId(UUID.randomUUID());
@@ -168,7 +175,7 @@ public class AdminTransportRequestService {
                 .orElse(null);
 
         if (reqLink != null) {
-            fileLinkRepo.deleteByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(), TAG_TECH_INSPECTION_DOC);
+            fileServing.unlink(ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(), TAG_TECH_INSPECTION_DOC);
 
             FileLink newLink = new FileLink();
             newLink.setId(UUID.randomUUID());
@@ -4,6 +4,8 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
@@ -11,7 +13,10 @@ import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -24,6 +29,7 @@ import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.repository.FileLinkRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AccessTokenService;
 
 @Service
 public class AuthService {
@@ -37,41 +43,114 @@ public class AuthService {
     private final DaoAuthenticationProvider userAuthProvider; // остава, ако ти потрябва
     private final FileStorageService fileStorageService;
     private final FileLinkRepository fileLinkRepository;
+    private final AccessTokenService accessTokenService;
+    private final PasswordHashingService passwordHashingService;
+    private final RegistrationIdentifierFilter registrationIdentifierFilter;
+    private final TransactionTemplate tx;
 
     public AuthService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        DaoAuthenticationProvider userAuthProvider,
                        FileStorageService fileStorageService,
-                       FileLinkRepository fileLinkRepository) {
+                       FileLinkRepository fileLinkRepository,
+                       AccessTokenService accessTokenService,
+                       PasswordHashingService passwordHashingService,
+                       RegistrationIdentifierFilter registrationIdentifierFilter,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userAuthProvider = userAuthProvider;
         this.fileStorageService = fileStorageService;
         this.fileLinkRepository = fileLinkRepository;
+        this.accessTokenService = accessTokenService;
+        this.passwordHashingService = passwordHashingService;
+        this.registrationIdentifierFilter = registrationIdentifierFilter;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * Not @Transactional on purpose: the BCrypt hash (bounded hashing executor) and the ID card image
+     * writes (staging area) happen before any DB connection is taken; only the inserts run inside the transaction.
+     */
     public AuthResponse register(RegisterRequest req, MultipartFile idFront, MultipartFile idBack) {
-        if (userRepository.existsByEgn(req.egn)) {
+        // same normalization as the insert below, so the pre-check and the unique constraints agree
+        String egn = req.egn.trim();
+        String email = req.email.trim().toLowerCase();
+        String docNumber = req.docNumber.trim();
+        String phone = req.phone.trim();
+
+        checkIdentifiersFree(egn, email, docNumber, phone);
+
+        // Require exactly two images
+        if (idFront == null || idFront.isEmpty() || idBack == null || idBack.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ID_CARD_IMAGES_REQUIRED");
+        }
+
+        // may throw 503 + Retry-After when the hashing queue is full
+        String passwordHash = passwordHashingService.encode(req.password);
+
+        // the user id is the owner of both images, so it is chosen before staging
+        UUID userId = UUID.randomUUID();
+        // both sides are hashed and written in parallel; a failure discards both
+        StagedFile[] idImages = fileStorageService.stageUserImages(userId, idFront, idBack);
+        StagedFile front = idImages[0];
+        StagedFile back = idImages[1];
+        try {
+            return tx.execute(status -> insertRegistration(req, userId, passwordHash, front, back));
+        } catch (DataIntegrityViolationException e) {
+            fileStorageService.discard(front, back);
+            // the pre-check is best effort (Bloom filter is per node, concurrent registrations race);
+            // the unique constraints from V2__users.sql decide, reported with the same codes
+            throw conflictFor(e);
+        } catch (RuntimeException e) {
+            fileStorageService.discard(front, back);
+            throw e;
+        }
+    }
+
+    /**
+     * Skips the DB entirely when the Bloom filter says all four identifiers are free;
+     * otherwise asks which of them are taken in a single query.
+     */
+    private void checkIdentifiersFree(String egn, String email, String docNumber, String phone) {
+        if (!registrationIdentifierFilter.mightContainAny(egn, email, docNumber, phone)) {
+            return;
+        }
+
+        UserRepository.TakenIdentifiers taken = userRepository.findTakenIdentifiers(egn, email, docNumber, phone);
+        if (taken.getEgnTaken()) {
             throw new ResponseStatusException(CONFLICT, "EGN already exists");
         }
-        if (userRepository.existsByEmail(req.email)) {
+        if (taken.getEmailTaken()) {
             throw new ResponseStatusException(CONFLICT, "Email already exists");
         }
-        if (userRepository.existsByDocNumber(req.docNumber.trim())) {
+        if (taken.getDocNumberTaken()) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "DOC_NUMBER_ALREADY_EXISTS");
         }
-        if (userRepository.existsByPhone(req.phone.trim())) {
+        if (taken.getPhoneTaken()) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "PHONE_ALREADY_EXISTS");
         }
+    }
 
-        // Require exactly two images
-        if (idFront == null || idFront.isEmpty() || idBack == null || idBack.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ID_CARD_IMAGES_REQUIRED");
+    private static RuntimeException conflictFor(DataIntegrityViolationException e) {
+        String constraint = null;
+        for (Throwable t = e; t != null && constraint == null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve) constraint = cve.getConstraintName();
         }
+        if (constraint == null) return e;
+
+        return switch (constraint) {
+            case "users_egn_key" -> new ResponseStatusException(CONFLICT, "EGN already exists");
+            case "users_email_key" -> new ResponseStatusException(CONFLICT, "Email already exists");
+            case "users_doc_number_key" -> new ResponseStatusException(HttpStatus.CONFLICT, "DOC_NUMBER_ALREADY_EXISTS");
+            case "users_phone_key" -> new ResponseStatusException(HttpStatus.CONFLICT, "PHONE_ALREADY_EXISTS");
+            default -> e;
+        };
+    }
 
+    private AuthResponse insertRegistration(RegisterRequest req, UUID userId, String passwordHash, StagedFile idFront, StagedFile idBack) {
         User u = new User();
-        u.setId(UUID.randomUUID());
+        u.setId(userId);
         u.setFullName(req.fullName.trim());
         u.setEgn(req.egn.trim());
         u.setGender(req.gender.trim());
@@ -83,18 +162,26 @@ public class AuthService {
         u.setAddress(req.address.trim());
         u.setPhone(req.phone.trim());
         u.setEmail(req.email.trim().toLowerCase());
-        u.setPasswordHash(passwordEncoder.encode(req.password));
+        u.setPasswordHash(passwordHash);
         u.setAccountStatus(AccountStatus.PENDING);
 
         OffsetDateTime now = OffsetDateTime.now();
         u.setCreatedAt(now);
         u.setUpdatedAt(now);
 
-        userRepository.save(u);
+        // flush now so a unique violation surfaces before the file rows are written
+        userRepository.saveAndFlush(u);
+        // only once the row is there for good: a rolled back registration must not stay counted
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                registrationIdentifierFilter.add(u);
+            }
+        });
 
-        // Store files + create links
-        AppFile frontFile = fileStorageService.storeUserImage(u.getId(), idFront);
-        AppFile backFile = fileStorageService.storeUserImage(u.getId(), idBack);
+        // File rows + links (the staged images are promoted after commit)
+        AppFile frontFile = fileStorageService.persist(idFront);
+        AppFile backFile = fileStorageService.persist(idBack);
 
         FileLink frontLink = new FileLink();
         frontLink.setId(UUID.randomUUID());
@@ -131,6 +218,8 @@ public class AuthService {
             throw new ResponseStatusException(FORBIDDEN, "Account pending approval");
         }
 
-        return AuthResponse.user(u.getId(), u.getAccountStatus(), u.getFullName());
+        AccessTokenService.IssuedToken token = accessTokenService.issueUser(u.getId(), u.getEgn(), u.getAccountStatus());
+        return AuthResponse.user(u.getId(), u.getAccountStatus(), u.getFullName())
+                .withToken(token.token(), AccessTokenService.TOKEN_TYPE, token.expiresAt());
     }
 }
@@ -0,0 +1,187 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Locks that hold across backend nodes: Postgres session-level advisory locks on hashtextextended(name).
+ *
+ * All locks of this node live on one dedicated connection opened from spring.datasource.* outside the
+ * Hikari pool, so a lock held for a whole job run takes no capacity from request traffic. Only
+ * pg_try_advisory_lock / pg_advisory_unlock run on it (neither waits), so callers share it without
+ * queueing behind each other.
+ *
+ * Session-level locks are reentrant within that session: callers must keep their own threads apart
+ * first (blobLocks stripes, the jobs' running flags). If the session is lost, Postgres drops all its
+ * locks; {@link Lease#held()} reports that, so long-running holders stop at their next check.
+ */
+@Component
+public class ClusterLocks {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterLocks.class);
+
+    private static final int NETWORK_TIMEOUT_MS = 10_000;
+    private static final long MAX_BACKOFF_MS = 200;
+
+    private final DataSource direct;
+    private final Duration wait;
+
+    // guarded by this
+    private Connection session;
+    // guarded by this; changes whenever the session is replaced (its locks are gone with it)
+    private long generation;
+
+    public ClusterLocks(DataSourceProperties dataSource,
+                        @Value("${app.cluster-locks.wait:PT5S}") Duration wait) {
+        this.direct = dataSource.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build();
+        this.wait = wait;
+    }
+
+    /**
+     * The lock {@code name} if no other node holds it, null otherwise. Close the lease to release it.
+     */
+    public synchronized Lease tryLock(String name) {
+        try {
+            if (!call(session(), "select pg_try_advisory_lock(hashtextextended(?, 0))", name)) return null;
+            return new Lease(name, generation);
+        } catch (SQLException e) {
+            drop(e);
+            throw new IllegalStateException("Cannot take cluster lock " + name, e);
+        }
+    }
+
+    /**
+     * Runs {@code work} under the lock {@code name}, retrying for up to app.cluster-locks.wait while
+     * another node holds it. IllegalStateException if it stays taken.
+     */
+    public <T> T withLock(String name, Work<T> work) throws IOException {
+        long deadline = System.nanoTime() + wait.toNanos();
+        long backoffMs = 5;
+        Lease taken;
+        while ((taken = tryLock(name)) == null) {
+            if (System.nanoTime() >= deadline) throw new IllegalStateException("Cluster lock " + name + " is busy");
+            try {
+                TimeUnit.MILLISECONDS.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for cluster lock " + name, e);
+            }
+            backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+        }
+        try (Lease lease = taken) {
+            return work.run();
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (session == null) return;
+        try {
+            // ends the session, which releases whatever is still held
+            session.close();
+        } catch (SQLException ignored) {
+            // gone already
+        }
+        session = null;
+        generation++;
+    }
+
+    private synchronized boolean held(Lease lease) {
+        if (lease.generation != generation || session == null) return false;
+        try {
+            if (session.isValid(NETWORK_TIMEOUT_MS / 1000)) return true;
+        } catch (SQLException ignored) {
+            // treated as lost
+        }
+        drop(null);
+        return false;
+    }
+
+    private synchronized void release(Lease lease) {
+        // a replaced session took the lock with it
+        if (lease.generation != generation || session == null) return;
+        try {
+            call(session, "select pg_advisory_unlock(hashtextextended(?, 0))", lease.name);
+        } catch (SQLException e) {
+            log.warn("Cannot release cluster lock {}: {}", lease.name, e.getMessage());
+            drop(e);
+        }
+    }
+
+    private Connection session() throws SQLException {
+        if (session == null) {
+            Connection c = direct.getConnection();
+            c.setAutoCommit(true);
+            c.setNetworkTimeout(Runnable::run, NETWORK_TIMEOUT_MS);
+            session = c;
+            generation++;
+        }
+        return session;
+    }
+
+    /** forgets a broken session; closing it makes Postgres release its locks if it is still alive */
+    private void drop(SQLException cause) {
+        if (session == null) return;
+        if (cause != null) log.warn("Cluster lock session lost: {}", cause.getMessage());
+        try {
+            session.close();
+        } catch (SQLException ignored) {
+            // broken anyway
+        }
+        session = null;
+        generation++;
+    }
+
+    private static boolean call(Connection c, String sql, String name) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /** a held lock; closing it releases the lock (a no-op once the session is gone) */
+    public final class Lease implements AutoCloseable {
+
+        private final String name;
+        private final long generation;
+
+        private Lease(String name, long generation) {
+            this.name = name;
+            this.generation = generation;
+        }
+
+        /** false once the session that took the lock is gone (another node may hold it by now) */
+        public boolean held() {
+            return ClusterLocks.this.held(this);
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    /** the locked section; may touch storage */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo.service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cold tier for blobs that are almost never read (attachments of long-decided requests), meant to live on
+ * a large slow disk (app.storage.cold.root). Content is stored once per sha256 under
+ * {@code cold/ab/cd/<sha256>.gz}, or {@code .raw} when gzip does not save at least min-saving (JPEG and
+ * most PDFs are already compressed).
+ *
+ * .raw files are served like any local file (locate, sendfile); .gz files are inflated as a stream on
+ * read, without temp files. A Range request skips the inflated prefix, which is fine for cold data.
+ */
+@Component
+public class ColdStorageBackend implements StreamingStorageBackend {
+
+    public static final String KEY_PREFIX = "cold/";
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String RAW_SUFFIX = ".raw";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path root;
+    private final double minSaving;
+
+    public ColdStorageBackend(@Value("${app.storage.cold.root:${app.storage.root:uploads}/cold}") String rootDir,
+                              @Value("${app.storage.cold.min-saving:0.05}") double minSaving) {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.minSaving = minSaving;
+    }
+
+    @Override
+    public boolean owns(String storageKey) {
+        return storageKey.startsWith(KEY_PREFIX);
+    }
+
+    @Override
+    public String existingKey(String sha256) {
+        for (String key : new String[] { key(sha256, GZIP_SUFFIX), key(sha256, RAW_SUFFIX) }) {
+            if (Files.isRegularFile(path(key))) return key;
+        }
+        return null;
+    }
+
+    @Override
+    public String store(String sha256, Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return store(sha256, in, Files.size(source));
+        }
+    }
+
+    /**
+     * Compresses exactly {@code length} bytes from {@code in} into the tier; falls back to a plain copy when gzip
+     * does not pay off. Returns the new key.
+     */
+    public String store(String sha256, InputStream in, long length) throws IOException {
+        String existing = existingKey(sha256);
+        if (existing != null) return existing;
+
+        Path gz = path(key(sha256, GZIP_SUFFIX));
+        Files.createDirectories(gz.getParent());
+        Path tmp = Files.createTempFile(gz.getParent(), ".tmp-", GZIP_SUFFIX);
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), BUFFER_BYTES)) {
+                byte[] buf = new byte[BUFFER_BYTES];
+                long remaining = length;
+                int r;
+                while (remaining > 0 && (r = in.read(buf, 0, (int) Math.min(buf.length, remaining))) != -1) {
+                    out.write(buf, 0, r);
+                    remaining -= r;
+                }
+                if (remaining != 0) throw new IOException("Source ended " + remaining + " bytes early");
+            }
+            if (Files.size(tmp) <= length * (1 - minSaving)) {
+                Files.move(tmp, gz, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                return key(sha256, GZIP_SUFFIX);
+            }
+
+            // not worth inflating on every read: keep the bytes as they are
+            Path raw = path(key(sha256, RAW_SUFFIX));
+            try (InputStream compressed = new GZIPInputStream(Files.newInputStream(tmp), BUFFER_BYTES)) {
+                Path rawTmp = Files.createTempFile(raw.getParent(), ".tmp-", RAW_SUFFIX);
+                try {
+                    Files.copy(compressed, rawTmp, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(rawTmp, raw, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(rawTmp);
+                }
+            }
+            return key(sha256, RAW_SUFFIX);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public StoredBytes locate(String storageKey) {
+        if (streamed(storageKey)) return null;
+        Path p = path(storageKey);
+        try {
+            return Files.isRegularFile(p) ? StoredBytes.wholeFile(p, Files.size(p)) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean streamed(String storageKey) {
+        return storageKey.endsWith(GZIP_SUFFIX);
+    }
+
+    @Override
+    public InputStream open(String storageKey, long offset, long length) throws IOException {
+        Path p = path(storageKey);
+        if (!Files.isRegularFile(p)) throw new NoSuchFileException(storageKey);
+
+        InputStream in = Files.newInputStream(p);
+        try {
+            if (streamed(storageKey)) in = new GZIPInputStream(new BufferedInputStream(in, BUFFER_BYTES), BUFFER_BYTES);
+            in.skipNBytes(offset);
+            return new LimitedInputStream(in, length);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(String storageKey) throws IOException {
+        Files.deleteIfExists(path(storageKey));
+    }
+
+    private static String key(String sha256, String suffix) {
+        return KEY_PREFIX + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + suffix;
+    }
+
+    private Path path(String storageKey) {
+        Path p = root.resolve(storageKey.substring(KEY_PREFIX.length())).normalize();
+        if (!p.startsWith(root)) throw new IllegalArgumentException("Storage key escapes the cold root: " + storageKey);
+        return p;
+    }
+
+    /** ends after {@code remaining} bytes (the requested range) */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
@@ -10,7 +10,9 @@ import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -43,17 +45,20 @@ public class DocumentRequestService {
     private final FileStorageService fileStorage;
     private final FileLinkRepository fileLinkRepo;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
 
     public DocumentRequestService(DocumentRepository documentRepo,
                                   DocumentRequestRepository requestRepo,
                                   FileStorageService fileStorage,
                                   FileLinkRepository fileLinkRepo,
-                                  ObjectMapper objectMapper) {
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
         this.documentRepo = documentRepo;
         this.requestRepo = requestRepo;
         this.fileStorage = fileStorage;
         this.fileLinkRepo = fileLinkRepo;
         this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     public List<DocumentRequest> listMy(UUID userId) {
@@ -65,7 +70,6 @@ public class DocumentRequestService {
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
     }
 
-    @Transactional
     public DocumentRequest createAdd(UUID userId,
                                     String userEgnFromAuth,
                                     CreateDocumentAddRequestData data,
@@ -126,6 +130,24 @@ public class DocumentRequestService {
         requireImage(photo1);
         requireImage(photo2);
 
+        // both photos are written and hashed (in parallel) before any DB connection is taken
+        StagedFile[] photos = fileStorage.stageUserImages(userId, photo1, photo2);
+        StagedFile staged1 = photos[0];
+        StagedFile staged2 = photos[1];
+        try {
+            return tx.execute(status -> insertAdd(userId, userEgnFromAuth, data, g, staged1, staged2));
+        } catch (RuntimeException e) {
+            fileStorage.discard(staged1, staged2);
+            throw e;
+        }
+    }
+
+    private DocumentRequest insertAdd(UUID userId,
+                                      String userEgnFromAuth,
+                                      CreateDocumentAddRequestData data,
+                                      String g,
+                                      StagedFile staged1,
+                                      StagedFile staged2) {
         // already has approved document of type?
         if (documentRepo.existsByUserIdAndType(userId, data.type)) {
             throw new ResponseStatusException(CONFLICT, "DOCUMENT_OF_TYPE_ALREADY_EXISTS");
@@ -137,9 +159,9 @@ public class DocumentRequestService {
             throw new ResponseStatusException(CONFLICT, "PENDING_ADD_ALREADY_EXISTS");
         }
 
-        // store images
-        AppFile stored1 = fileStorage.storeUserImage(userId, photo1);
-        AppFile stored2 = fileStorage.storeUserImage(userId, photo2);
+        // files rows for the staged images (promoted after commit)
+        AppFile stored1 = fileStorage.persist(staged1);
+        AppFile stored2 = fileStorage.persist(staged2);
 
         OffsetDateTime now = OffsetDateTime.now();
 
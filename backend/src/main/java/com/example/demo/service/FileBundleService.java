@@ -0,0 +1,164 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.domain.FileLink;
+import com.example.demo.repository.FileLinkRepository;
+import com.example.demo.repository.FileRepository;
+
+/**
+ * ZIP bundles of many files (admin review, compliance exports), written straight into the response:
+ * each file is copied from storage into the ZipOutputStream in small buffers, nothing is held in memory
+ * or spooled to disk. Content that is already compressed (images, PDF, archives) is not deflated again.
+ */
+@Service
+public class FileBundleService {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileRepository fileRepository;
+    private final FileLinkRepository fileLinkRepository;
+    private final FileStorageService storage;
+
+    public FileBundleService(FileRepository fileRepository,
+                             FileLinkRepository fileLinkRepository,
+                             FileStorageService storage) {
+        this.fileRepository = fileRepository;
+        this.fileLinkRepository = fileLinkRepository;
+        this.storage = storage;
+    }
+
+    /** a file and its path inside the archive */
+    public record BundleEntry(String name, AppFile file) {}
+
+    /** an entry whose bytes were found ({@link #resolve}) */
+    public record ResolvedEntry(BundleEntry entry, FileStorageService.Location location) {}
+
+    /**
+     * Every file linked to the entity, as {@code <tag>/<original name>}.
+     */
+    public List<BundleEntry> linkedTo(String entityType, UUID entityId) {
+        List<FileLink> links = fileLinkRepository.findAllByEntityTypeAndEntityIdOrderByTag(entityType, entityId);
+        Map<UUID, AppFile> files = fileRepository.findAllById(links.stream().map(FileLink::getFileId).toList())
+                .stream().collect(Collectors.toMap(AppFile::getId, Function.identity()));
+
+        List<BundleEntry> entries = new ArrayList<>();
+        for (FileLink l : links) {
+            AppFile f = files.get(l.getFileId());
+            if (f != null) entries.add(new BundleEntry(l.getTag().toLowerCase(Locale.ROOT) + "/" + f.getOriginalName(), f));
+        }
+        return entries;
+    }
+
+    /**
+     * Every file uploaded by the user.
+     */
+    public List<BundleEntry> ownedBy(UUID userId) {
+        return fileRepository.findAllByOwnerUserId(userId).stream()
+                .map(f -> new BundleEntry(f.getOriginalName(), f))
+                .toList();
+    }
+
+    /**
+     * Locates every entry's bytes. 404 if one is missing; callers do this before they commit to a ZIP
+     * response (headers, first byte), so that is still a clean error.
+     */
+    public List<ResolvedEntry> resolve(List<BundleEntry> entries) {
+        return entries.stream().map(e -> new ResolvedEntry(e, storage.resolve(e.file()))).toList();
+    }
+
+    /**
+     * Writes resolved entries as a ZIP archive.
+     */
+    public void write(List<ResolvedEntry> entries, OutputStream out) throws IOException {
+        Set<String> names = new HashSet<>();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        byte[] buf = new byte[BUFFER_BYTES];
+        for (ResolvedEntry resolved : entries) {
+            AppFile f = resolved.entry().file();
+            FileStorageService.Location location = resolved.location();
+
+            ZipEntry entry = new ZipEntry(uniqueName(resolved.entry().name(), names));
+            if (f.getCreatedAt() != null) entry.setTime(f.getCreatedAt().toInstant().toEpochMilli());
+            // STORED would need the CRC before the data, i.e. a second read; level 0 only frames the bytes
+            zip.setLevel(alreadyCompressed(f.getMimeType()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(entry);
+
+            if (location.streamed()) {
+                try (InputStream in = storage.open(location, 0, f.getSizeBytes())) {
+                    copy(in, zip, f.getSizeBytes(), buf);
+                }
+            } else {
+                StoredBytes bytes = location.local();
+                try (FileChannel ch = FileChannel.open(bytes.file(), StandardOpenOption.READ)) {
+                    copy(Channels.newInputStream(ch.position(bytes.offset())), zip, bytes.length(), buf);
+                }
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length, byte[] buf) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            int r = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+            if (r == -1) throw new IOException("Stored file ended " + remaining + " bytes early");
+            out.write(buf, 0, r);
+            remaining -= r;
+        }
+    }
+
+    private static boolean alreadyCompressed(String mimeType) {
+        if (mimeType == null) return false;
+        String t = mimeType.toLowerCase(Locale.ROOT);
+        // PDF page streams are normally Flate-compressed already; deflating them again saves a few percent
+        return t.equals("image/jpeg") || t.equals("image/png") || t.equals("image/gif") || t.equals("image/webp")
+                || t.equals("image/heic") || t.equals("application/pdf") || t.equals("application/zip")
+                || t.equals("application/gzip") || t.startsWith("video/") || t.startsWith("audio/");
+    }
+
+    private static String uniqueName(String name, Set<String> used) {
+        String safe = safeName(name);
+        if (used.add(safe)) return safe;
+
+        int dot = safe.lastIndexOf('.');
+        int slash = safe.lastIndexOf('/');
+        String base = dot > slash + 1 ? safe.substring(0, dot) : safe;
+        String ext = dot > slash + 1 ? safe.substring(dot) : "";
+        for (int n = 2; ; n++) {
+            String candidate = base + " (" + n + ")" + ext;
+            if (used.add(candidate)) return candidate;
+        }
+    }
+
+    /** no absolute paths, no "..", no backslashes: archive tools would write outside the target folder */
+    private static String safeName(String name) {
+        List<String> parts = new ArrayList<>();
+        for (String p : (name == null ? "" : name).replace('\\', '/').split("/")) {
+            if (!p.isBlank() && !p.equals(".") && !p.equals("..")) parts.add(p);
+        }
+        return parts.isEmpty() ? "file" : String.join("/", parts);
+    }
+}
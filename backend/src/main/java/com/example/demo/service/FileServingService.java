@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.repository.FileLinkRepository;
+import com.example.demo.repository.FileRepository;
+
+/**
+ * Resolves (entityType, entityId, tag) to the linked files row for the download endpoints.
+ *
+ * One join query instead of link lookup + findById, behind a small LRU of the resulting metadata.
+ * Callers keep their own authorization checks (owner / request lookups) in front of this.
+ *
+ * Local link changes go through unlink / evict*, which evict immediately and again when the transaction
+ * completes (so a concurrent reader cannot re-cache the old row in between). Other nodes are only bounded
+ * by the TTL. Misses are not cached: a link that does not exist yet may be created at any time.
+ */
+@Service
+public class FileServingService {
+
+    private final FileRepository fileRepository;
+    private final FileLinkRepository fileLinkRepository;
+    private final int maxEntries;
+    private final long ttlMs;
+
+    private final Map<LinkKey, Entry> cache;
+
+    public FileServingService(FileRepository fileRepository,
+                              FileLinkRepository fileLinkRepository,
+                              @Value("${app.files.metadata-cache.max-entries:10000}") int maxEntries,
+                              @Value("${app.files.metadata-cache.ttl:PT1M}") Duration ttl) {
+        this.fileRepository = fileRepository;
+        this.fileLinkRepository = fileLinkRepository;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMs = ttl.toMillis();
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LinkKey, Entry> eldest) {
+                return size() > FileServingService.this.maxEntries;
+            }
+        };
+    }
+
+    public Optional<AppFile> findLinked(String entityType, UUID entityId, String tag) {
+        LinkKey key = new LinkKey(entityType, entityId, tag);
+        long now = System.currentTimeMillis();
+
+        synchronized (cache) {
+            Entry e = cache.get(key);
+            if (e != null && now - e.loadedAt < ttlMs) return Optional.of(e.file);
+        }
+
+        Optional<AppFile> loaded = fileRepository.findLinked(entityType, entityId, tag);
+        loaded.ifPresent(f -> {
+            synchronized (cache) {
+                cache.put(key, new Entry(f, now));
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Deletes the link row and drops its cache entry.
+     */
+    public void unlink(String entityType, UUID entityId, String tag) {
+        fileLinkRepository.deleteByEntityTypeAndEntityIdAndTag(entityType, entityId, tag);
+        evict(entityType, entityId, tag);
+    }
+
+    /**
+     * For links that are re-pointed or removed without going through unlink.
+     */
+    public void evict(String entityType, UUID entityId, String tag) {
+        LinkKey key = new LinkKey(entityType, entityId, tag);
+        evictNowAndOnCompletion(() -> {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+        });
+    }
+
+    /**
+     * For files rows that are deleted (their links go with them via ON DELETE CASCADE).
+     */
+    public void evictFiles(Collection<AppFile> files) {
+        Set<UUID> ids = files.stream().map(AppFile::getId).collect(Collectors.toSet());
+        if (ids.isEmpty()) return;
+        evictNowAndOnCompletion(() -> {
+            synchronized (cache) {
+                cache.values().removeIf(e -> ids.contains(e.file.getId()));
+            }
+        });
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static void evictNowAndOnCompletion(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private record LinkKey(String entityType, UUID entityId, String tag) {}
+
+    private record Entry(AppFile file, long loadedAt) {}
+}
@@ -2,56 +2,164 @@ package com.example.demo.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AppFile;
 import com.example.demo.repository.FileRepository;
 
+import jakarta.annotation.PreDestroy;
+
 @Service
 public class FileStorageService {
 
     public static final long MAX_IMAGE_BYTES = 25L * 1024L * 1024L; // 25MB
     public static final long MAX_PDF_BYTES   = 25L * 1024L * 1024L; // 25MB
 
+    // staged files older than this are recovered or removed on startup (in-flight uploads are younger)
+    private static final Duration STAGING_MAX_AGE = Duration.ofHours(1);
+
+    // generated variants of a blob (previews etc.): derivatives/ab/cd/<sha256>.<variant>
+    private static final String DERIVATIVE_PREFIX = "derivatives/";
+
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
     private final FileRepository fileRepository;
+    private final LooseFileStorageBackend loose;
+    private final PackStorageBackend pack;
+    private final ColdStorageBackend cold;
+    // null unless app.storage.s3.bucket is set
+    private final S3StorageBackend s3;
+    // app.storage.backend=pack: uploads up to pack.max-blob-bytes are appended to pack segments
+    private final boolean packUploads;
+    // app.storage.backend=s3: all uploads go to the bucket
+    private final boolean s3Uploads;
     private final Path root;
+    private final Path staging;
+
+    // serializes promote / release per blob key (refcount check + file operation must not interleave)
+    private final Object[] blobLocks = new Object[64];
+    // the same for S3 keys, whose blobs every node shares
+    private final ClusterLocks clusterLocks;
+
+    // stages the 2nd..nth file of a multi-file upload while the request thread stages the first
+    private final ThreadPoolExecutor stageExecutor;
+    // copies committed S3 uploads to their blob key once the committing thread has given its connection back
+    private final ThreadPoolExecutor promoteExecutor;
+    // S3 blob key -> file id of an upload committed under it but not promoted yet (open() reads its staged object)
+    private final Map<String, UUID> promoting = new ConcurrentHashMap<>();
+
+    // System.nanoTime() of the last resolve() (downloads, previews, bundles); background readers back off
+    private volatile long lastForegroundRead = System.nanoTime();
 
     public FileStorageService(FileRepository fileRepository,
-                              @Value("${app.storage.root:uploads}") String rootDir) {
+                              LooseFileStorageBackend loose,
+                              PackStorageBackend pack,
+                              ColdStorageBackend cold,
+                              ObjectProvider<S3StorageBackend> s3,
+                              ClusterLocks clusterLocks,
+                              @Value("${app.storage.root:uploads}") String rootDir,
+                              @Value("${app.storage.backend:loose}") String backend,
+                              @Value("${app.storage.stage-threads:4}") int stageThreads,
+                              @Value("${app.storage.s3.promote-threads:2}") int promoteThreads) {
         this.fileRepository = fileRepository;
+        this.loose = loose;
+        this.pack = pack;
+        this.cold = cold;
+        this.s3 = s3.getIfAvailable();
+        this.clusterLocks = clusterLocks;
+        this.packUploads = "pack".equalsIgnoreCase(backend);
+        this.s3Uploads = "s3".equalsIgnoreCase(backend);
+        if (s3Uploads && this.s3 == null) {
+            throw new IllegalStateException("app.storage.backend=s3 requires app.storage.s3.bucket");
+        }
         this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        // same filesystem as root, so promotion is an atomic rename
+        this.staging = this.root.resolve("staging");
+        for (int i = 0; i < blobLocks.length; i++) blobLocks[i] = new Object();
+
+        int threads = Math.max(1, stageThreads);
+        AtomicInteger threadNo = new AtomicInteger();
+        // bounded: when it is saturated the request thread stages the file itself
+        this.stageExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4), r -> {
+                    Thread t = new Thread(r, "file-stage-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.stageExecutor.allowCoreThreadTimeOut(true);
+
+        int promoters = Math.max(1, promoteThreads);
+        AtomicInteger promoterNo = new AtomicInteger();
+        // bounded too, but never runs on the caller: a rejected promote keeps its staged object, which
+        // recoverStagedObjects picks up
+        this.promoteExecutor = new ThreadPoolExecutor(promoters, promoters, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256), r -> {
+                    Thread t = new Thread(r, "file-promote-" + promoterNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, (r, executor) -> log.warn("Promote queue full; the staged object waits for recovery"));
+        this.promoteExecutor.allowCoreThreadTimeOut(true);
 
         try {
             Files.createDirectories(this.root);
+            Files.createDirectories(this.staging);
         } catch (IOException e) {
             throw new IllegalStateException("Cannot create storage directory: " + this.root, e);
         }
     }
 
     /**
-     * Stores an uploaded image on disk and saves metadata in DB.
-     * Returns the saved AppFile.
+     * Phase 1 (no transaction): validates an uploaded image and streams it into the staging area
+     * while computing its SHA-256. Nothing is written to the DB.
      */
-    public AppFile storeUserImage(UUID ownerUserId, MultipartFile file) {
+    public StagedFile stageUserImage(UUID ownerUserId, MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new ResponseStatusException(BAD_REQUEST, "IMAGE_FILE_REQUIRED");
         }
@@ -66,40 +174,14 @@ public class FileStorageService {
             throw new ResponseStatusException(BAD_REQUEST, "IMAGE_TOO_LARGE_MAX_25MB");
         }
 
-        UUID fileId = UUID.randomUUID();
-        String originalName = safeOriginalName(file.getOriginalFilename());
-
-        // Save to: <root>/users/<ownerUserId>/<fileId>
-        Path userDir = root.resolve("users").resolve(ownerUserId.toString());
-        Path dest = userDir.resolve(fileId.toString());
-
-        try {
-            Files.createDirectories(userDir);
-
-            String sha256 = copyAndSha256(file.getInputStream(), dest);
-
-            AppFile meta = new AppFile();
-            meta.setId(fileId);
-            meta.setOwnerUserId(ownerUserId);
-            meta.setOriginalName(originalName);
-            meta.setMimeType(contentType);
-            meta.setSizeBytes(size);
-            // store relative path as storageKey
-            meta.setStorageKey(root.relativize(dest).toString().replace('\\', '/'));
-            meta.setSha256(sha256);
-            meta.setCreatedAt(OffsetDateTime.now());
-
-            return fileRepository.save(meta);
-        } catch (IOException e) {
-            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
-        }
+        return stage(ownerUserId, file, contentType);
     }
 
     /**
-     * Stores an uploaded PDF on disk and saves metadata in DB.
-     * Returns the saved AppFile.
+     * Phase 1 (no transaction): validates an uploaded PDF and streams it into the staging area
+     * while computing its SHA-256. Nothing is written to the DB.
      */
-    public AppFile storeUserPdf(UUID ownerUserId, MultipartFile file) {
+    public StagedFile stageUserPdf(UUID ownerUserId, MultipartFile file) {
         if (file == null || file.isEmpty()) {
             throw new ResponseStatusException(BAD_REQUEST, "PDF_FILE_REQUIRED");
         }
@@ -118,54 +200,317 @@ public class FileStorageService {
             throw new ResponseStatusException(BAD_REQUEST, "PDF_TOO_LARGE_MAX_25MB");
         }
 
-        UUID fileId = UUID.randomUUID();
-        String originalName = safeOriginalName(file.getOriginalFilename());
+        return stage(ownerUserId, file, MediaType.APPLICATION_PDF_VALUE);
+    }
+
+    /**
+     * stageUserImage for several files at once: the 2nd..nth are staged on the stage executor while the
+     * caller stages the first, so two files take about as long as the larger one. All or nothing: if any
+     * file fails, the others are discarded and the first failure in argument order is thrown.
+     */
+    public StagedFile[] stageUserImages(UUID ownerUserId, MultipartFile... files) {
+        return stageAll(Arrays.stream(files)
+                .map(f -> (Supplier<StagedFile>) () -> stageUserImage(ownerUserId, f))
+                .toList());
+    }
 
-        // Save to: <root>/users/<ownerUserId>/<fileId>
-        Path userDir = root.resolve("users").resolve(ownerUserId.toString());
-        Path dest = userDir.resolve(fileId.toString());
+    private StagedFile[] stageAll(List<Supplier<StagedFile>> tasks) {
+        StagedFile[] staged = new StagedFile[tasks.size()];
+        if (tasks.isEmpty()) return staged;
 
+        List<CompletableFuture<StagedFile>> others = tasks.subList(1, tasks.size()).stream()
+                .map(task -> CompletableFuture.supplyAsync(task, stageExecutor))
+                .toList();
+
+        RuntimeException failure = null;
         try {
-            Files.createDirectories(userDir);
-
-            String sha256 = copyAndSha256(file.getInputStream(), dest);
-
-            AppFile meta = new AppFile();
-            meta.setId(fileId);
-            meta.setOwnerUserId(ownerUserId);
-            meta.setOriginalName(originalName);
-            meta.setMimeType(MediaType.APPLICATION_PDF_VALUE);
-            meta.setSizeBytes(size);
-            // store relative path as storageKey
-            meta.setStorageKey(root.relativize(dest).toString().replace('\\', '/'));
-            meta.setSha256(sha256);
-            meta.setCreatedAt(OffsetDateTime.now());
-
-            return fileRepository.save(meta);
-        } catch (IOException e) {
-            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+            staged[0] = tasks.get(0).get();
+        } catch (RuntimeException e) {
+            failure = e;
         }
+        // join every file, also after a failure: nothing may still be writing when we clean up
+        for (int i = 0; i < others.size(); i++) {
+            try {
+                staged[i + 1] = others.get(i).join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException r
+                            ? r
+                            : new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+                }
+            }
+        }
+        if (failure != null) {
+            discard(staged);
+            throw failure;
+        }
+        return staged;
     }
 
-    public Resource loadAsResource(AppFile file) {
+    /**
+     * Phase 2 (inside the caller's short transaction): saves the files row only.
+     * Staged loose bytes are moved to their blob key after commit, or deleted on rollback
+     * (pack records are written at stage time; a rolled back one is reclaimed by compaction).
+     */
+    public AppFile persist(StagedFile staged) {
+        AppFile meta = new AppFile();
+        meta.setId(staged.fileId());
+        meta.setOwnerUserId(staged.ownerUserId());
+        meta.setOriginalName(staged.originalName());
+        meta.setMimeType(staged.mimeType());
+        meta.setSizeBytes(staged.sizeBytes());
+        // content-addressed: every row with the same bytes shares one blob / pack record
+        meta.setStorageKey(staged.storageKey());
+        meta.setSha256(staged.sha256());
+        meta.setCreatedAt(OffsetDateTime.now());
+
+        AppFile saved = fileRepository.save(meta);
+
+        String storageKey = saved.getStorageKey();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        promoteAfterCommit(staged, storageKey);
+                    } else {
+                        discard(staged);
+                    }
+                }
+            });
+        } else {
+            promoteAfterCommit(staged, storageKey);
+        }
+        return saved;
+    }
+
+    /**
+     * Deletes staged bytes that never made it into a transaction (validation / conflict errors).
+     * Safe to call more than once, and a no-op after promotion.
+     */
+    public void discard(StagedFile... staged) {
+        for (StagedFile f : staged) {
+            if (f != null && isRemote(f.storageKey())) s3.discardStaged(f.fileId());
+            if (f == null || f.stagingPath() == null) continue;
+            try {
+                Files.deleteIfExists(f.stagingPath());
+            } catch (IOException ignored) {
+                // ignore staging cleanup errors; leftovers are removed by recoverStaging
+            }
+        }
+    }
+
+    /**
+     * Where a file's bytes can be read: a local file region (servable zero-copy), or for streamed keys
+     * (object storage, compressed cold tier) just the key to {@link #open}.
+     */
+    public record Location(String storageKey, StoredBytes local) {
+        public boolean streamed() {
+            return local == null;
+        }
+    }
+
+    /**
+     * Resolves the file's current location. 404 if the bytes are missing.
+     */
+    public Location resolve(AppFile file) {
+        lastForegroundRead = System.nanoTime();
+        String key = file.getStorageKey();
+        if (isStreamed(key)) return new Location(key, null);
+
+        StoredBytes bytes = backendFor(key).locate(key);
+        if (bytes == null) {
+            // committed a moment ago, not promoted yet
+            Path staged = staging.resolve(file.getId().toString());
+            if (Files.isRegularFile(staged)) bytes = new StoredBytes(staged, 0, file.getSizeBytes());
+        }
+        if (bytes == null) {
+            // cached metadata from before a compaction / migration / tiering moved the bytes
+            String current = fileRepository.findStorageKeyById(file.getId()).orElse(null);
+            if (current != null && !current.equals(key)) {
+                if (isStreamed(current)) return new Location(current, null);
+                key = current;
+                bytes = backendFor(current).locate(current);
+            }
+        }
+        if (bytes == null) {
+            throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
+        }
+        return new Location(key, bytes);
+    }
+
+    /**
+     * Streams {@code length} bytes of a streamed location starting at {@code offset}. 404 if they are missing.
+     */
+    public InputStream open(Location location, long offset, long length) {
+        if (!location.streamed()) throw new IllegalArgumentException("Local bytes are read via location.local()");
+        String key = location.storageKey();
+        StreamingStorageBackend backend = (StreamingStorageBackend) backendFor(key);
         try {
-            Path path = root.resolve(file.getStorageKey()).normalize();
-            if (!Files.exists(path) || !Files.isRegularFile(path)) {
-                throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
+            try {
+                return backend.open(key, offset, length);
+            } catch (NoSuchFileException e) {
+                // committed a moment ago, promotion still queued on this node
+                UUID pending = promoting.get(key);
+                if (pending == null) throw e;
+                try {
+                    return s3.openStaged(pending, offset, length);
+                } catch (NoSuchFileException promotedMeanwhile) {
+                    return backend.open(key, offset, length);
+                }
             }
-            return new UrlResource(path.toUri());
         } catch (IOException e) {
-            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_READ_FILE");
+            throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
         }
     }
 
+    /**
+     * All bytes of a file for in-process readers (previews): a read-only mapping of local bytes,
+     * a heap copy of streamed ones.
+     */
+    public ByteBuffer read(AppFile file) throws IOException {
+        Location location = resolve(file);
+        if (!location.streamed()) return map(location.local());
+        try (InputStream in = open(location, 0, file.getSizeBytes())) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    /** true if no foreground read has started for {@code quietPeriod} */
+    public boolean foregroundIdleFor(Duration quietPeriod) {
+        return System.nanoTime() - lastForegroundRead >= quietPeriod.toNanos();
+    }
+
+    /** outcome of re-hashing a file's stored bytes; the names are stored in files.integrity_error */
+    public enum Integrity { OK, SHA256_MISMATCH, MISSING, UNREADABLE }
+
+    /**
+     * Re-hashes the stored bytes of a file against its sha256 (integrity scrubber). {@code throttle} gets the
+     * size of every buffer before it is read, so the caller can pace the I/O. Not counted as a foreground read.
+     */
+    public Integrity verify(AppFile file, LongConsumer throttle) {
+        String key = file.getStorageKey();
+        try {
+            Integrity result = verify(key, file, throttle);
+            if (result == Integrity.MISSING) {
+                // moved by compaction / migration / tiering since the row was read, or deleted meanwhile
+                String current = fileRepository.findStorageKeyById(file.getId()).orElse(null);
+                if (current == null) return Integrity.OK;
+                if (!current.equals(key)) result = verify(current, file, throttle);
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot verify file {} ({}): {}", file.getId(), key, e.getMessage());
+            return Integrity.UNREADABLE;
+        }
+    }
+
+    private Integrity verify(String key, AppFile file, LongConsumer throttle) throws IOException {
+        long size = file.getSizeBytes();
+        InputStream in;
+        if (isStreamed(key)) {
+            try {
+                in = ((StreamingStorageBackend) backendFor(key)).open(key, 0, size);
+            } catch (NoSuchFileException e) {
+                return Integrity.MISSING;
+            }
+        } else {
+            StoredBytes bytes = backendFor(key).locate(key);
+            if (bytes == null) return Integrity.MISSING;
+            if (bytes.length() != size) return Integrity.SHA256_MISMATCH;
+            FileChannel ch = FileChannel.open(bytes.file(), StandardOpenOption.READ);
+            in = Channels.newInputStream(ch.position(bytes.offset()));
+        }
+
+        try (InputStream body = in) {
+            MessageDigest digest = newSha256();
+            byte[] buf = new byte[64 * 1024];
+            long remaining = size;
+            while (remaining > 0) {
+                int want = (int) Math.min(buf.length, remaining);
+                throttle.accept(want);
+                int r = body.read(buf, 0, want);
+                if (r == -1) return Integrity.SHA256_MISMATCH;
+                digest.update(buf, 0, r);
+                remaining -= r;
+            }
+            return HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(file.getSha256())
+                    ? Integrity.OK
+                    : Integrity.SHA256_MISMATCH;
+        }
+    }
+
+    /**
+     * Read-only memory mapping of local bytes. The mapping stays valid after a pack segment is compacted away.
+     */
+    private static ByteBuffer map(StoredBytes bytes) throws IOException {
+        try (FileChannel ch = FileChannel.open(bytes.file(), StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, bytes.offset(), bytes.length());
+        }
+    }
+
+    /**
+     * Where a generated variant of the given content lives (the file may not exist yet).
+     */
+    public Path derivativePath(String sha256, String variant) {
+        return root.resolve(DERIVATIVE_PREFIX + sha256.substring(0, 2) + "/" + sha256.substring(2, 4)
+                + "/" + sha256 + "." + variant).normalize();
+    }
+
+    /**
+     * Releases the bytes of a files row that is being / has been deleted. Blobs are shared, so the
+     * physical file is only removed once no files row references its storage key any more.
+     * Inside a transaction the check runs after commit (the row must be gone first).
+     */
     public void deletePhysicalIfExists(AppFile file) {
         if (file == null || file.getStorageKey() == null) return;
+        String storageKey = file.getStorageKey();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteIfUnreferenced(storageKey);
+                }
+            });
+        } else {
+            deleteIfUnreferenced(storageKey);
+        }
+    }
+
+    /**
+     * Like deletePhysicalIfExists, but runs now (call it after the row's delete has committed).
+     * Returns true if the bytes were released, false if another row still references them.
+     */
+    public boolean releaseIfUnreferenced(AppFile file) {
+        return file != null && file.getStorageKey() != null && deleteIfUnreferenced(file.getStorageKey());
+    }
+
+    private boolean deleteIfUnreferenced(String storageKey) {
+        // same lock as promote(), so a blob cannot be collected while a new reference is being promoted
         try {
-            Path path = root.resolve(file.getStorageKey()).normalize();
-            Files.deleteIfExists(path);
-        } catch (IOException ignored) {
-            // ignore physical delete errors on cleanup
+            return underBlobLock(storageKey, () -> {
+                if (fileRepository.countByStorageKey(storageKey) > 0) return false;
+                backendFor(storageKey).release(storageKey);
+                if (isContentAddressed(storageKey)) {
+                    deleteDerivatives(storageKey.substring(storageKey.lastIndexOf('/') + 1));
+                }
+                return true;
+            });
+        } catch (IOException | RuntimeException e) {
+            // ignore physical delete errors on cleanup (an unreleased blob is left to the storage GC)
+            log.warn("Cannot release {}: {}", storageKey, e.getMessage());
+            return false;
+        }
+    }
+
+    private void deleteDerivatives(String sha256) throws IOException {
+        Path dir = derivativePath(sha256, "x").getParent();
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.getFileName().toString().startsWith(sha256 + ".")) Files.deleteIfExists(p);
+            }
         }
     }
 
@@ -174,13 +519,341 @@ public class FileStorageService {
         return name.replace('\u0000', '_').trim();
     }
 
-    private static String copyAndSha256(InputStream in, Path dest) throws IOException {
-        MessageDigest digest;
+    /**
+     * Hashes the upload first (read only). If the content is already stored nothing is written at all;
+     * otherwise small uploads are appended to a pack (when enabled) and the rest is transferred
+     * (usually renamed) into staging.
+     */
+    private StagedFile stage(UUID ownerUserId, MultipartFile file, String mimeType) {
+        UUID fileId = UUID.randomUUID();
+        if (s3Uploads) return stageRemote(ownerUserId, fileId, file, mimeType);
+        try {
+            // a completed chunked upload was hashed as its chunks arrived
+            String sha256 = file instanceof UploadSessionService.CompletedUpload upload
+                    ? upload.sha256()
+                    : sha256(file.getInputStream());
+            boolean intoPack = packUploads && pack.accepts(file.getSize());
+
+            String storageKey = intoPack
+                    ? firstNonNull(pack.existingKey(sha256), loose.existingKey(sha256))
+                    : firstNonNull(loose.existingKey(sha256), pack.existingKey(sha256));
+            Path staged = null;
+            if (storageKey == null && intoPack) {
+                storageKey = pack.append(sha256, file.getInputStream(), file.getSize());
+            } else if (storageKey == null) {
+                storageKey = LooseFileStorageBackend.blobKey(sha256);
+                staged = staging.resolve(fileId.toString());
+                file.transferTo(staged.toFile());
+            }
+            return new StagedFile(fileId, ownerUserId, safeOriginalName(file.getOriginalFilename()),
+                    mimeType, file.getSize(), sha256, storageKey, staged, file);
+        } catch (IOException e) {
+            // no partial staging file left for recoverStaging
+            try {
+                Files.deleteIfExists(staging.resolve(fileId.toString()));
+            } catch (IOException ignored) {
+                // recoverStaging removes it
+            }
+            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+        }
+    }
+
+    /**
+     * One pass: the upload is streamed to the bucket's staging area and hashed on the way.
+     */
+    private StagedFile stageRemote(UUID ownerUserId, UUID fileId, MultipartFile file, String mimeType) {
+        try (InputStream in = file.getInputStream()) {
+            String sha256 = s3.stage(fileId, in, file.getSize(), mimeType);
+            return new StagedFile(fileId, ownerUserId, safeOriginalName(file.getOriginalFilename()),
+                    mimeType, file.getSize(), sha256, S3StorageBackend.blobKey(sha256), null, file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot stage upload {} in object storage: {}", fileId, e.getMessage());
+            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+        }
+    }
+
+    /**
+     * Runs after commit while the transaction's connection is still bound to the thread: local promotion is a
+     * rename and happens right away, an S3 copy (and its cluster lock) is handed to promoteExecutor.
+     */
+    private void promoteAfterCommit(StagedFile staged, String storageKey) {
+        if (!isRemote(storageKey)) {
+            promote(staged, storageKey);
+            return;
+        }
+        promoting.put(storageKey, staged.fileId());
+        promoteExecutor.execute(() -> {
+            try {
+                promote(staged, storageKey);
+            } finally {
+                promoting.remove(storageKey, staged.fileId());
+            }
+        });
+    }
+
+    private void promote(StagedFile staged, String storageKey) {
+        if (isRemote(storageKey)) {
+            try {
+                MultipartFile source = staged.source();
+                underBlobLock(storageKey, () -> {
+                    s3.promote(staged.fileId(), storageKey, source == null ? null : source::getInputStream);
+                    return null;
+                });
+            } catch (IOException | RuntimeException e) {
+                // the staged object stays; recoverStagedObjects retries it
+                log.error("Failed to promote staged object {} to {}", staged.fileId(), storageKey, e);
+            }
+            return;
+        }
+        if (pack.owns(storageKey)) {
+            // pack records are durable at stage time
+            discard(staged);
+            return;
+        }
+        Path dest = loose.path(storageKey);
+        synchronized (lockFor(storageKey)) {
+            try {
+                if (Files.isRegularFile(dest)) {
+                    // duplicate content: the blob is already there
+                    discard(staged);
+                    return;
+                }
+
+                Files.createDirectories(dest.getParent());
+                if (staged.stagingPath() != null && Files.isRegularFile(staged.stagingPath())) {
+                    loose.store(staged.sha256(), staged.stagingPath());
+                } else if (staged.source() != null) {
+                    // deduplicated at stage time, but the blob was collected before our row committed
+                    copyAndSha256(staged.source().getInputStream(), dest);
+                } else {
+                    log.error("No bytes to promote for file {} ({})", staged.fileId(), storageKey);
+                }
+            } catch (IOException e) {
+                // the row is committed; staged bytes stay in staging (locate still finds them) and
+                // recoverStaging moves them on the next start
+                log.error("Failed to promote staged file {} to {}", staged.fileId(), storageKey, e);
+            }
+        }
+    }
+
+    /** true if the file's bytes live under their own sha256 (the bytes behind the key can never change) */
+    public static boolean isContentAddressed(AppFile f) {
+        return f.getStorageKey() != null && isContentAddressed(f.getStorageKey());
+    }
+
+    private static boolean isContentAddressed(String storageKey) {
+        return storageKey.startsWith(LooseFileStorageBackend.BLOB_PREFIX)
+                || storageKey.startsWith(PackStorageBackend.KEY_PREFIX)
+                || storageKey.startsWith(S3StorageBackend.KEY_PREFIX)
+                || storageKey.startsWith(ColdStorageBackend.KEY_PREFIX);
+    }
+
+    private boolean isStreamed(String storageKey) {
+        return backendFor(storageKey) instanceof StreamingStorageBackend b && b.streamed(storageKey);
+    }
+
+    private boolean isRemote(String storageKey) {
+        return s3 != null && storageKey != null && s3.owns(storageKey);
+    }
+
+    private StorageBackend backendFor(String storageKey) {
+        if (isRemote(storageKey)) return s3;
+        if (cold.owns(storageKey)) return cold;
+        return pack.owns(storageKey) ? pack : loose;
+    }
+
+    private static String firstNonNull(String a, String b) {
+        return a != null ? a : b;
+    }
+
+    public record PackMigration(int migrated, int skipped, String nextAfter) {}
+
+    /**
+     * Moves up to {@code limit} loose blobs that are small enough for a pack into pack segments,
+     * in storage key order after {@code after} (pass the previous nextAfter; null when done).
+     * Each blob is appended, its rows are re-pointed, then the loose file is deleted.
+     */
+    public PackMigration migrateToPack(String after, int limit) {
+        if (!packUploads) {
+            throw new ResponseStatusException(CONFLICT, "PACK_STORAGE_DISABLED");
+        }
+
+        List<String> keys = fileRepository.findLooseKeysAfter(after == null ? "" : after,
+                pack.maxBlobBytes(), PageRequest.of(0, limit));
+        int migrated = 0;
+        int skipped = 0;
+        for (String key : keys) {
+            // promote() of a new row with this key waits, then rewrites the loose blob from its source
+            synchronized (lockFor(key)) {
+                try {
+                    StoredBytes bytes = loose.locate(key);
+                    if (bytes == null) {
+                        skipped++;
+                        continue;
+                    }
+                    String sha256 = key.substring(key.lastIndexOf('/') + 1);
+                    String packed = pack.existingKey(sha256);
+                    if (packed == null) packed = pack.store(sha256, bytes.file());
+                    fileRepository.moveStorageKey(key, packed);
+                    loose.release(key);
+                    migrated++;
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Cannot migrate {} to a pack: {}", key, e.getMessage());
+                    skipped++;
+                }
+            }
+        }
+        String next = keys.size() < limit ? null : keys.get(keys.size() - 1);
+        return new PackMigration(migrated, skipped, next);
+    }
+
+    /**
+     * Moves the bytes behind a hot local key (loose blob or pack record) to the cold tier and re-points
+     * every row sharing them. Returns the number of hot bytes freed, 0 if there was nothing to move.
+     */
+    public long moveToCold(String storageKey) {
+        if (!storageKey.startsWith(LooseFileStorageBackend.BLOB_PREFIX) && !pack.owns(storageKey)) return 0;
+
+        // promote() of a new row with this key waits, then rewrites a loose blob from its source
+        synchronized (lockFor(storageKey)) {
+            try {
+                StorageBackend hot = backendFor(storageKey);
+                StoredBytes bytes = hot.locate(storageKey);
+                if (bytes == null) return 0;
+
+                String sha256 = storageKey.substring(storageKey.lastIndexOf('/') + 1);
+                String coldKey;
+                try (FileChannel ch = FileChannel.open(bytes.file(), StandardOpenOption.READ)) {
+                    coldKey = cold.store(sha256, Channels.newInputStream(ch.position(bytes.offset())), bytes.length());
+                }
+                fileRepository.moveStorageKey(storageKey, coldKey);
+                // pack records are only dropped from the dedup index; compaction reclaims them
+                hot.release(storageKey);
+                return bytes.length();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot move {} to the cold tier: {}", storageKey, e.getMessage());
+                return 0;
+            }
+        }
+    }
+
+    private Object lockFor(String storageKey) {
+        return blobLocks[(storageKey.hashCode() & 0x7fffffff) % blobLocks.length];
+    }
+
+    /**
+     * Runs {@code work} with the blob key locked. Local blobs are only touched by this node, so a stripe
+     * of blobLocks is enough; an S3 blob can be released on one node while another promotes a new
+     * reference to it, so those keys are also locked in Postgres (after the stripe: the advisory lock is
+     * reentrant for this node's threads).
+     */
+    private <T> T underBlobLock(String storageKey, ClusterLocks.Work<T> work) throws IOException {
+        synchronized (lockFor(storageKey)) {
+            return isRemote(storageKey) ? clusterLocks.withLock("blob:" + storageKey, work) : work.run();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stageExecutor.shutdown();
+        // queued promotes keep their staged objects; recoverStagedObjects finishes them
+        promoteExecutor.shutdown();
+    }
+
+    /**
+     * Startup cleanup of the staging area: staged files whose row was committed (promotion failed or the
+     * node died right after commit) are promoted now; the rest belong to uploads that never committed.
+     * Staged objects in the bucket (app.storage.s3) are treated the same way.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverStaging() {
+        recoverStagedFiles();
+        recoverStagedObjects();
+    }
+
+    private void recoverStagedFiles() {
+        Instant cutoff = Instant.now().minus(STAGING_MAX_AGE);
+        try (Stream<Path> files = Files.list(staging)) {
+            files.forEach(p -> {
+                try {
+                    if (!Files.getLastModifiedTime(p).toInstant().isBefore(cutoff)) return;
+
+                    UUID fileId = parseFileId(p.getFileName().toString());
+                    AppFile committed = fileId == null ? null : fileRepository.findById(fileId).orElse(null);
+                    if (committed != null) {
+                        promote(new StagedFile(fileId, committed.getOwnerUserId(), committed.getOriginalName(),
+                                committed.getMimeType(), committed.getSizeBytes(), committed.getSha256(),
+                                committed.getStorageKey(), p, null),
+                                committed.getStorageKey());
+                    } else {
+                        Files.deleteIfExists(p);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Cannot clean staged file {}: {}", p, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Cannot clean staging directory {}: {}", staging, e.getMessage());
+        }
+    }
+
+    /**
+     * Staged objects in the bucket that are older than STAGING_MAX_AGE: promoted if their row was committed
+     * (failed, rejected or interrupted promotion), removed otherwise. Runs at startup and then every
+     * app.storage.s3.recover-interval, so a failed promote does not wait for a restart.
+     */
+    @Scheduled(initialDelayString = "${app.storage.s3.recover-interval:PT15M}",
+               fixedDelayString = "${app.storage.s3.recover-interval:PT15M}")
+    public void recoverStagedObjects() {
+        if (s3 == null) return;
+        Instant cutoff = Instant.now().minus(STAGING_MAX_AGE);
+        try {
+            for (UUID fileId : s3.staleStaged(cutoff)) {
+                AppFile committed = fileRepository.findById(fileId).orElse(null);
+                if (committed != null && isRemote(committed.getStorageKey())) {
+                    promote(new StagedFile(fileId, committed.getOwnerUserId(), committed.getOriginalName(),
+                            committed.getMimeType(), committed.getSizeBytes(), committed.getSha256(),
+                            committed.getStorageKey(), null, null),
+                            committed.getStorageKey());
+                } else {
+                    s3.discardStaged(fileId);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cannot clean staged objects: {}", e.getMessage());
+        }
+    }
+
+    private static UUID parseFileId(String name) {
+        try {
+            return UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            return null; // e.g. a leftover .tmp
+        }
+    }
+
+    private static String sha256(InputStream in) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream input = in) {
+            byte[] buf = new byte[8192];
+            int r;
+            while ((r = input.read(buf)) != -1) {
+                digest.update(buf, 0, r);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256() {
         try {
-            digest = MessageDigest.getInstance("SHA-256");
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException("SHA-256 not available", e);
         }
+    }
+
+    private static String copyAndSha256(InputStream in, Path dest) throws IOException {
+        MessageDigest digest = newSha256();
 
         Path temp = dest.resolveSibling(dest.getFileName().toString() + ".tmp");
 
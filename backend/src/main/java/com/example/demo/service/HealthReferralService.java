@@ -8,10 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AppFile;
-import com.example.demo.domain.FileLink;
 import com.example.demo.domain.HealthReferral;
-import com.example.demo.repository.FileLinkRepository;
-import com.example.demo.repository.FileRepository;
 import com.example.demo.repository.HealthReferralRepository;
 
 @Service
@@ -21,15 +18,12 @@ public class HealthReferralService {
     public static final String TAG_REFERRAL_PDF = HealthRequestService.TAG_REFERRAL_PDF;
 
     private final HealthReferralRepository referralRepo;
-    private final FileLinkRepository fileLinkRepo;
-    private final FileRepository fileRepo;
+    private final FileServingService fileServing;
 
     public HealthReferralService(HealthReferralRepository referralRepo,
-                                 FileLinkRepository fileLinkRepo,
-                                 FileRepository fileRepo) {
+                                 FileServingService fileServing) {
         this.referralRepo = referralRepo;
-        this.fileLinkRepo = fileLinkRepo;
-        this.fileRepo = fileRepo;
+        this.fileServing = fileServing;
     }
 
     public List<HealthReferral> listMy(UUID userId) {
@@ -42,9 +36,7 @@ public class HealthReferralService {
     }
 
     public AppFile getReferralPdf(UUID referralId) {
-        FileLink link = fileLinkRepo.findByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_HEALTH_REFERRAL, referralId, TAG_REFERRAL_PDF)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
-        return fileRepo.findById(link.getFileId())
+        return fileServing.findLinked(ENTITY_TYPE_HEALTH_REFERRAL, referralId, TAG_REFERRAL_PDF)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
     }
 }
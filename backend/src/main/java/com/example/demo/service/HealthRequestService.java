@@ -8,7 +8,9 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -22,7 +24,6 @@ import com.example.demo.domain.HealthUserProfile;
 import com.example.demo.dto.AddPersonalDoctorRequestData;
 import com.example.demo.dto.AddReferralRequestData;
 import com.example.demo.repository.FileLinkRepository;
-import com.example.demo.repository.FileRepository;
 import com.example.demo.repository.HealthDoctorRepository;
 import com.example.demo.repository.HealthRequestRepository;
 import com.example.demo.repository.HealthUserProfileRepository;
@@ -41,36 +42,52 @@ public class HealthRequestService {
     private final HealthDoctorRepository doctorRepo;
     private final HealthUserProfileRepository profileRepo;
 
-    private final FileRepository fileRepo;
+    private final FileServingService fileServing;
     private final FileLinkRepository fileLinkRepo;
     private final FileStorageService fileStorage;
+    private final PdfPreviewService pdfPreviews;
 
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
 
     public HealthRequestService(HealthRequestRepository requestRepo,
                                 HealthDoctorRepository doctorRepo,
                                 HealthUserProfileRepository profileRepo,
-                                FileRepository fileRepo,
+                                FileServingService fileServing,
                                 FileLinkRepository fileLinkRepo,
                                 FileStorageService fileStorage,
-                                ObjectMapper objectMapper) {
+                                PdfPreviewService pdfPreviews,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
         this.requestRepo = requestRepo;
         this.doctorRepo = doctorRepo;
         this.profileRepo = profileRepo;
-        this.fileRepo = fileRepo;
+        this.fileServing = fileServing;
         this.fileLinkRepo = fileLinkRepo;
         this.fileStorage = fileStorage;
+        this.pdfPreviews = pdfPreviews;
         this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     public List<HealthRequest> listMy(UUID userId) {
         return requestRepo.findAllByUserIdOrderByCreatedAtDesc(userId);
     }
 
-    @Transactional
     public HealthRequest createAddPersonalDoctor(UUID userId, AddPersonalDoctorRequestData data, MultipartFile bookletImage) {
         if (data == null) throw new ResponseStatusException(BAD_REQUEST, "DATA_REQUIRED");
 
+        // booklet image goes to staging first, so the transaction below is DB work only
+        StagedFile staged = fileStorage.stageUserImage(userId, bookletImage);
+        try {
+            return tx.execute(status -> insertAddPersonalDoctor(userId, data, staged));
+        } catch (RuntimeException e) {
+            fileStorage.discard(staged);
+            throw e;
+        }
+    }
+
+    private HealthRequest insertAddPersonalDoctor(UUID userId, AddPersonalDoctorRequestData data, StagedFile staged) {
         if (requestRepo.existsByUserIdAndKindAndStatus(userId, HealthRequestKind.ADD_PERSONAL_DOCTOR, HealthRequestStatus.PENDING)) {
             throw new ResponseStatusException(CONFLICT, "PENDING_ADD_DOCTOR_ALREADY_EXISTS");
         }
@@ -83,8 +100,8 @@ public class HealthRequestService {
         HealthDoctor doctor = doctorRepo.findByPracticeNumber(pn)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "DOCTOR_NOT_FOUND"));
 
-        // store image
-        AppFile img = fileStorage.storeUserImage(userId, bookletImage);
+        // image row (bytes promoted from staging after commit)
+        AppFile img = fileStorage.persist(staged);
 
         OffsetDateTime now = OffsetDateTime.now();
 
@@ -165,10 +182,19 @@ public class HealthRequestService {
         return requestRepo.save(req);
     }
 
-    @Transactional
     public HealthRequest createAddReferral(UUID userId, AddReferralRequestData data, MultipartFile referralPdf) {
         if (data == null) throw new ResponseStatusException(BAD_REQUEST, "DATA_REQUIRED");
 
+        StagedFile staged = fileStorage.stageUserPdf(userId, referralPdf);
+        try {
+            return tx.execute(status -> insertAddReferral(userId, data, staged));
+        } catch (RuntimeException e) {
+            fileStorage.discard(staged);
+            throw e;
+        }
+    }
+
+    private HealthRequest insertAddReferral(UUID userId, AddReferralRequestData data, StagedFile staged) {
         if (requestRepo.existsByUserIdAndKindAndStatus(userId, HealthRequestKind.ADD_REFERRAL, HealthRequestStatus.PENDING)) {
             throw new ResponseStatusException(CONFLICT, "PENDING_REFERRAL_ALREADY_EXISTS");
         }
@@ -178,7 +204,8 @@ public class HealthRequestService {
             throw new ResponseStatusException(BAD_REQUEST, "TITLE_REQUIRED");
         }
 
-        AppFile pdf = fileStorage.storeUserPdf(userId, referralPdf);
+        AppFile pdf = fileStorage.persist(staged);
+        pdfPreviews.warmAfterCommit(pdf);
 
         OffsetDateTime now = OffsetDateTime.now();
 
@@ -217,10 +244,7 @@ public class HealthRequestService {
         HealthRequest r = requestRepo.findByIdAndUserId(requestId, userId)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
 
-        FileLink link = fileLinkRepo.findByEntityTypeAndEntityIdAndTag(ENTITY_TYPE_HEALTH_REQUEST, r.getId(), tag)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
-
-        return fileRepo.findById(link.getFileId())
+        return fileServing.findLinked(ENTITY_TYPE_HEALTH_REQUEST, r.getId(), tag)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
     }
 
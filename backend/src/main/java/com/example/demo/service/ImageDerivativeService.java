@@ -0,0 +1,340 @@
+package com.example.demo.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.AppFile;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Downscaled JPEG previews of uploaded images (ID cards, health booklets), generated on first request.
+ *
+ * Previews are keyed by sha256 + size and stored under FileStorageService.derivativePath, so identical
+ * uploads share them and they are removed together with their blob.
+ *
+ * Memory is bounded twice: the decoder subsamples while reading (a 25 MB phone photo is never decoded at
+ * full resolution), and at most {@code max-concurrent} previews are generated at once. Concurrent requests
+ * for the same preview wait for the one generation in flight instead of starting their own.
+ */
+@Service
+public class ImageDerivativeService {
+
+    /** longest edge in pixels; the only values accepted for ?size= */
+    public static final List<Integer> SIZES = List.of(256, 1024);
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    // decode at most this many times the target edge, then scale down smoothly
+    private static final int DECODE_OVERSAMPLE = 2;
+
+    private final FileStorageService storage;
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final long retryAfterSeconds;
+
+    private final ConcurrentHashMap<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter generated;
+    private final Counter rejected;
+
+    public ImageDerivativeService(FileStorageService storage,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.files.derivatives.max-concurrent:2}") int maxConcurrent,
+                                  @Value("${app.files.derivatives.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+                                  @Value("${app.files.derivatives.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.storage = storage;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.generated = Counter.builder("files.derivatives.generated").register(meterRegistry);
+        this.rejected = Counter.builder("files.derivatives.rejected").register(meterRegistry);
+        meterRegistry.gauge("files.derivatives.in-flight", inFlight, ConcurrentHashMap::size);
+    }
+
+    public boolean supports(AppFile f) {
+        return f.getSha256() != null && f.getMimeType() != null && f.getMimeType().toLowerCase().startsWith("image/");
+    }
+
+    public static void checkSize(int size) {
+        if (!SIZES.contains(size)) throw new ResponseStatusException(BAD_REQUEST, "IMAGE_SIZE_INVALID");
+    }
+
+    /**
+     * Path of the cached preview, generating it if needed.
+     * Returns null when the original cannot be decoded (e.g. HEIC): callers then serve the original.
+     */
+    public Path get(AppFile f, int size) {
+        checkSize(size);
+        Path target = storage.derivativePath(f.getSha256(), size + ".jpg");
+        if (Files.isRegularFile(target)) return target;
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(target, mine);
+        if (running != null) return await(running);
+
+        try {
+            Path p = generate(f, size, target);
+            mine.complete(p);
+            return p;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(target, mine);
+        }
+    }
+
+    private Path await(CompletableFuture<Path> running) {
+        try {
+            return running.get(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            rejected.increment();
+            throw new RetryLaterException(SERVICE_UNAVAILABLE, "PREVIEW_BUSY_TRY_AGAIN", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RetryLaterException(SERVICE_UNAVAILABLE, "PREVIEW_BUSY_TRY_AGAIN", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Preview generation failed", e.getCause());
+        }
+    }
+
+    private Path generate(AppFile f, int size, Path target) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new RetryLaterException(SERVICE_UNAVAILABLE, "PREVIEW_BUSY_TRY_AGAIN", retryAfterSeconds);
+        }
+
+        try {
+            // another node (shared storage) may have written it meanwhile
+            if (Files.isRegularFile(target)) return target;
+
+            // local bytes (loose file or pack record) are mapped, not copied to the heap
+            ByteBuffer source = storage.read(f);
+            BufferedImage decoded = decodeSubsampled(source, size);
+            if (decoded == null) return null;
+
+            BufferedImage preview = scale(decoded, size, exifOrientation(source));
+
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), ".tmp-", ".jpg");
+            try {
+                writeJpeg(preview, tmp);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            generated.increment();
+            return target;
+        } catch (IOException e) {
+            log.warn("Cannot create {}px preview of file {}: {}", size, f.getId(), e.getMessage());
+            return null;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static BufferedImage decodeSubsampled(ByteBuffer source, int size) throws IOException {
+        try (ImageInputStream in = new ByteBufferImageInputStream(source.duplicate())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int limit = size * DECODE_OVERSAMPLE;
+                int step = Math.max(1, (longest + limit - 1) / limit);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales so the longest edge is at most {@code size} (never up), applies the EXIF orientation (the
+     * preview carries no metadata, so it has to be baked in) and flattens transparency onto white.
+     */
+    private static BufferedImage scale(BufferedImage src, int size, int orientation) {
+        double factor = Math.min(1.0, (double) size / Math.max(src.getWidth(), src.getHeight()));
+        int w = Math.max(1, (int) Math.round(src.getWidth() * factor));
+        int h = Math.max(1, (int) Math.round(src.getHeight() * factor));
+
+        boolean swap = orientation >= 5 && orientation <= 8;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, out.getWidth(), out.getHeight());
+            g.transform(orientationTransform(orientation, w, h));
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static AffineTransform orientationTransform(int orientation, int w, int h) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> new AffineTransform();
+        };
+    }
+
+    private static void writeJpeg(BufferedImage img, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * EXIF orientation (tag 0x0112 in IFD0 of the APP1 segment) of a JPEG, 1 (= as stored) if absent.
+     */
+    private static int exifOrientation(ByteBuffer source) {
+        try {
+            byte[] head = new byte[Math.min(128 * 1024, source.remaining())];
+            source.duplicate().get(head);
+            if (head.length < 4 || (head[0] & 0xff) != 0xFF || (head[1] & 0xff) != 0xD8) return 1;
+
+            int pos = 2;
+            while (pos + 4 <= head.length && (head[pos] & 0xff) == 0xFF) {
+                int marker = head[pos + 1] & 0xff;
+                int len = ((head[pos + 2] & 0xff) << 8) | (head[pos + 3] & 0xff);
+                if (marker == 0xDA) break; // start of scan: no more metadata
+                if (marker == 0xE1 && pos + 10 <= head.length
+                        && head[pos + 4] == 'E' && head[pos + 5] == 'x' && head[pos + 6] == 'i' && head[pos + 7] == 'f') {
+                    return tiffOrientation(head, pos + 10, Math.min(head.length, pos + 2 + len));
+                }
+                pos += 2 + len;
+            }
+        } catch (RuntimeException e) {
+            // unreadable metadata: keep the image as stored
+        }
+        return 1;
+    }
+
+    private static int tiffOrientation(byte[] b, int tiff, int end) {
+        boolean le = b[tiff] == 'I';
+        int ifd = tiff + readInt(b, tiff + 4, le);
+        if (ifd + 2 > end) return 1;
+        int entries = readShort(b, ifd, le);
+        for (int i = 0; i < entries; i++) {
+            int e = ifd + 2 + i * 12;
+            if (e + 12 > end) break;
+            if (readShort(b, e, le) == 0x0112) {
+                int v = readShort(b, e + 8, le);
+                return v >= 1 && v <= 8 ? v : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] b, int i, boolean le) {
+        return le ? (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8)
+                  : ((b[i] & 0xff) << 8) | (b[i + 1] & 0xff);
+    }
+
+    private static int readInt(byte[] b, int i, boolean le) {
+        return le ? readShort(b, i, true) | (readShort(b, i + 2, true) << 16)
+                  : (readShort(b, i, false) << 16) | readShort(b, i + 2, false);
+    }
+
+    /**
+     * ImageIO input over a (mapped) buffer; ImageIO.createImageInputStream would cache the bytes again.
+     */
+    private static final class ByteBufferImageInputStream extends ImageInputStreamImpl {
+
+        private final ByteBuffer buf;
+
+        ByteBufferImageInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            bitOffset = 0;
+            if (streamPos >= buf.limit()) return -1;
+            return buf.get((int) streamPos++) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            bitOffset = 0;
+            int n = (int) Math.min(len, buf.limit() - streamPos);
+            if (n <= 0) return len == 0 ? 0 : -1;
+            buf.get((int) streamPos, b, off, n);
+            streamPos += n;
+            return n;
+        }
+
+        @Override
+        public long length() {
+            return buf.limit();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.domain.StorageJobState;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.StorageJobStateRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Re-hashes stored bytes against files.sha256 so silent corruption (bit rot, truncated copies, a blob
+ * deleted by hand) is found before a user downloads it. Results go to files.last_verified_at /
+ * files.integrity_error; totals and the cursor to storage_job_state (job integrity-scrub).
+ *
+ * Walks files in id order, one keyset page per batch; rows sharing a blob are hashed once per batch.
+ * Reads are paced to max-bytes-per-second and give way to downloads: a run stops before the next file
+ * while a foreground read started within quiet-period, and a file being hashed pauses for quiet-period
+ * after each buffer. The next run resumes at the saved cursor.
+ */
+@Service
+public class IntegrityScrubber {
+
+    public static final String JOB = "integrity-scrub";
+
+    private static final String LOCK = "job:" + JOB;
+
+    private static final Logger log = LoggerFactory.getLogger(IntegrityScrubber.class);
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final FileRepository fileRepository;
+    private final StorageJobStateRepository jobStateRepository;
+    private final FileStorageService storage;
+    private final ClusterLocks clusterLocks;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long bytesPerSecond;
+    private final Duration quietPeriod;
+    private final Duration minAge;
+
+    // a run on this node; one run per cluster is guarded by an advisory lock (ClusterLocks, off the pool)
+    private final AtomicBoolean running = new AtomicBoolean();
+    private long nextReadAt;
+
+    private final Counter verifiedFiles;
+    private final Counter verifiedBytes;
+    private final Map<FileStorageService.Integrity, Counter> errors = new EnumMap<>(FileStorageService.Integrity.class);
+    // files processed in the current pass
+    private final AtomicLong passProgress = new AtomicLong();
+
+    public IntegrityScrubber(FileRepository fileRepository,
+                             StorageJobStateRepository jobStateRepository,
+                             FileStorageService storage,
+                             ClusterLocks clusterLocks,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.storage.scrub.enabled:true}") boolean enabled,
+                             @Value("${app.storage.scrub.batch-size:200}") int batchSize,
+                             @Value("${app.storage.scrub.max-batches-per-run:50}") int maxBatchesPerRun,
+                             @Value("${app.storage.scrub.max-bytes-per-second:5242880}") long maxBytesPerSecond,
+                             @Value("${app.storage.scrub.quiet-period:PT5S}") Duration quietPeriod,
+                             @Value("${app.storage.scrub.min-age:PT1H}") Duration minAge) {
+        this.fileRepository = fileRepository;
+        this.jobStateRepository = jobStateRepository;
+        this.storage = storage;
+        this.clusterLocks = clusterLocks;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.bytesPerSecond = Math.max(1, maxBytesPerSecond);
+        this.quietPeriod = quietPeriod;
+        this.minAge = minAge;
+
+        this.verifiedFiles = Counter.builder("files.scrub.verified").register(meterRegistry);
+        this.verifiedBytes = Counter.builder("files.scrub.verified.bytes").register(meterRegistry);
+        for (FileStorageService.Integrity i : FileStorageService.Integrity.values()) {
+            if (i == FileStorageService.Integrity.OK) continue;
+            errors.put(i, Counter.builder("files.scrub.errors").tag("error", i.name()).register(meterRegistry));
+        }
+        Gauge.builder("files.scrub.pass.files", passProgress, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.scrub.interval:PT5M}",
+               fixedDelayString = "${app.storage.scrub.interval:PT5M}")
+    public void scheduledRun() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        try (ClusterLocks.Lease lease = clusterLocks.tryLock(LOCK)) {
+            // another node holds the job: the next turn tries again
+            if (lease != null) scrub(lease);
+        } catch (RuntimeException e) {
+            log.warn("Integrity scrub run failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Runs up to max-batches-per-run batches now (admin trigger). 409 if a run is in progress on any node.
+     */
+    public StorageJobState runNow() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(CONFLICT, "INTEGRITY_SCRUB_ALREADY_RUNNING");
+        }
+        try (ClusterLocks.Lease lease = clusterLocks.tryLock(LOCK)) {
+            if (lease == null) throw new ResponseStatusException(CONFLICT, "INTEGRITY_SCRUB_ALREADY_RUNNING");
+            scrub(lease);
+        } finally {
+            running.set(false);
+        }
+        return status();
+    }
+
+    public StorageJobState status() {
+        return state();
+    }
+
+    /** most recently verified files whose bytes did not match */
+    public List<AppFile> failures(int limit) {
+        return fileRepository.findAllByIntegrityErrorIsNotNullOrderByLastVerifiedAtDesc(PageRequest.of(0, limit));
+    }
+
+    private void scrub(ClusterLocks.Lease lease) {
+        StorageJobState state = state();
+        // lease.held(): stop if the lock went with a lost session (another node may have the job now)
+        for (int i = 0; i < maxBatchesPerRun && lease.held(); i++) {
+            List<AppFile> batch = fileRepository.findPageAfter(cursor(state), PageRequest.of(0, batchSize));
+            OffsetDateTime youngest = OffsetDateTime.now().minus(minAge);
+
+            Map<String, FileStorageService.Integrity> byKey = new HashMap<>();
+            List<UUID> ok = new ArrayList<>();
+            Map<FileStorageService.Integrity, List<UUID>> failed = new EnumMap<>(FileStorageService.Integrity.class);
+            UUID last = null;
+            boolean yielded = false;
+
+            for (AppFile f : batch) {
+                if (!storage.foregroundIdleFor(quietPeriod)) {
+                    yielded = true;
+                    break;
+                }
+                last = f.getId();
+                // legacy rows without a hash; fresh rows may still be in staging
+                if (f.getSha256() == null || f.getCreatedAt().isAfter(youngest)) continue;
+
+                FileStorageService.Integrity result = byKey.get(f.getStorageKey());
+                if (result == null) {
+                    result = storage.verify(f, this::pace);
+                    byKey.put(f.getStorageKey(), result);
+                    verifiedBytes.increment(f.getSizeBytes());
+                }
+                if (result == FileStorageService.Integrity.OK) {
+                    ok.add(f.getId());
+                } else {
+                    log.error("Integrity check failed for file {} ({}): {}", f.getId(), f.getStorageKey(), result);
+                    failed.computeIfAbsent(result, k -> new ArrayList<>()).add(f.getId());
+                    errors.get(result).increment();
+                }
+            }
+
+            OffsetDateTime now = OffsetDateTime.now();
+            if (!ok.isEmpty()) fileRepository.markVerified(ok, now);
+            failed.forEach((error, ids) -> fileRepository.markIntegrityError(ids, error.name(), now));
+
+            int processed = ok.size() + failed.values().stream().mapToInt(List::size).sum();
+            verifiedFiles.increment(processed);
+            passProgress.addAndGet(processed);
+            state.setProcessedCount(state.getProcessedCount() + processed);
+            state.setErrorCount(state.getErrorCount() + processed - ok.size());
+
+            boolean passFinished = !yielded && batch.size() < batchSize;
+            if (passFinished) {
+                state.setCursor(null);
+                state.setPassCount(state.getPassCount() + 1);
+                state.setLastPassFinishedAt(now);
+                passProgress.set(0);
+            } else if (last != null) {
+                state.setCursor(last.toString());
+            }
+            state.setUpdatedAt(now);
+            jobStateRepository.save(state);
+            if (passFinished || yielded) break;
+        }
+    }
+
+    private StorageJobState state() {
+        return jobStateRepository.findById(JOB).orElseGet(() -> {
+            StorageJobState s = new StorageJobState();
+            s.setJob(JOB);
+            s.setUpdatedAt(OffsetDateTime.now());
+            return s;
+        });
+    }
+
+    private static UUID cursor(StorageJobState state) {
+        return state.getCursor() == null ? MIN_UUID : UUID.fromString(state.getCursor());
+    }
+
+    /** called before every buffer: keeps the byte rate under budget and backs off while downloads run */
+    private void pace(long bytes) {
+        long wait = nextReadAt - System.nanoTime();
+        if (!storage.foregroundIdleFor(quietPeriod)) wait = Math.max(wait, quietPeriod.toNanos());
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        nextReadAt = Math.max(nextReadAt, System.nanoTime()) + TimeUnit.SECONDS.toNanos(1) * bytes / bytesPerSecond;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * One filesystem file per content: blobs/ab/cd/<sha256> under the storage root.
+ * Also reads the pre-blob per-upload keys (users/<uuid>/...), which are plain relative paths.
+ */
+@Component
+public class LooseFileStorageBackend implements StorageBackend {
+
+    public static final String BLOB_PREFIX = "blobs/";
+
+    private final Path root;
+
+    public LooseFileStorageBackend(@Value("${app.storage.root:uploads}") String rootDir) {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+    }
+
+    public static String blobKey(String sha256) {
+        return BLOB_PREFIX + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    /**
+     * Everything that is not another backend's key is a path relative to the root.
+     */
+    @Override
+    public boolean owns(String storageKey) {
+        return !storageKey.startsWith(PackStorageBackend.KEY_PREFIX);
+    }
+
+    @Override
+    public String existingKey(String sha256) {
+        String key = blobKey(sha256);
+        return Files.isRegularFile(path(key)) ? key : null;
+    }
+
+    @Override
+    public String store(String sha256, Path source) throws IOException {
+        String key = blobKey(sha256);
+        Path dest = path(key);
+        Files.createDirectories(dest.getParent());
+        // staging lives under the same root, so this is a rename
+        Files.move(source, dest, StandardCopyOption.ATOMIC_MOVE);
+        return key;
+    }
+
+    @Override
+    public StoredBytes locate(String storageKey) {
+        Path p = path(storageKey);
+        try {
+            return Files.isRegularFile(p) ? StoredBytes.wholeFile(p, Files.size(p)) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void release(String storageKey) throws IOException {
+        Files.deleteIfExists(path(storageKey));
+    }
+
+    Path path(String storageKey) {
+        Path p = root.resolve(storageKey).normalize();
+        if (!p.startsWith(root)) throw new IllegalArgumentException("Storage key escapes the root: " + storageKey);
+        return p;
+    }
+}
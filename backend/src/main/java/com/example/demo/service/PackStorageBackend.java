@@ -0,0 +1,387 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.repository.FileRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Appends small blobs to large segment files (<root>/packs/segment-00000001.pack) instead of creating one
+ * filesystem file per upload. The storage key is the record's address:
+ * {@code pack/<segment>/<offset>/<length>/<sha256>}, so reads need no index lookup.
+ *
+ * Record layout: 48-byte header (magic, flags, length, raw sha256) followed by the bytes. Headers make the
+ * segments self-describing: the startup scan rebuilds the sha256 -> key dedup index from them and cuts off
+ * a record that was only partly written when the node died.
+ *
+ * Records are never rewritten in place. Space of released (or never committed) records is reclaimed by
+ * {@link #compact()}, which copies the live records of mostly-dead sealed segments to the active one.
+ *
+ * Nothing is created before the first append: with app.storage.backend=loose (and no packs from an
+ * earlier setting) there is no packs directory, and compaction has nothing to look at.
+ */
+@Component
+public class PackStorageBackend implements StorageBackend {
+
+    public static final String KEY_PREFIX = "pack/";
+
+    private static final Logger log = LoggerFactory.getLogger(PackStorageBackend.class);
+
+    private static final int MAGIC = 0x50414b31; // "PAK1"
+    private static final int HEADER_BYTES = 48;
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final FileRepository fileRepository;
+    private final Path dir;
+    private final long segmentBytes;
+    private final long maxBlobBytes;
+    private final double minDeadRatio;
+
+    // sha256 -> key of a record with that content (dedup for new uploads)
+    private final ConcurrentHashMap<String, String> bySha = new ConcurrentHashMap<>();
+    // sealed segments picked for compaction; no new references are handed out into them
+    private final Set<Integer> draining = ConcurrentHashMap.newKeySet();
+
+    // guarded by this; 0 / null until the first segment exists
+    private int activeSegment;
+    private FileChannel active;
+    private long activeSize;
+
+    private final Counter appendedBytes;
+    private final Counter reclaimedBytes;
+
+    public PackStorageBackend(FileRepository fileRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.storage.root:uploads}") String rootDir,
+                              @Value("${app.storage.pack.segment-bytes:268435456}") long segmentBytes,
+                              @Value("${app.storage.pack.max-blob-bytes:1048576}") long maxBlobBytes,
+                              @Value("${app.storage.pack.min-dead-ratio:0.5}") double minDeadRatio) {
+        this.fileRepository = fileRepository;
+        this.dir = Paths.get(rootDir).toAbsolutePath().normalize().resolve("packs");
+        this.segmentBytes = Math.max(HEADER_BYTES + maxBlobBytes, Math.min(segmentBytes, MAX_SEGMENT_BYTES));
+        this.maxBlobBytes = maxBlobBytes;
+        this.minDeadRatio = minDeadRatio;
+
+        try {
+            if (Files.isDirectory(dir)) openSegments();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open pack segments in " + dir, e);
+        }
+
+        this.appendedBytes = Counter.builder("files.pack.appended.bytes").register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("files.pack.reclaimed.bytes").register(meterRegistry);
+        meterRegistry.gauge("files.pack.segments", this, b -> b.segmentIds().size());
+    }
+
+    /** uploads up to this size go into packs (larger ones stay loose files) */
+    public boolean accepts(long sizeBytes) {
+        return sizeBytes <= maxBlobBytes;
+    }
+
+    public long maxBlobBytes() {
+        return maxBlobBytes;
+    }
+
+    @Override
+    public boolean owns(String storageKey) {
+        return storageKey.startsWith(KEY_PREFIX);
+    }
+
+    @Override
+    public String existingKey(String sha256) {
+        return bySha.get(sha256);
+    }
+
+    @Override
+    public String store(String sha256, Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return append(sha256, in, Files.size(source));
+        }
+    }
+
+    /**
+     * Appends exactly {@code length} bytes read from {@code in} and returns the new record's key.
+     * The record is durable (fsync'ed) when this returns.
+     */
+    public synchronized String append(String sha256, InputStream in, long length) throws IOException {
+        if (length > maxBlobBytes) throw new IllegalArgumentException("Blob too large for a pack: " + length);
+        if (active == null || activeSize > 0 && activeSize + HEADER_BYTES + length > segmentBytes) {
+            roll();
+        }
+
+        long start = activeSize;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(0).putLong(length).put(HexFormat.of().parseHex(sha256)).flip();
+
+        try {
+            long pos = start;
+            while (header.hasRemaining()) pos += active.write(header, pos);
+
+            byte[] buf = new byte[8192];
+            long remaining = length;
+            int r;
+            while (remaining > 0 && (r = in.read(buf, 0, (int) Math.min(buf.length, remaining))) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buf, 0, r);
+                while (chunk.hasRemaining()) pos += active.write(chunk, pos);
+                remaining -= r;
+            }
+            if (remaining != 0) throw new IOException("Upload ended " + remaining + " bytes early");
+
+            active.force(false);
+            activeSize = pos;
+        } catch (IOException e) {
+            // drop the partial record so the segment stays scannable
+            active.truncate(start);
+            throw e;
+        }
+
+        appendedBytes.increment(length);
+        String key = key(activeSegment, start + HEADER_BYTES, length, sha256);
+        bySha.put(sha256, key);
+        return key;
+    }
+
+    @Override
+    public StoredBytes locate(String storageKey) {
+        Entry e = Entry.parse(storageKey);
+        if (e == null) return null;
+        Path segment = segmentPath(e.segment());
+        // a request that read its row just before compaction re-pointed it can still use the old segment
+        if (!Files.isRegularFile(segment)) segment = deadPath(e.segment());
+        try {
+            if (!Files.isRegularFile(segment) || Files.size(segment) < e.offset() + e.length()) return null;
+        } catch (IOException ex) {
+            return null;
+        }
+        return new StoredBytes(segment, e.offset(), e.length());
+    }
+
+    /**
+     * The record stays in its segment until compaction; it is only dropped from the dedup index.
+     */
+    @Override
+    public void release(String storageKey) {
+        Entry e = Entry.parse(storageKey);
+        if (e != null) bySha.remove(e.sha256(), storageKey);
+    }
+
+    /**
+     * Reclaims the space of dead records in sealed segments, in two runs per segment:
+     * the first run takes a segment whose dead ratio reached min-dead-ratio out of the dedup index (uploads
+     * that already picked one of its keys commit in the meantime), the next run copies its live records
+     * to the active segment, re-points their files rows and renames the segment to .dead. Downloads that
+     * opened it before keep reading it; the .dead file is deleted at the start of the run after that.
+     */
+    @Scheduled(initialDelayString = "${app.storage.pack.compact-interval:PT1H}",
+               fixedDelayString = "${app.storage.pack.compact-interval:PT1H}")
+    public void compact() {
+        // no pack was ever written: nothing to ask the DB about
+        if (!Files.isDirectory(dir)) return;
+        deleteDeadSegments();
+        for (int segment : segmentIds()) {
+            if (segment == activeSegmentId()) continue;
+            try {
+                if (draining.contains(segment)) {
+                    evacuate(segment);
+                } else if (deadRatio(segment) >= minDeadRatio) {
+                    draining.add(segment);
+                    bySha.values().removeIf(k -> k.startsWith(segmentPrefix(segment)));
+                    log.info("Pack segment {} scheduled for compaction", segment);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot compact pack segment {}: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        if (active != null) active.close();
+    }
+
+    private double deadRatio(int segment) throws IOException {
+        long size = Files.size(segmentPath(segment));
+        if (size == 0) return 1d;
+        long live = 0;
+        for (String key : fileRepository.findStorageKeysStartingWith(segmentPrefix(segment))) {
+            Entry e = Entry.parse(key);
+            if (e != null) live += HEADER_BYTES + e.length();
+        }
+        return 1d - (double) live / size;
+    }
+
+    private void evacuate(int segment) throws IOException {
+        String prefix = segmentPrefix(segment);
+        Set<String> live = new HashSet<>(fileRepository.findStorageKeysStartingWith(prefix));
+        Path path = segmentPath(segment);
+
+        try (FileChannel src = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (Entry e : scan(src, segment)) {
+                String from = e.key();
+                if (!live.contains(from)) continue;
+                String to = append(e.sha256(), Channels.newInputStream(src.position(e.offset())), e.length());
+                fileRepository.moveStorageKey(from, to);
+            }
+        }
+
+        // rows that picked a key of this segment while it was being copied keep it alive until the next run
+        if (!fileRepository.findStorageKeysStartingWith(prefix).isEmpty()) return;
+
+        long size = Files.size(path);
+        Files.move(path, deadPath(segment), StandardCopyOption.ATOMIC_MOVE);
+        draining.remove(segment);
+        reclaimedBytes.increment(size);
+        log.info("Pack segment {} compacted ({} live records moved)", segment, live.size());
+    }
+
+    private void deleteDeadSegments() {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.getFileName().toString().endsWith(".pack.dead")) Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot delete compacted pack segments in {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void openSegments() throws IOException {
+        List<Integer> ids = segmentIds();
+        for (int id : ids) {
+            try (FileChannel ch = FileChannel.open(segmentPath(id), StandardOpenOption.READ)) {
+                for (Entry e : scan(ch, id)) bySha.put(e.sha256(), e.key());
+            }
+        }
+        // the first append creates segment 1
+        if (ids.isEmpty()) return;
+
+        int last = ids.get(ids.size() - 1);
+        active = FileChannel.open(segmentPath(last), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = last;
+
+        long end = 0;
+        for (Entry e : scan(active, last)) end = e.offset() + e.length();
+        if (end < active.size()) {
+            log.warn("Truncating pack segment {} from {} to {} bytes (incomplete last record)", last, active.size(), end);
+            active.truncate(end);
+        }
+        activeSize = end;
+        if (activeSize >= segmentBytes) roll();
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.close();
+        } else {
+            Files.createDirectories(dir);
+        }
+        activeSegment++;
+        active = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSize = 0;
+    }
+
+    private synchronized int activeSegmentId() {
+        return activeSegment;
+    }
+
+    /**
+     * Complete records of a segment, in file order. Stops at the first invalid or truncated header.
+     */
+    private static List<Entry> scan(FileChannel ch, int segment) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long size = ch.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        byte[] sha = new byte[32];
+
+        while (pos + HEADER_BYTES <= size) {
+            header.clear();
+            while (header.hasRemaining()) {
+                if (ch.read(header, pos + header.position()) < 0) break;
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) break;
+            header.getInt(); // flags
+            long length = header.getLong();
+            if (length < 0 || pos + HEADER_BYTES + length > size) break;
+            header.get(sha);
+
+            entries.add(new Entry(segment, pos + HEADER_BYTES, length, HexFormat.of().formatHex(sha)));
+            pos += HEADER_BYTES + length;
+        }
+        return entries;
+    }
+
+    private List<Integer> segmentIds() {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith("segment-") && n.endsWith(".pack"))
+                    .map(n -> Integer.parseInt(n.substring("segment-".length(), n.length() - ".pack".length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Cannot list pack segments in {}: {}", dir, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return dir.resolve(String.format("segment-%08d.pack", segment));
+    }
+
+    private Path deadPath(int segment) {
+        return dir.resolve(String.format("segment-%08d.pack.dead", segment));
+    }
+
+    private static String segmentPrefix(int segment) {
+        return KEY_PREFIX + segment + "/";
+    }
+
+    private static String key(int segment, long offset, long length, String sha256) {
+        return segmentPrefix(segment) + offset + "/" + length + "/" + sha256;
+    }
+
+    private record Entry(int segment, long offset, long length, String sha256) {
+
+        String key() {
+            return PackStorageBackend.key(segment, offset, length, sha256);
+        }
+
+        static Entry parse(String key) {
+            if (key == null || !key.startsWith(KEY_PREFIX)) return null;
+            String[] parts = key.substring(KEY_PREFIX.length()).split("/");
+            if (parts.length != 4) return null;
+            try {
+                return new Entry(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
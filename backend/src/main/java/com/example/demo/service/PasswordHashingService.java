@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs password hashing (BCrypt) on a dedicated, size-bounded executor.
+ *
+ * At most {@code threads} hashes run at once, at most {@code queueCapacity} wait; anything beyond that
+ * is rejected with 503 + Retry-After instead of piling BCrypt work onto request threads.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.security.hashing.threads:0}") int threads,
+                                  @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.security.hashing.timeout-ms:10000}") long timeoutMs,
+                                  @Value("${app.security.hashing.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hashing-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("auth.hashing.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+        this.rejected = Counter.builder("auth.hashing.rejected").register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        Future<String> f;
+        try {
+            f = executor.submit(() -> passwordEncoder.encode(rawPassword));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RetryLaterException(SERVICE_UNAVAILABLE, "SERVER_BUSY_TRY_AGAIN", retryAfterSeconds);
+        }
+
+        try {
+            return f.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(true);
+            rejected.increment();
+            throw new RetryLaterException(SERVICE_UNAVAILABLE, "SERVER_BUSY_TRY_AGAIN", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RetryLaterException(SERVICE_UNAVAILABLE, "SERVER_BUSY_TRY_AGAIN", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
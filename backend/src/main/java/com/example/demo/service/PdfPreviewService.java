@@ -0,0 +1,246 @@
+package com.example.demo.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.domain.AppFile;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Renders page 1 of stored PDFs to PNG for the admin review queues.
+ *
+ * Previews are keyed by sha256 (FileStorageService.derivativePath, next to the image previews) and rendered
+ * on a small dedicated pool: at most {@code threads} PDFs are open at once, each parsed with a capped
+ * amount of heap (the rest spills to temp files) and rendered at a resolution bounded by MAX_EDGE_PX.
+ *
+ * Request-scoped uploads are warmed right after their transaction commits, so by the time an admin opens
+ * the queue the PNG usually exists already. Warm-ups never wait: if the pool is full they are dropped and
+ * the preview is rendered on first view instead.
+ */
+@Service
+public class PdfPreviewService {
+
+    /** longest edge of the rendered page in pixels */
+    public static final int MAX_EDGE_PX = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(PdfPreviewService.class);
+
+    // tiny pages (receipts) are not blown up beyond 4x (288 dpi)
+    private static final float MAX_SCALE = 4f;
+
+    private final FileStorageService storage;
+    private final ThreadPoolExecutor executor;
+    private final long maxMainMemoryBytes;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+
+    private final ConcurrentHashMap<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter rendered;
+    private final Counter rejected;
+
+    public PdfPreviewService(FileStorageService storage,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.files.pdf-preview.threads:2}") int threads,
+                             @Value("${app.files.pdf-preview.queue-capacity:200}") int queueCapacity,
+                             @Value("${app.files.pdf-preview.max-main-memory-bytes:33554432}") long maxMainMemoryBytes,
+                             @Value("${app.files.pdf-preview.timeout-ms:10000}") long timeoutMs,
+                             @Value("${app.files.pdf-preview.retry-after-seconds:3}") long retryAfterSeconds) {
+        this.storage = storage;
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        int poolSize = Math.max(1, threads);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "pdf-preview-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("files.pdf-preview.queue.depth", executor, e -> e.getQueue().size());
+        this.rendered = Counter.builder("files.pdf-preview.rendered").register(meterRegistry);
+        this.rejected = Counter.builder("files.pdf-preview.rejected").register(meterRegistry);
+    }
+
+    public boolean supports(AppFile f) {
+        return f.getSha256() != null && "application/pdf".equalsIgnoreCase(f.getMimeType());
+    }
+
+    /**
+     * Path of the cached page-1 PNG, rendering it on the preview pool if needed.
+     * Returns null if the PDF cannot be rendered.
+     */
+    public Path get(AppFile f) {
+        Path target = target(f);
+        if (Files.isRegularFile(target)) return target;
+
+        CompletableFuture<Path> future;
+        try {
+            future = schedule(f, target);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // keeps rendering in the background; the retry finds the PNG
+            rejected.increment();
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("PDF preview failed", e.getCause());
+        }
+    }
+
+    /**
+     * Renders the preview in the background once the current transaction has committed.
+     * Never blocks and never fails the caller; call it after FileStorageService.persist.
+     */
+    public void warmAfterCommit(AppFile f) {
+        if (f == null || !supports(f)) return;
+
+        Runnable warm = () -> {
+            Path target = target(f);
+            if (Files.isRegularFile(target)) return;
+            try {
+                schedule(f, target);
+            } catch (RejectedExecutionException e) {
+                // pool saturated: rendered on first view instead
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // afterCompletion (not afterCommit): runs after FileStorageService.persist has promoted the bytes
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) warm.run();
+                }
+            });
+        } else {
+            warm.run();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Path target(AppFile f) {
+        return storage.derivativePath(f.getSha256(), "page1.png");
+    }
+
+    /**
+     * Joins the render already in flight for this PDF, or submits a new one.
+     */
+    private CompletableFuture<Path> schedule(AppFile f, Path target) {
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(target, mine);
+        if (running != null) return running;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    mine.complete(render(f, target));
+                } catch (Throwable t) {
+                    mine.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(target, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            inFlight.remove(target, mine);
+            // requests that joined in the meantime get the same answer
+            mine.completeExceptionally(busy());
+            throw e;
+        }
+        return mine;
+    }
+
+    private Path render(AppFile f, Path target) {
+        if (Files.isRegularFile(target)) return target;
+
+        // local bytes (loose file or pack record) are mapped, not copied to the heap
+        try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBuffer(storage.read(f)),
+                MemoryUsageSetting.setupMixed(maxMainMemoryBytes).streamCache)) {
+            if (doc.getNumberOfPages() == 0) return null;
+
+            PDRectangle box = doc.getPage(0).getCropBox();
+            float longest = Math.max(box.getWidth(), box.getHeight());
+            if (longest <= 0) return null;
+            // scale 1 = 72 dpi (one pixel per point)
+            float scale = Math.min(MAX_SCALE, MAX_EDGE_PX / longest);
+
+            PDFRenderer renderer = new PDFRenderer(doc);
+            // embedded scans are drawn subsampled when they are larger than the output needs
+            renderer.setSubsamplingAllowed(true);
+            BufferedImage image = renderer.renderImage(0, scale, ImageType.RGB);
+
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), ".tmp-", ".png");
+            try {
+                ImageIO.write(image, "png", tmp.toFile());
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            rendered.increment();
+            return target;
+        } catch (InvalidPasswordException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Cannot render preview of PDF {}: {}", f.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private RetryLaterException busy() {
+        return new RetryLaterException(SERVICE_UNAVAILABLE, "PREVIEW_BUSY_TRY_AGAIN", retryAfterSeconds);
+    }
+}
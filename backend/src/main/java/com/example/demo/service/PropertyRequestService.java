@@ -10,7 +10,9 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -40,18 +42,24 @@ public class PropertyRequestService {
     private final PropertyRepository propertyRepository;
     private final FileLinkRepository fileLinkRepository;
     private final FileStorageService fileStorageService;
+    private final PdfPreviewService pdfPreviews;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
 
     public PropertyRequestService(PropertyRequestRepository propertyRequestRepository,
                                   PropertyRepository propertyRepository,
                                   FileLinkRepository fileLinkRepository,
                                   FileStorageService fileStorageService,
-                                  ObjectMapper objectMapper) {
+                                  PdfPreviewService pdfPreviews,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
         this.propertyRequestRepository = propertyRequestRepository;
         this.propertyRepository = propertyRepository;
         this.fileLinkRepository = fileLinkRepository;
         this.fileStorageService = fileStorageService;
+        this.pdfPreviews = pdfPreviews;
         this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     public List<PropertyRequest> listMy(UUID userId) {
@@ -63,7 +71,6 @@ public class PropertyRequestService {
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
     }
 
-    @Transactional
     public PropertyRequest createAddProperty(UUID userId, AddPropertyRequestData data, MultipartFile ownershipDocPdf) {
         if (ownershipDocPdf == null || ownershipDocPdf.isEmpty()) {
             throw new ResponseStatusException(BAD_REQUEST, "OWNERSHIP_DOC_REQUIRED");
@@ -92,12 +99,24 @@ public class PropertyRequestService {
             throw new ResponseStatusException(BAD_REQUEST, "PURCHASE_YEAR_INVALID");
         }
 
+        // written and hashed before the transaction opens; the transaction below only inserts rows
+        StagedFile staged = fileStorageService.stageUserPdf(userId, ownershipDocPdf);
+        try {
+            return tx.execute(status -> insertAddProperty(userId, data, staged));
+        } catch (RuntimeException e) {
+            fileStorageService.discard(staged);
+            throw e;
+        }
+    }
+
+    private PropertyRequest insertAddProperty(UUID userId, AddPropertyRequestData data, StagedFile staged) {
         if (propertyRequestRepository.existsByUserIdAndKindAndStatus(userId, PropertyRequestKind.ADD_PROPERTY, PropertyRequestStatus.PENDING)) {
             throw new ResponseStatusException(CONFLICT, "PENDING_ADD_ALREADY_EXISTS");
         }
 
-        // Store ownership doc as PDF
-        AppFile pdf = fileStorageService.storeUserPdf(userId, ownershipDocPdf);
+        // Ownership doc (PDF) row; bytes are promoted from staging after commit
+        AppFile pdf = fileStorageService.persist(staged);
+        pdfPreviews.warmAfterCommit(pdf);
 
         ObjectNode payload = objectMapper.createObjectNode();
         payload.put("type", data.type);
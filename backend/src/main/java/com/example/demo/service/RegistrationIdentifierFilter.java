@@ -0,0 +1,208 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.domain.User;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Counting Bloom filter over every taken EGN / email / doc number / phone.
+ *
+ * "Definitely free" answers let registration skip the uniqueness query entirely; "maybe taken" answers
+ * fall back to UserRepository.findTakenIdentifiers. Counters are 4 bits packed 16 per long and updated
+ * by CAS, so identifiers can be removed again when a registration is rejected.
+ *
+ * The filter is per node and only approximately in sync (other nodes' inserts are not seen), so the
+ * unique constraints on users stay the authority; AuthService maps their violations to the same codes.
+ * A removal only decrements what this node counted (the warm-up or its own add): taking away another
+ * node's user would lower counters shared with identifiers that are really taken.
+ */
+@Service
+public class RegistrationIdentifierFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationIdentifierFilter.class);
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+    // registrations commit within this long of their created_at, so older rows were in the warm-up's read
+    private static final Duration COMMIT_MARGIN = Duration.ofMinutes(5);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashes;
+
+    // until warm-up finished every lookup answers "maybe taken"
+    private volatile boolean ready;
+    // users created before this were counted by the warm-up
+    private volatile OffsetDateTime warmedBefore;
+    // users counted by add() on this node (its own registrations since start)
+    private final Set<UUID> addedHere = ConcurrentHashMap.newKeySet();
+
+    public RegistrationIdentifierFilter(UserRepository userRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${app.registration.identifier-filter.expected-users:1000000}") long expectedUsers,
+                                        @Value("${app.registration.identifier-filter.false-positive-rate:0.01}") double fpp) {
+        this.userRepository = userRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+
+        // four identifiers per user
+        long n = Math.max(1, expectedUsers) * 4;
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (m + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.counters = (long) wordCount * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) counters / n * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        OffsetDateTime counted = OffsetDateTime.now().minus(COMMIT_MARGIN);
+        long count;
+        try {
+            // the stream needs an open transaction / connection while it is consumed
+            count = readOnlyTx.execute(status -> {
+                long n = 0;
+                try (Stream<UserRepository.UserIdentifiers> rows = userRepository.streamIdentifiers()) {
+                    for (UserRepository.UserIdentifiers r : (Iterable<UserRepository.UserIdentifiers>) rows::iterator) {
+                        add(r.getEgn(), r.getEmail(), r.getDocNumber(), r.getPhone());
+                        n++;
+                    }
+                }
+                return n;
+            });
+        } catch (RuntimeException e) {
+            // stay "not ready": registration keeps using the DB pre-check
+            log.warn("Registration identifier filter warm-up failed: {}", e.getMessage());
+            return;
+        }
+        warmedBefore = counted;
+        ready = true;
+        log.info("Registration identifier filter warmed with {} users in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean mightContainEgn(String egn)             { return mightContain("egn:", egn); }
+    public boolean mightContainEmail(String email)         { return mightContain("email:", email); }
+    public boolean mightContainDocNumber(String docNumber) { return mightContain("doc:", docNumber); }
+    public boolean mightContainPhone(String phone)         { return mightContain("phone:", phone); }
+
+    /** true if any of the user's identifiers might already be taken (i.e. the DB must be asked) */
+    public boolean mightContainAny(String egn, String email, String docNumber, String phone) {
+        return mightContainEgn(egn) || mightContainEmail(email)
+                || mightContainDocNumber(docNumber) || mightContainPhone(phone);
+    }
+
+    /** a committed registration of this node */
+    public void add(User u) {
+        addedHere.add(u.getId());
+        add(u.getEgn(), u.getEmail(), u.getDocNumber(), u.getPhone());
+    }
+
+    /**
+     * A deleted user. Skipped unless this node counted it: a removal that is skipped only costs false
+     * positives, one that was never added here could produce false negatives.
+     */
+    public void remove(User u) {
+        boolean ownAdd = addedHere.remove(u.getId());
+        // removals that race the warm-up could undercount shared counters
+        if (!ready) return;
+        OffsetDateTime warmed = warmedBefore;
+        boolean warmedUp = u.getCreatedAt() != null && u.getCreatedAt().isBefore(warmed);
+        if (!ownAdd && !warmedUp) return;
+        update("egn:", u.getEgn(), -1);
+        update("email:", u.getEmail(), -1);
+        update("doc:", u.getDocNumber(), -1);
+        update("phone:", u.getPhone(), -1);
+    }
+
+    private void add(String egn, String email, String docNumber, String phone) {
+        update("egn:", egn, 1);
+        update("email:", email, 1);
+        update("doc:", docNumber, 1);
+        update("phone:", phone, 1);
+    }
+
+    private boolean mightContain(String prefix, String value) {
+        if (!ready || value == null) return true;
+        long h = hash(prefix, value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            if (get(index(h1, h2, i)) == 0) return false;
+        }
+        return true;
+    }
+
+    private void update(String prefix, String value, int delta) {
+        if (value == null) return;
+        long h = hash(prefix, value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long idx = index(h1, h2, i);
+            int word = (int) (idx / COUNTERS_PER_WORD);
+            int shift = (int) (idx % COUNTERS_PER_WORD) * COUNTER_BITS;
+            while (true) {
+                long cur = words.get(word);
+                long c = (cur >>> shift) & COUNTER_MAX;
+                // saturated counters stay saturated (we no longer know the real count); empty ones never go negative
+                if (c == COUNTER_MAX || (delta < 0 && c == 0)) break;
+                long next = (cur & ~(COUNTER_MAX << shift)) | ((c + delta) << shift);
+                if (words.compareAndSet(word, cur, next)) break;
+            }
+        }
+    }
+
+    private long get(long idx) {
+        int word = (int) (idx / COUNTERS_PER_WORD);
+        int shift = (int) (idx % COUNTERS_PER_WORD) * COUNTER_BITS;
+        return (words.get(word) >>> shift) & COUNTER_MAX;
+    }
+
+    private long index(int h1, int h2, int i) {
+        // Kirsch-Mitzenmacher double hashing
+        long combined = (h1 & 0xffffffffL) + (long) i * (h2 & 0xffffffffL);
+        return Long.remainderUnsigned(combined, counters);
+    }
+
+    private static long hash(String prefix, String value) {
+        // FNV-1a over UTF-8 followed by a murmur3 finalizer
+        long h = 0xcbf29ce484222325L;
+        for (byte b : (prefix + value).getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Keyset pages for the admin lists (requests, registrations): newest first on (created_at, id), so any
+ * page costs one index range scan no matter how deep it is. status/kind filters go into the WHERE clause
+ * where the (status, kind, created_at, id) indexes from V21 serve them.
+ *
+ * The cursor is opaque to clients (base64url of "createdAt|id" of the last row) and travels back in the
+ * X-Next-Cursor response header; no header means there are no more rows.
+ */
+public final class RequestPages {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 200;
+    public static final int MAX_LIMIT = 500;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private RequestPages() {
+    }
+
+    /**
+     * One page of {@code repo} rows. {@code status} matches exactly; without it every status except
+     * {@code excludedStatus} (may be null) is listed. {@code kind} matches exactly when given.
+     */
+    public static <T> Page<T> fetch(JpaSpecificationExecutor<T> repo,
+                                    Enum<?> status, Enum<?> excludedStatus, Enum<?> kind,
+                                    String cursor, Integer limit,
+                                    Function<T, OffsetDateTime> createdAt, Function<T, UUID> id) {
+        int size = size(limit);
+        Specification<T> spec = filter(status, excludedStatus, kind, decode(cursor));
+
+        // one extra row tells whether there is a next page
+        List<T> rows = repo.findBy(spec, q -> q.sortBy(NEWEST_FIRST).limit(size + 1).all());
+        if (rows.size() <= size) return new Page<>(rows, null);
+
+        List<T> items = rows.subList(0, size);
+        T last = items.get(size - 1);
+        return new Page<>(items, encode(createdAt.apply(last), id.apply(last)));
+    }
+
+    static int size(Integer limit) {
+        return limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(MAX_LIMIT, limit));
+    }
+
+    private static <T> Specification<T> filter(Enum<?> status, Enum<?> excludedStatus, Enum<?> kind, Cursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> where = new ArrayList<>();
+            if (status != null) {
+                where.add(cb.equal(root.get("status"), status));
+            } else if (excludedStatus != null) {
+                where.add(cb.notEqual(root.get("status"), excludedStatus));
+            }
+            if (kind != null) where.add(cb.equal(root.get("kind"), kind));
+            if (after != null) {
+                Path<OffsetDateTime> created = root.get("createdAt");
+                Path<UUID> rowId = root.get("id");
+                // redundant with the OR below, but it is the part Postgres can use as an index range bound;
+                // without it the scan starts at the newest row and filters its way down to the cursor
+                where.add(cb.lessThanOrEqualTo(created, after.createdAt()));
+                where.add(cb.or(
+                        cb.lessThan(created, after.createdAt()),
+                        cb.and(cb.equal(created, after.createdAt()), cb.lessThan(rowId, after.id()))));
+            }
+            return cb.and(where.toArray(Predicate[]::new));
+        };
+    }
+
+    static String encode(OffsetDateTime createdAt, UUID id) {
+        String raw = createdAt.toInstant() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            if (bar <= 0) throw new IllegalArgumentException(raw);
+            return new Cursor(OffsetDateTime.ofInstant(Instant.parse(raw.substring(0, bar)), ZoneOffset.UTC),
+                    UUID.fromString(raw.substring(bar + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(BAD_REQUEST, "CURSOR_INVALID");
+        }
+    }
+
+    record Cursor(OffsetDateTime createdAt, UUID id) {}
+
+    /** nextCursor is null on the last page */
+    public record Page<T>(List<T> items, String nextCursor) {}
+}
@@ -0,0 +1,27 @@
+package com.example.demo.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * ResponseStatusException that also sends a Retry-After header (e.g. 503 / 429 back-pressure).
+ */
+public class RetryLaterException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public RetryLaterException(HttpStatusCode status, String reason, long retryAfterSeconds) {
+        super(status, reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return headers;
+    }
+}
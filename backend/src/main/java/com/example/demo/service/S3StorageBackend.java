@@ -0,0 +1,307 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Blobs in an S3-compatible bucket (AWS S3, MinIO), so API nodes need no shared disk.
+ *
+ * Same two-phase flow as the local staging area: an upload is streamed into staging/<fileId> while its
+ * SHA-256 is computed (one pass, S3 multipart for anything larger than one part), and after the files row
+ * commits the object is copied server-side to blobs/ab/cd/<sha256>. The storage key is that object key
+ * with an "s3/" prefix, so loose, pack and S3 rows can coexist.
+ *
+ * Only created when app.storage.s3.bucket is set.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.storage.s3", name = "bucket")
+public class S3StorageBackend implements StreamingStorageBackend {
+
+    public static final String KEY_PREFIX = "s3/";
+
+    private static final String STAGING_PREFIX = "staging/";
+    // S3 rejects multipart parts below 5 MB (except the last one)
+    private static final int MIN_PART_BYTES = 5 * 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(S3StorageBackend.class);
+
+    private final S3Client s3;
+    private final String bucket;
+    private final int partBytes;
+
+    private final Counter uploadedBytes;
+
+    public S3StorageBackend(MeterRegistry meterRegistry,
+                            @Value("${app.storage.s3.bucket}") String bucket,
+                            @Value("${app.storage.s3.endpoint:}") String endpoint,
+                            @Value("${app.storage.s3.region:us-east-1}") String region,
+                            @Value("${app.storage.s3.access-key:}") String accessKey,
+                            @Value("${app.storage.s3.secret-key:}") String secretKey,
+                            @Value("${app.storage.s3.path-style:true}") boolean pathStyle,
+                            @Value("${app.storage.s3.part-bytes:8388608}") int partBytes) {
+        this.bucket = bucket;
+        this.partBytes = Math.max(MIN_PART_BYTES, partBytes);
+
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                // MinIO and most S3 stand-ins only understand http://host/bucket/key
+                .forcePathStyle(pathStyle)
+                .credentialsProvider(accessKey.isBlank()
+                        ? DefaultCredentialsProvider.builder().build()
+                        : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        if (!endpoint.isBlank()) builder.endpointOverride(URI.create(endpoint));
+        this.s3 = builder.build();
+
+        this.uploadedBytes = Counter.builder("files.s3.uploaded.bytes").register(meterRegistry);
+    }
+
+    public static String blobKey(String sha256) {
+        return KEY_PREFIX + LooseFileStorageBackend.blobKey(sha256);
+    }
+
+    @Override
+    public boolean owns(String storageKey) {
+        return storageKey.startsWith(KEY_PREFIX);
+    }
+
+    @Override
+    public String existingKey(String sha256) {
+        String key = blobKey(sha256);
+        return exists(objectKey(key)) ? key : null;
+    }
+
+    @Override
+    public String store(String sha256, Path source) throws IOException {
+        String key = blobKey(sha256);
+        try (InputStream in = Files.newInputStream(source)) {
+            upload(objectKey(key), in, Files.size(source), "application/octet-stream");
+        }
+        return key;
+    }
+
+    /**
+     * Objects are not on the local disk; read them with {@link #open}.
+     */
+    @Override
+    public StoredBytes locate(String storageKey) {
+        return null;
+    }
+
+    @Override
+    public boolean streamed(String storageKey) {
+        return true;
+    }
+
+    /**
+     * A ranged GET.
+     */
+    @Override
+    public InputStream open(String storageKey, long offset, long length) throws IOException {
+        return get(objectKey(storageKey), offset, length);
+    }
+
+    /**
+     * A ranged GET of the staged object of {@code fileId} (committed, promotion still queued).
+     */
+    public InputStream openStaged(UUID fileId, long offset, long length) throws IOException {
+        return get(STAGING_PREFIX + fileId, offset, length);
+    }
+
+    @Override
+    public void release(String storageKey) {
+        s3.deleteObject(b -> b.bucket(bucket).key(objectKey(storageKey)));
+    }
+
+    /**
+     * Phase 1: streams the upload into staging/<fileId> and returns its SHA-256.
+     * {@code size} is the declared length (-1 if unknown); it only sizes the read buffer.
+     */
+    public String stage(UUID fileId, InputStream in, long size, String contentType) throws IOException {
+        return upload(STAGING_PREFIX + fileId, in, size, contentType);
+    }
+
+    /**
+     * Phase 2, after commit: copies the staged object to its blob key (unless identical content is already
+     * there) and removes it. Without a staged object the bytes are re-uploaded from {@code source}.
+     */
+    public void promote(UUID fileId, String storageKey, InputStreamSource source) throws IOException {
+        String staged = STAGING_PREFIX + fileId;
+        String target = objectKey(storageKey);
+        if (!exists(target)) {
+            if (exists(staged)) {
+                s3.copyObject(b -> b.sourceBucket(bucket).sourceKey(staged)
+                        .destinationBucket(bucket).destinationKey(target));
+            } else if (source != null) {
+                try (InputStream in = source.open()) {
+                    upload(target, in, -1, "application/octet-stream");
+                }
+            } else {
+                log.error("No bytes to promote for file {} ({})", fileId, storageKey);
+                return;
+            }
+        }
+        discardStaged(fileId);
+    }
+
+    public void discardStaged(UUID fileId) {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(STAGING_PREFIX + fileId));
+        } catch (S3Exception e) {
+            log.warn("Cannot delete staged object for file {}: {}", fileId, e.getMessage());
+        }
+    }
+
+    /**
+     * File ids of staged objects older than {@code cutoff} (interrupted or failed promotions).
+     */
+    public List<UUID> staleStaged(Instant cutoff) {
+        List<UUID> ids = new ArrayList<>();
+        for (S3Object o : s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(STAGING_PREFIX)).contents()) {
+            if (!o.lastModified().isBefore(cutoff)) continue;
+            try {
+                ids.add(UUID.fromString(o.key().substring(STAGING_PREFIX.length())));
+            } catch (IllegalArgumentException e) {
+                // not ours
+            }
+        }
+        return ids;
+    }
+
+    @PreDestroy
+    void close() {
+        s3.close();
+    }
+
+    /** a source that can be read again, e.g. the MultipartFile of the upload */
+    @FunctionalInterface
+    public interface InputStreamSource {
+        InputStream open() throws IOException;
+    }
+
+    private boolean exists(String objectKey) {
+        try {
+            s3.headObject(b -> b.bucket(bucket).key(objectKey));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return false;
+            throw e;
+        }
+    }
+
+    private InputStream get(String objectKey, long offset, long length) throws IOException {
+        if (length <= 0) return InputStream.nullInputStream();
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey)
+                    .range("bytes=" + offset + "-" + (offset + length - 1)));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(objectKey);
+        } catch (S3Exception e) {
+            throw new IOException("Cannot read " + objectKey + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String objectKey(String storageKey) {
+        return storageKey.substring(KEY_PREFIX.length());
+    }
+
+    /**
+     * Reads the input one part at a time, hashing as it goes. A single part is a plain PUT; anything
+     * larger becomes a multipart upload (aborted on failure). Returns the SHA-256 of everything read.
+     *
+     * Most uploads are far smaller than a part, so with a known {@code sizeHint} the first buffer only
+     * has room for that many bytes plus one (to see the end of the stream); it grows to a full part
+     * if the input turns out to be longer.
+     */
+    private String upload(String objectKey, InputStream in, long sizeHint, String contentType) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] first = new byte[sizeHint >= 0 && sizeHint < partBytes ? (int) sizeHint + 1 : partBytes];
+
+        int read = in.readNBytes(first, 0, first.length);
+        if (read == first.length && first.length < partBytes) {
+            first = Arrays.copyOf(first, partBytes);
+            read += in.readNBytes(first, read, partBytes - read);
+        }
+        byte[] buf = first;
+        int n = read;
+        digest.update(buf, 0, n);
+        if (n < buf.length) {
+            s3.putObject(b -> b.bucket(bucket).key(objectKey).contentType(contentType),
+                    RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buf, 0, n), n, contentType));
+            uploadedBytes.increment(n);
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(objectKey).contentType(contentType))
+                .uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int len = n;
+            while (len > 0) {
+                int partNumber = parts.size() + 1;
+                int partLen = len;
+                String etag = s3.uploadPart(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId).partNumber(partNumber),
+                        RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buf, 0, partLen), partLen, contentType))
+                        .eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+                uploadedBytes.increment(partLen);
+
+                len = in.readNBytes(buf, 0, buf.length);
+                digest.update(buf, 0, len);
+            }
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(parts)));
+        } catch (IOException | RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId));
+            } catch (RuntimeException abortFailure) {
+                e.addSuppressed(abortFailure);
+            }
+            throw e;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
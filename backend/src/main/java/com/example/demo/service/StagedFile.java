@@ -0,0 +1,30 @@
+package com.example.demo.service;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * An upload that has been hashed (and, unless its bytes are already stored, written into the staging area
+ * or appended to a pack) but has no files row yet. See FileStorageService.stageUserImage / stageUserPdf and
+ * FileStorageService.persist.
+ *
+ * storageKey is the key the files row will get. stagingPath is null for duplicate content and for pack
+ * records; source is kept so the bytes can still be written if the existing blob is collected before the
+ * new row commits.
+ */
+public record StagedFile(UUID fileId,
+                         UUID ownerUserId,
+                         String originalName,
+                         String mimeType,
+                         long sizeBytes,
+                         String sha256,
+                         String storageKey,
+                         Path stagingPath,
+                         MultipartFile source) {
+
+    public StagedFile withOwner(UUID owner) {
+        return new StagedFile(fileId, owner, originalName, mimeType, sizeBytes, sha256, storageKey, stagingPath, source);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Physical layout behind files.storage_key. FileStorageService chooses the backend for new content and
+ * routes reads and releases by key, so rows written by different backends can coexist.
+ */
+public interface StorageBackend {
+
+    /** true if the key was produced by this backend */
+    boolean owns(String storageKey);
+
+    /** key of identical content this backend already holds, or null */
+    String existingKey(String sha256);
+
+    /**
+     * Stores the bytes of a complete local file as content sha256 and returns the new key.
+     * The source may be moved; callers delete it afterwards if it still exists.
+     */
+    String store(String sha256, Path source) throws IOException;
+
+    /** file region holding the key's bytes, or null if they are missing */
+    StoredBytes locate(String storageKey);
+
+    /** called once no files row references the key any more */
+    void release(String storageKey) throws IOException;
+}
@@ -0,0 +1,224 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.domain.StorageJobState;
+import com.example.demo.repository.FileLinkRepository;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.StorageJobStateRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Background collector for storage nobody can reach any more:
+ *
+ * 1. file_links whose entity row was deleted (entity_id is polymorphic, so there is no FK to cascade);
+ * 2. files rows without any link, older than the grace period, and then their bytes
+ *    (FileStorageService.releaseIfUnreferenced keeps blobs that other rows still share).
+ *
+ * Both walk their table in primary-key order, one keyset page per batch, and store the cursor in
+ * storage_job_state after every batch, so a restart resumes where the last run stopped. Byte deletes are
+ * paced to max-deletes-per-second so a large backlog does not saturate the disk / object store.
+ */
+@Service
+public class StorageGarbageCollector {
+
+    public static final String LINKS_JOB = "file-links-gc";
+    public static final String FILES_JOB = "files-gc";
+
+    private static final String LOCK = "job:storage-gc";
+
+    private static final Logger log = LoggerFactory.getLogger(StorageGarbageCollector.class);
+
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final FileRepository fileRepository;
+    private final FileLinkRepository fileLinkRepository;
+    private final StorageJobStateRepository jobStateRepository;
+    private final FileStorageService storage;
+    private final FileServingService fileServing;
+    private final ClusterLocks clusterLocks;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration grace;
+    private final long releaseIntervalNanos;
+
+    // a run on this node; one run per cluster is guarded by an advisory lock (ClusterLocks, off the pool)
+    private final AtomicBoolean running = new AtomicBoolean();
+    private long nextReleaseAt;
+
+    private final Counter linksDeleted;
+    private final Counter filesDeleted;
+    private final Counter reclaimedBytes;
+
+    public StorageGarbageCollector(FileRepository fileRepository,
+                                   FileLinkRepository fileLinkRepository,
+                                   StorageJobStateRepository jobStateRepository,
+                                   FileStorageService storage,
+                                   FileServingService fileServing,
+                                   ClusterLocks clusterLocks,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.storage.gc.enabled:true}") boolean enabled,
+                                   @Value("${app.storage.gc.batch-size:500}") int batchSize,
+                                   @Value("${app.storage.gc.max-batches-per-run:20}") int maxBatchesPerRun,
+                                   @Value("${app.storage.gc.grace:PT24H}") Duration grace,
+                                   @Value("${app.storage.gc.max-deletes-per-second:20}") int maxDeletesPerSecond) {
+        this.fileRepository = fileRepository;
+        this.fileLinkRepository = fileLinkRepository;
+        this.jobStateRepository = jobStateRepository;
+        this.storage = storage;
+        this.fileServing = fileServing;
+        this.clusterLocks = clusterLocks;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.grace = grace;
+        this.releaseIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxDeletesPerSecond);
+
+        this.linksDeleted = Counter.builder("files.gc.links.deleted").register(meterRegistry);
+        this.filesDeleted = Counter.builder("files.gc.files.deleted").register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("files.gc.reclaimed.bytes").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.gc.interval:PT10M}",
+               fixedDelayString = "${app.storage.gc.interval:PT10M}")
+    public void scheduledRun() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        try (ClusterLocks.Lease lease = clusterLocks.tryLock(LOCK)) {
+            // another node holds the job: the next turn tries again
+            if (lease != null) collect(lease);
+        } catch (RuntimeException e) {
+            log.warn("Storage GC run failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Runs up to max-batches-per-run batches of each job now (admin trigger). 409 if a run is in progress on any node.
+     */
+    public List<StorageJobState> runNow() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(CONFLICT, "STORAGE_GC_ALREADY_RUNNING");
+        }
+        try (ClusterLocks.Lease lease = clusterLocks.tryLock(LOCK)) {
+            if (lease == null) throw new ResponseStatusException(CONFLICT, "STORAGE_GC_ALREADY_RUNNING");
+            collect(lease);
+        } finally {
+            running.set(false);
+        }
+        return status();
+    }
+
+    public List<StorageJobState> status() {
+        return jobStateRepository.findAllById(List.of(LINKS_JOB, FILES_JOB));
+    }
+
+    private void collect(ClusterLocks.Lease lease) {
+        // links first: files they were the last reference to become collectable in the same run
+        collectLinks(lease);
+        collectFiles(lease);
+    }
+
+    private void collectLinks(ClusterLocks.Lease lease) {
+        StorageJobState state = state(LINKS_JOB);
+        // lease.held(): stop if the lock went with a lost session (another node may have the job now)
+        for (int i = 0; i < maxBatchesPerRun && lease.held(); i++) {
+            List<UUID> ids = fileLinkRepository.findIdsAfter(cursor(state), PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                int deleted = fileLinkRepository.deleteOrphaned(ids);
+                state.setProcessedCount(state.getProcessedCount() + deleted);
+                linksDeleted.increment(deleted);
+            }
+            if (advance(state, ids)) break;
+        }
+    }
+
+    private void collectFiles(ClusterLocks.Lease lease) {
+        StorageJobState state = state(FILES_JOB);
+        for (int i = 0; i < maxBatchesPerRun && lease.held(); i++) {
+            List<UUID> ids = fileRepository.findIdsAfter(cursor(state), PageRequest.of(0, batchSize));
+            List<AppFile> unlinked = ids.isEmpty() ? List.of()
+                    : fileRepository.findUnlinked(ids, OffsetDateTime.now().minus(grace));
+
+            if (!unlinked.isEmpty()) {
+                int deleted = fileRepository.deleteUnlinked(unlinked.stream().map(AppFile::getId).toList());
+                fileServing.evictFiles(unlinked);
+
+                long bytes = 0;
+                for (AppFile f : unlinked) {
+                    // rows linked again since the select were not deleted; their bytes stay referenced
+                    pace();
+                    if (storage.releaseIfUnreferenced(f)) bytes += f.getSizeBytes();
+                }
+
+                state.setProcessedCount(state.getProcessedCount() + deleted);
+                state.setReclaimedBytes(state.getReclaimedBytes() + bytes);
+                filesDeleted.increment(deleted);
+                reclaimedBytes.increment(bytes);
+            }
+            if (advance(state, ids)) break;
+        }
+    }
+
+    /**
+     * Saves the cursor after a batch. A short page ends the pass; the next batch starts a new one.
+     */
+    private boolean advance(StorageJobState state, List<UUID> ids) {
+        boolean passFinished = ids.size() < batchSize;
+        OffsetDateTime now = OffsetDateTime.now();
+        if (passFinished) {
+            state.setCursor(null);
+            state.setPassCount(state.getPassCount() + 1);
+            state.setLastPassFinishedAt(now);
+        } else {
+            state.setCursor(ids.get(ids.size() - 1).toString());
+        }
+        state.setUpdatedAt(now);
+        jobStateRepository.save(state);
+        return passFinished;
+    }
+
+    private StorageJobState state(String job) {
+        return jobStateRepository.findById(job).orElseGet(() -> {
+            StorageJobState s = new StorageJobState();
+            s.setJob(job);
+            s.setUpdatedAt(OffsetDateTime.now());
+            return s;
+        });
+    }
+
+    private static UUID cursor(StorageJobState state) {
+        return state.getCursor() == null ? MIN_UUID : UUID.fromString(state.getCursor());
+    }
+
+    private void pace() {
+        long wait = nextReleaseAt - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        nextReleaseAt = Math.max(nextReleaseAt, System.nanoTime()) + releaseIntervalNanos;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.StorageJobState;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.repository.StorageJobStateRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Moves attachments of requests decided more than app.storage.cold.after ago from the hot tier (loose
+ * blobs, pack records) to ColdStorageBackend. A key only moves when every row sharing it is linked to such
+ * requests and nothing else, so profile photos and documents of live entities stay hot.
+ *
+ * Walks the candidate keys in order, one keyset page per batch, with the cursor in storage_job_state
+ * (job cold-tiering). Reads keep working during and after the move: FileStorageService.resolve follows
+ * the row to its new key.
+ */
+@Service
+public class StorageTieringService {
+
+    public static final String JOB = "cold-tiering";
+
+    private static final String LOCK = "job:" + JOB;
+
+    private static final Logger log = LoggerFactory.getLogger(StorageTieringService.class);
+
+    private final FileRepository fileRepository;
+    private final StorageJobStateRepository jobStateRepository;
+    private final FileStorageService storage;
+    private final ClusterLocks clusterLocks;
+
+    private final boolean enabled;
+    private final Duration after;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    // a run on this node; one run per cluster is guarded by an advisory lock (ClusterLocks, off the pool)
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter movedKeys;
+    private final Counter movedBytes;
+
+    public StorageTieringService(FileRepository fileRepository,
+                                 StorageJobStateRepository jobStateRepository,
+                                 FileStorageService storage,
+                                 ClusterLocks clusterLocks,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.storage.cold.enabled:false}") boolean enabled,
+                                 @Value("${app.storage.cold.after:P90D}") Duration after,
+                                 @Value("${app.storage.cold.batch-size:200}") int batchSize,
+                                 @Value("${app.storage.cold.max-batches-per-run:10}") int maxBatchesPerRun) {
+        this.fileRepository = fileRepository;
+        this.jobStateRepository = jobStateRepository;
+        this.storage = storage;
+        this.clusterLocks = clusterLocks;
+        this.enabled = enabled;
+        this.after = after;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+
+        this.movedKeys = Counter.builder("files.cold.moved").register(meterRegistry);
+        this.movedBytes = Counter.builder("files.cold.moved.bytes").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.cold.interval:PT6H}",
+               fixedDelayString = "${app.storage.cold.interval:PT6H}")
+    public void scheduledRun() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        try (ClusterLocks.Lease lease = clusterLocks.tryLock(LOCK)) {
+            // another node holds the job: the next turn tries again
+            if (lease != null) tier(lease);
+        } catch (RuntimeException e) {
+            log.warn("Cold tiering run failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Runs up to max-batches-per-run batches now (admin trigger), also when the schedule is disabled.
+     * 409 if a run is in progress on any node.
+     */
+    public StorageJobState runNow() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(CONFLICT, "COLD_TIERING_ALREADY_RUNNING");
+        }
+        try (ClusterLocks.Lease lease = clusterLocks.tryLock(LOCK)) {
+            if (lease == null) throw new ResponseStatusException(CONFLICT, "COLD_TIERING_ALREADY_RUNNING");
+            tier(lease);
+        } finally {
+            running.set(false);
+        }
+        return status();
+    }
+
+    public StorageJobState status() {
+        return state();
+    }
+
+    private void tier(ClusterLocks.Lease lease) {
+        StorageJobState state = state();
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(after);
+        // lease.held(): stop if the lock went with a lost session (another node may have the job now)
+        for (int i = 0; i < maxBatchesPerRun && lease.held(); i++) {
+            String cursor = state.getCursor() == null ? "" : state.getCursor();
+            List<String> keys = fileRepository.findColdCandidateKeysAfter(cursor, cutoff, batchSize);
+
+            int moved = 0;
+            long bytes = 0;
+            for (String key : keys) {
+                long freed = storage.moveToCold(key);
+                if (freed > 0) {
+                    moved++;
+                    bytes += freed;
+                }
+            }
+            state.setProcessedCount(state.getProcessedCount() + moved);
+            state.setReclaimedBytes(state.getReclaimedBytes() + bytes);
+            movedKeys.increment(moved);
+            movedBytes.increment(bytes);
+
+            OffsetDateTime now = OffsetDateTime.now();
+            boolean passFinished = keys.size() < batchSize;
+            if (passFinished) {
+                state.setCursor(null);
+                state.setPassCount(state.getPassCount() + 1);
+                state.setLastPassFinishedAt(now);
+            } else {
+                state.setCursor(keys.get(keys.size() - 1));
+            }
+            state.setUpdatedAt(now);
+            jobStateRepository.save(state);
+            if (passFinished) break;
+        }
+    }
+
+    private StorageJobState state() {
+        return jobStateRepository.findById(JOB).orElseGet(() -> {
+            StorageJobState s = new StorageJobState();
+            s.setJob(JOB);
+            s.setUpdatedAt(OffsetDateTime.now());
+            return s;
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.service;
+
+import java.nio.file.Path;
+
+/**
+ * The bytes of a stored file: {@code length} bytes of {@code file} starting at {@code offset}.
+ * Loose files cover the whole file; pack entries are a region of a segment.
+ */
+public record StoredBytes(Path file, long offset, long length) {
+
+    public static StoredBytes wholeFile(Path file, long size) {
+        return new StoredBytes(file, 0, size);
+    }
+}
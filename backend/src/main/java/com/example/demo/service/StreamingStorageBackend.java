@@ -0,0 +1,20 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A backend some of whose keys have no local file region to hand out (locate() returns null for them):
+ * objects in a bucket, compressed cold-tier files. Those bytes are read as a stream instead.
+ */
+public interface StreamingStorageBackend extends StorageBackend {
+
+    /** true if the key's bytes are read with open() rather than locate() */
+    boolean streamed(String storageKey);
+
+    /**
+     * Streams {@code length} bytes of the content starting at {@code offset}.
+     * NoSuchFileException if the bytes are missing.
+     */
+    InputStream open(String storageKey, long offset, long length) throws IOException;
+}
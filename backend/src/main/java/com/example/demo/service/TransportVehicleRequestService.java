@@ -9,7 +9,8 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -39,19 +40,25 @@ public class TransportVehicleRequestService {
     private final TransportVehicleRequestRepository requestRepo;
     private final TransportVehicleRepository vehicleRepo;
     private final FileStorageService fileStorage;
+    private final PdfPreviewService pdfPreviews;
     private final FileLinkRepository fileLinkRepo;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
 
     public TransportVehicleRequestService(TransportVehicleRequestRepository requestRepo,
                                          TransportVehicleRepository vehicleRepo,
                                          FileStorageService fileStorage,
+                                         PdfPreviewService pdfPreviews,
                                          FileLinkRepository fileLinkRepo,
-                                         ObjectMapper objectMapper) {
+                                         ObjectMapper objectMapper,
+                                         PlatformTransactionManager transactionManager) {
         this.requestRepo = requestRepo;
         this.vehicleRepo = vehicleRepo;
         this.fileStorage = fileStorage;
+        this.pdfPreviews = pdfPreviews;
         this.fileLinkRepo = fileLinkRepo;
         this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
     public List<TransportVehicleRequest> listMy(UUID userId) {
@@ -63,7 +70,6 @@ public class TransportVehicleRequestService {
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
     }
 
-    @Transactional
     public TransportVehicleRequest createAddVehicle(UUID userId, String ownerEgn, TransportAddVehicleRequestData data, MultipartFile registrationDocPdf) {
         if (data == null) throw new ResponseStatusException(BAD_REQUEST, "DATA_REQUIRED");
 
@@ -81,6 +87,17 @@ public class TransportVehicleRequestService {
         // pdf required
         PropertyRequestService.requirePdf(registrationDocPdf);
 
+        // stage the PDF outside the transaction (disk write + SHA-256 without holding a connection)
+        StagedFile staged = fileStorage.stageUserPdf(userId, registrationDocPdf);
+        try {
+            return tx.execute(status -> insertAddVehicle(userId, ownerEgn, data, reg, staged));
+        } catch (RuntimeException e) {
+            fileStorage.discard(staged);
+            throw e;
+        }
+    }
+
+    private TransportVehicleRequest insertAddVehicle(UUID userId, String ownerEgn, TransportAddVehicleRequestData data, String reg, StagedFile staged) {
         // already approved vehicle?
         if (vehicleRepo.existsByRegNumberIgnoreCase(reg)) {
             throw new ResponseStatusException(CONFLICT, "VEHICLE_WITH_REG_ALREADY_EXISTS");
@@ -92,8 +109,9 @@ public class TransportVehicleRequestService {
             throw new ResponseStatusException(CONFLICT, "PENDING_ADD_ALREADY_EXISTS");
         }
 
-        // store pdf
-        AppFile stored = fileStorage.storeUserPdf(userId, registrationDocPdf);
+        // pdf row only; the staged bytes are moved into place after commit
+        AppFile stored = fileStorage.persist(staged);
+        pdfPreviews.warmAfterCommit(stored);
         OffsetDateTime now = OffsetDateTime.now();
 
         ObjectNode payload = objectMapper.createObjectNode();
@@ -134,7 +152,6 @@ public class TransportVehicleRequestService {
         return req;
     }
 
-    @Transactional
     public TransportVehicleRequest createTechInspection(UUID userId, String ownerEgn, TransportTechInspectionRequestData data, MultipartFile inspectionDocPdf) {
         if (data == null) throw new ResponseStatusException(BAD_REQUEST, "DATA_REQUIRED");
         if (data.vehicleId == null) throw new ResponseStatusException(BAD_REQUEST, "VEHICLE_ID_REQUIRED");
@@ -142,6 +159,16 @@ public class TransportVehicleRequestService {
 
         PropertyRequestService.requirePdf(inspectionDocPdf);
 
+        StagedFile staged = fileStorage.stageUserPdf(userId, inspectionDocPdf);
+        try {
+            return tx.execute(status -> insertTechInspection(userId, ownerEgn, data, staged));
+        } catch (RuntimeException e) {
+            fileStorage.discard(staged);
+            throw e;
+        }
+    }
+
+    private TransportVehicleRequest insertTechInspection(UUID userId, String ownerEgn, TransportTechInspectionRequestData data, StagedFile staged) {
         TransportVehicle v = vehicleRepo.findByIdAndUserId(data.vehicleId, userId)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "VEHICLE_NOT_FOUND"));
 
@@ -151,7 +178,8 @@ public class TransportVehicleRequestService {
             throw new ResponseStatusException(CONFLICT, "PENDING_TECH_ALREADY_EXISTS");
         }
 
-        AppFile stored = fileStorage.storeUserPdf(userId, inspectionDocPdf);
+        AppFile stored = fileStorage.persist(staged);
+        pdfPreviews.warmAfterCommit(stored);
         OffsetDateTime now = OffsetDateTime.now();
 
         LocalDate inspection = data.inspectionDate;
@@ -4,8 +4,13 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.OffsetDateTime;
 import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -21,6 +26,9 @@ import com.example.demo.repository.TransportVehicleTaxPaymentRepository;
 @Service
 public class TransportVehicleService {
 
+    // ids per IN (...) query, well under the driver's bind parameter limit
+    private static final int IN_BATCH = 1000;
+
     private final TransportVehicleRepository vehicleRepo;
     private final TransportVehicleTaxPaymentRepository taxRepo;
 
@@ -43,6 +51,34 @@ public class TransportVehicleService {
         return taxRepo.findAllByVehicleIdOrderByTaxYearDesc(vehicleId);
     }
 
+    /** tax payments of all given vehicles, newest year first, in one query */
+    public Map<UUID, List<TransportVehicleTaxPayment>> listTaxPayments(Collection<TransportVehicle> vehicles) {
+        return loadByVehicle(vehicles, taxRepo::findAllByVehicleIdInOrderByTaxYearDesc,
+                TransportVehicleTaxPayment::getVehicleId);
+    }
+
+    /**
+     * Batch-loads per-vehicle children (tax payments, vignettes, ...) with {@code vehicle_id IN (...)} queries
+     * instead of one query per vehicle, and groups them by vehicle id in the loader's order. Every vehicle
+     * gets an entry, empty when it has no children.
+     */
+    public static <C> Map<UUID, List<C>> loadByVehicle(Collection<TransportVehicle> vehicles,
+                                                       Function<Collection<UUID>, List<C>> loader,
+                                                       Function<C, UUID> vehicleIdOf) {
+        Map<UUID, List<C>> byVehicle = new HashMap<>();
+        for (TransportVehicle v : vehicles) byVehicle.put(v.getId(), new ArrayList<>());
+        if (byVehicle.isEmpty()) return byVehicle;
+
+        List<UUID> ids = new ArrayList<>(byVehicle.keySet());
+        for (int from = 0; from < ids.size(); from += IN_BATCH) {
+            for (C child : loader.apply(ids.subList(from, Math.min(ids.size(), from + IN_BATCH)))) {
+                List<C> list = byVehicle.get(vehicleIdOf.apply(child));
+                if (list != null) list.add(child);
+            }
+        }
+        return byVehicle;
+    }
+
     @Transactional
     public TransportVehicleTaxPayment payAnnualTax(UUID userId, UUID vehicleId, Integer taxYear) {
         TransportVehicle v = getMine(userId, vehicleId);
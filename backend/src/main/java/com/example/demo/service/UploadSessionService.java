@@ -0,0 +1,493 @@
+package com.example.demo.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.LENGTH_REQUIRED;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PAYLOAD_TOO_LARGE;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resumable uploads: create a session with the declared size, PUT the bytes in chunks at increasing offsets
+ * (a dropped connection keeps whatever arrived; GET the session to see where to resume), then complete it.
+ * The upload id is accepted by the request endpoints in place of the inline file part (see
+ * {@link #fileOrUpload}), and goes through the same validation and staging as a multipart file.
+ *
+ * Sessions live on disk under app.uploads.dir, one directory per upload: {@code data} (the bytes so far)
+ * and {@code session.properties} (owner, name, sizes, final sha256). The SHA-256 is computed incrementally
+ * as chunks arrive; after a restart it is rebuilt once from {@code data}. The directory is on the storage
+ * root's filesystem, so staging a completed upload is a hard link, not a copy.
+ *
+ * Sessions are node-local: chunks of one upload must reach the same node (or app.uploads.dir must be shared).
+ * Untouched sessions are removed after app.uploads.session-ttl, and an owner can hold at most
+ * app.uploads.max-sessions-per-owner of them at a time (completed ones included, they still hold their bytes).
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private static final String DATA_FILE = "data";
+    private static final String META_FILE = "session.properties";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path dir;
+    private final long maxChunkBytes;
+    private final Duration sessionTtl;
+    private final int maxSessionsPerOwner;
+
+    // open sessions of this node; also the per-session lock
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+    // makes the per-owner count and the new session one step
+    private final Object createLock = new Object();
+
+    public UploadSessionService(@Value("${app.uploads.dir:${app.storage.root:uploads}/upload-sessions}") String dir,
+                                @Value("${app.uploads.max-chunk-bytes:8388608}") long maxChunkBytes,
+                                @Value("${app.uploads.session-ttl:PT24H}") Duration sessionTtl,
+                                @Value("${app.uploads.max-sessions-per-owner:10}") int maxSessionsPerOwner) {
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.maxChunkBytes = maxChunkBytes;
+        this.sessionTtl = sessionTtl;
+        this.maxSessionsPerOwner = maxSessionsPerOwner;
+        try {
+            Files.createDirectories(this.dir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create upload session directory: " + this.dir, e);
+        }
+    }
+
+    /**
+     * Snapshot of a session for the API.
+     */
+    public record UploadStatus(UUID uploadId, String fileName, String contentType, long totalBytes,
+                               long receivedBytes, String sha256, OffsetDateTime expiresAt) {
+        public boolean completed() {
+            return sha256 != null;
+        }
+    }
+
+    public UploadStatus create(UUID ownerUserId, String fileName, String contentType, long totalBytes) {
+        if (totalBytes <= 0) throw new ResponseStatusException(BAD_REQUEST, "UPLOAD_SIZE_REQUIRED");
+        if (totalBytes > Math.max(FileStorageService.MAX_IMAGE_BYTES, FileStorageService.MAX_PDF_BYTES)) {
+            throw new ResponseStatusException(BAD_REQUEST, "UPLOAD_TOO_LARGE_MAX_25MB");
+        }
+
+        Session s = new Session(UUID.randomUUID(), ownerUserId, fileName, contentType, totalBytes);
+        synchronized (createLock) {
+            // each session may hold up to 25 MB on disk until it is used, discarded or expires
+            if (sessionsOf(ownerUserId) >= maxSessionsPerOwner) {
+                throw new ResponseStatusException(CONFLICT, "TOO_MANY_UPLOADS");
+            }
+            try {
+                Files.createDirectory(sessionDir(s.id));
+                Files.createFile(sessionDir(s.id).resolve(DATA_FILE));
+                s.digest = newSha256();
+                save(s);
+            } catch (IOException e) {
+                log.warn("Cannot create upload session {}: {}", s.id, e.getMessage());
+                throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+            }
+            sessions.put(s.id, s);
+        }
+        return s.status(sessionTtl);
+    }
+
+    public UploadStatus status(UUID ownerUserId, UUID uploadId) {
+        Session s = session(ownerUserId, uploadId);
+        synchronized (s) {
+            return s.status(sessionTtl);
+        }
+    }
+
+    /**
+     * Appends {@code length} bytes at {@code offset}, which must be the number of bytes received so far
+     * (409 UPLOAD_OFFSET_MISMATCH otherwise). If the body ends early, what did arrive is kept.
+     */
+    public UploadStatus append(UUID ownerUserId, UUID uploadId, long offset, long length, InputStream body) {
+        if (length < 0) throw new ResponseStatusException(LENGTH_REQUIRED, "CONTENT_LENGTH_REQUIRED");
+        if (length > maxChunkBytes) throw new ResponseStatusException(PAYLOAD_TOO_LARGE, "UPLOAD_CHUNK_TOO_LARGE");
+
+        Session s = session(ownerUserId, uploadId);
+        synchronized (s) {
+            if (s.sha256 != null) throw new ResponseStatusException(CONFLICT, "UPLOAD_ALREADY_COMPLETED");
+            if (offset != s.received) throw new ResponseStatusException(CONFLICT, "UPLOAD_OFFSET_MISMATCH");
+            if (offset + length > s.totalBytes) {
+                throw new ResponseStatusException(BAD_REQUEST, "UPLOAD_EXCEEDS_DECLARED_SIZE");
+            }
+
+            MessageDigest digest = digest(s);
+            IOException readFailure = null;
+            try (FileChannel ch = FileChannel.open(sessionDir(s.id).resolve(DATA_FILE), StandardOpenOption.WRITE)) {
+                ch.position(offset);
+                byte[] buf = new byte[BUFFER_BYTES];
+                long remaining = length;
+                while (remaining > 0) {
+                    int r;
+                    try {
+                        r = body.read(buf, 0, (int) Math.min(buf.length, remaining));
+                    } catch (IOException e) {
+                        // client went away mid-chunk: keep what arrived
+                        readFailure = e;
+                        break;
+                    }
+                    if (r == -1) break;
+                    ByteBuffer bb = ByteBuffer.wrap(buf, 0, r);
+                    while (bb.hasRemaining()) ch.write(bb);
+                    digest.update(buf, 0, r);
+                    remaining -= r;
+                    s.received += r;
+                }
+                ch.force(false);
+                save(s);
+            } catch (IOException e) {
+                // our own write failed: the digest no longer matches, rebuild it from what is on disk
+                s.digest = null;
+                s.received = offset;
+                log.warn("Cannot write chunk of upload {}: {}", s.id, e.getMessage());
+                throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+            }
+            if (readFailure != null) {
+                log.debug("Upload {} chunk interrupted at {}: {}", s.id, s.received, readFailure.getMessage());
+            }
+            return s.status(sessionTtl);
+        }
+    }
+
+    /**
+     * Seals the upload once all declared bytes are in. With {@code expectedSha256} the client can check
+     * that the server saw the same bytes (409 UPLOAD_CHECKSUM_MISMATCH).
+     */
+    public UploadStatus complete(UUID ownerUserId, UUID uploadId, String expectedSha256) {
+        Session s = session(ownerUserId, uploadId);
+        synchronized (s) {
+            if (s.sha256 == null) {
+                if (s.received != s.totalBytes) throw new ResponseStatusException(CONFLICT, "UPLOAD_INCOMPLETE");
+                String sha256 = HexFormat.of().formatHex(digest(s).digest());
+                s.digest = null;
+                s.sha256 = sha256;
+                try {
+                    save(s);
+                } catch (IOException e) {
+                    s.sha256 = null;
+                    throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+                }
+            }
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(s.sha256)) {
+                throw new ResponseStatusException(CONFLICT, "UPLOAD_CHECKSUM_MISMATCH");
+            }
+            return s.status(sessionTtl);
+        }
+    }
+
+    /**
+     * Removes the session and its bytes. A no-op for {@code null} or an unknown id.
+     */
+    public void discard(UUID ownerUserId, UUID uploadId) {
+        if (uploadId == null) return;
+        Session s = load(uploadId);
+        if (s == null || !s.ownerUserId.equals(ownerUserId)) return;
+        synchronized (s) {
+            sessions.remove(uploadId);
+            deleteDir(sessionDir(uploadId));
+        }
+    }
+
+    /**
+     * The file of a request endpoint: the inline multipart part, or the completed upload {@code uploadId}.
+     * Exactly one of them must be given (the services still answer a missing file with their own error).
+     */
+    public MultipartFile fileOrUpload(UUID ownerUserId, MultipartFile inline, UUID uploadId) {
+        if (uploadId == null) return inline;
+        if (inline != null && !inline.isEmpty()) {
+            throw new ResponseStatusException(BAD_REQUEST, "EITHER_FILE_OR_UPLOAD_ID");
+        }
+        Session s = session(ownerUserId, uploadId);
+        synchronized (s) {
+            if (s.sha256 == null) throw new ResponseStatusException(CONFLICT, "UPLOAD_NOT_COMPLETED");
+            return new CompletedUpload(sessionDir(s.id).resolve(DATA_FILE), s.fileName, s.contentType,
+                    s.totalBytes, s.sha256);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.uploads.cleanup-interval:PT30M}",
+               fixedDelayString = "${app.uploads.cleanup-interval:PT30M}")
+    public void removeExpired() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) {
+                UUID id;
+                try {
+                    id = UUID.fromString(p.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                try {
+                    Path meta = p.resolve(META_FILE);
+                    Path touched = Files.exists(meta) ? meta : p;
+                    if (Files.getLastModifiedTime(touched).toInstant().isBefore(cutoff)) {
+                        sessions.remove(id);
+                        deleteDir(p);
+                    }
+                } catch (IOException e) {
+                    // removed concurrently
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot scan upload sessions in {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /** sessions of the owner on disk, including ones not loaded since a restart */
+    private int sessionsOf(UUID ownerUserId) {
+        int n = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) {
+                UUID id;
+                try {
+                    id = UUID.fromString(p.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                Session s = load(id);
+                if (s != null && s.ownerUserId.equals(ownerUserId)) n++;
+            }
+        } catch (IOException e) {
+            log.warn("Cannot scan upload sessions in {}: {}", dir, e.getMessage());
+            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+        }
+        return n;
+    }
+
+    private Session session(UUID ownerUserId, UUID uploadId) {
+        Session s = load(uploadId);
+        // someone else's upload is indistinguishable from a missing one
+        if (s == null || !s.ownerUserId.equals(ownerUserId)) {
+            throw new ResponseStatusException(NOT_FOUND, "UPLOAD_NOT_FOUND");
+        }
+        return s;
+    }
+
+    private Session load(UUID uploadId) {
+        return sessions.computeIfAbsent(uploadId, id -> {
+            Path meta = sessionDir(id).resolve(META_FILE);
+            if (!Files.isRegularFile(meta)) return null;
+            Properties p = new Properties();
+            try (Reader r = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                p.load(r);
+                Session s = new Session(id, UUID.fromString(p.getProperty("owner")), p.getProperty("fileName"),
+                        p.getProperty("contentType"), Long.parseLong(p.getProperty("totalBytes")));
+                s.received = Long.parseLong(p.getProperty("receivedBytes"));
+                s.sha256 = p.getProperty("sha256");
+                // bytes written after the last save (crash mid-chunk) are not accounted for: drop them
+                try (FileChannel ch = FileChannel.open(sessionDir(id).resolve(DATA_FILE), StandardOpenOption.WRITE)) {
+                    if (ch.size() > s.received) ch.truncate(s.received);
+                }
+                return s;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot load upload session {}: {}", id, e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    /** the running digest, rebuilt from the bytes on disk after a restart */
+    private MessageDigest digest(Session s) {
+        if (s.digest != null) return s.digest;
+        MessageDigest digest = newSha256();
+        try (InputStream in = Files.newInputStream(sessionDir(s.id).resolve(DATA_FILE))) {
+            byte[] buf = new byte[BUFFER_BYTES];
+            long remaining = s.received;
+            int r;
+            while (remaining > 0 && (r = in.read(buf, 0, (int) Math.min(buf.length, remaining))) != -1) {
+                digest.update(buf, 0, r);
+                remaining -= r;
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(INTERNAL_SERVER_ERROR, "FAILED_TO_STORE_FILE");
+        }
+        s.digest = digest;
+        return digest;
+    }
+
+    private void save(Session s) throws IOException {
+        Properties p = new Properties();
+        p.setProperty("owner", s.ownerUserId.toString());
+        if (s.fileName != null) p.setProperty("fileName", s.fileName);
+        if (s.contentType != null) p.setProperty("contentType", s.contentType);
+        p.setProperty("totalBytes", Long.toString(s.totalBytes));
+        p.setProperty("receivedBytes", Long.toString(s.received));
+        if (s.sha256 != null) p.setProperty("sha256", s.sha256);
+
+        Path meta = sessionDir(s.id).resolve(META_FILE);
+        Path tmp = meta.resolveSibling(META_FILE + ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            p.store(w, null);
+        }
+        Files.move(tmp, meta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path sessionDir(UUID uploadId) {
+        return dir.resolve(uploadId.toString());
+    }
+
+    private static void deleteDir(Path p) {
+        try (Stream<Path> files = Files.walk(p)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> {
+                try {
+                    Files.deleteIfExists(f);
+                } catch (IOException ignored) {
+                    // retried by the next cleanup
+                }
+            });
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Session {
+        final UUID id;
+        final UUID ownerUserId;
+        final String fileName;
+        final String contentType;
+        final long totalBytes;
+        long received;
+        String sha256;
+        // null until first needed after a restart, and after completion
+        MessageDigest digest;
+
+        Session(UUID id, UUID ownerUserId, String fileName, String contentType, long totalBytes) {
+            this.id = id;
+            this.ownerUserId = ownerUserId;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.totalBytes = totalBytes;
+        }
+
+        UploadStatus status(Duration ttl) {
+            return new UploadStatus(id, fileName, contentType, totalBytes, received, sha256,
+                    OffsetDateTime.now(ZoneOffset.UTC).plus(ttl));
+        }
+    }
+
+    /**
+     * A completed upload presented as the multipart file it replaces. Its SHA-256 is already known, so
+     * FileStorageService does not hash it again, and transferTo hard-links instead of copying.
+     */
+    public static final class CompletedUpload implements MultipartFile {
+
+        private final Path data;
+        private final String originalFilename;
+        private final String contentType;
+        private final long size;
+        private final String sha256;
+
+        CompletedUpload(Path data, String originalFilename, String contentType, long size, String sha256) {
+            this.data = data;
+            this.originalFilename = originalFilename;
+            this.contentType = contentType;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public String sha256() {
+            return sha256;
+        }
+
+        @Override
+        public String getName() {
+            return "upload";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return originalFilename;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(data);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(data);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            transferTo(dest.toPath());
+        }
+
+        @Override
+        public void transferTo(Path dest) throws IOException {
+            Files.deleteIfExists(dest);
+            try {
+                Files.createLink(dest, data);
+            } catch (FileAlreadyExistsException e) {
+                throw e;
+            } catch (IOException | UnsupportedOperationException e) {
+                // other filesystem (app.uploads.dir moved off the storage root)
+                Files.copy(data, dest, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.web;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -7,8 +8,11 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.security.LoginThrottle;
 import com.example.demo.service.AdminAuthService;
+import com.example.demo.service.RetryLaterException;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -16,13 +20,20 @@ import jakarta.validation.Valid;
 public class AdminAuthController {
 
     private final AdminAuthService adminAuthService;
+    private final LoginThrottle loginThrottle;
 
-    public AdminAuthController(AdminAuthService adminAuthService) {
+    public AdminAuthController(AdminAuthService adminAuthService, LoginThrottle loginThrottle) {
         this.adminAuthService = adminAuthService;
+        this.loginThrottle = loginThrottle;
     }
 
     @PostMapping("/login")
-    public AuthResponse login(@Valid @RequestBody LoginRequest req) {
+    public AuthResponse login(@Valid @RequestBody LoginRequest req, HttpServletRequest request) {
+        // reject retry storms before the DB lookup and BCrypt
+        long retryAfter = loginThrottle.tryAcquire("admin", req.identifier, request.getRemoteAddr());
+        if (retryAfter > 0) {
+            throw new RetryLaterException(HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_LOGIN_ATTEMPTS", retryAfter);
+        }
         return adminAuthService.login(req);
     }
 }
@@ -1,6 +1,8 @@
 package com.example.demo.web;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -13,12 +15,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.domain.DocumentRequest;
+import com.example.demo.domain.DocumentRequestKind;
 import com.example.demo.domain.DocumentRequestStatus;
 import com.example.demo.domain.User;
 import com.example.demo.dto.DocumentRequestResponse;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.AdminPrincipal;
 import com.example.demo.service.AdminDocumentRequestService;
+import com.example.demo.service.RequestPages;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/admin/document-requests")
@@ -33,12 +39,18 @@ public class AdminDocumentRequestsController {
     }
 
     @GetMapping
-    public List<DocumentRequestResponse> list(@RequestParam(required = false) DocumentRequestStatus status) {
-        List<DocumentRequest> list = adminService.listAllNonRejected();
-        if (status != null) {
-            list = list.stream().filter(r -> r.getStatus() == status).toList();
-        }
-        return list.stream().map(this::toDto).toList();
+    public List<DocumentRequestResponse> list(@RequestParam(required = false) DocumentRequestStatus status,
+                                              @RequestParam(required = false) DocumentRequestKind kind,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit,
+                                              HttpServletResponse response) {
+        RequestPages.Page<DocumentRequest> page = adminService.list(status, kind, cursor, limit);
+        if (page.nextCursor() != null) response.setHeader(RequestPages.NEXT_CURSOR_HEADER, page.nextCursor());
+
+        Map<UUID, User> users = new HashMap<>();
+        userRepo.findAllById(page.items().stream().map(DocumentRequest::getUserId).distinct().toList())
+                .forEach(u -> users.put(u.getId(), u));
+        return page.items().stream().map(r -> toDto(r, users.get(r.getUserId()))).toList();
     }
 
     @GetMapping("/{id}")
@@ -67,6 +79,10 @@ public class AdminDocumentRequestsController {
     }
 
     private DocumentRequestResponse toDto(DocumentRequest r) {
+        return toDto(r, userRepo.findById(r.getUserId()).orElse(null));
+    }
+
+    private DocumentRequestResponse toDto(DocumentRequest r, User u) {
         DocumentRequestResponse dto = new DocumentRequestResponse();
         dto.id = r.getId();
         dto.userId = r.getUserId();
@@ -81,7 +97,6 @@ public class AdminDocumentRequestsController {
         dto.createdAt = r.getCreatedAt();
         dto.updatedAt = r.getUpdatedAt();
 
-        User u = userRepo.findById(r.getUserId()).orElse(null);
         if (u != null) {
             dto.userEgn = u.getEgn();
             dto.userFullName = u.getFullName();
@@ -0,0 +1,64 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.springframework.http.HttpHeaders;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.service.FileBundleService;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admin-only ZIP downloads of several files at once, streamed as they are read (no Content-Length).
+ */
+@RestController
+@RequestMapping("/api/admin/files/bundle")
+public class AdminFileBundlesController {
+
+    private final FileBundleService bundles;
+
+    public AdminFileBundlesController(FileBundleService bundles) {
+        this.bundles = bundles;
+    }
+
+    /**
+     * All files linked to an entity, e.g. ?entityType=PROPERTY_REQUEST&entityId=... or entityType=USER
+     * for a registration.
+     */
+    @GetMapping
+    public void entityBundle(@RequestParam String entityType,
+                             @RequestParam UUID entityId,
+                             HttpServletResponse response) throws IOException {
+        if (!entityType.matches("[A-Z_]{1,40}")) throw new ResponseStatusException(BAD_REQUEST, "INVALID_ENTITY_TYPE");
+        send(bundles.linkedTo(entityType, entityId),
+                entityType.toLowerCase(Locale.ROOT) + "-" + entityId + ".zip", response);
+    }
+
+    /**
+     * All files uploaded by a user (compliance export).
+     */
+    @GetMapping("/users/{userId}")
+    public void userBundle(@PathVariable UUID userId, HttpServletResponse response) throws IOException {
+        send(bundles.ownedBy(userId), "user-" + userId + "-files.zip", response);
+    }
+
+    private void send(List<FileBundleService.BundleEntry> entries, String filename,
+                      HttpServletResponse response) throws IOException {
+        // a missing file is a plain 404, not an error body labelled as a zip attachment
+        List<FileBundleService.ResolvedEntry> resolved = bundles.resolve(entries);
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        bundles.write(resolved, response.getOutputStream());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.web;
+
+import java.util.UUID;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.dto.SignedUrlResponse;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.security.SignedUrlService;
+
+@RestController
+@RequestMapping("/api/admin/files")
+public class AdminFileUrlsController {
+
+    private final FileRepository fileRepository;
+    private final SignedUrlService signedUrls;
+
+    public AdminFileUrlsController(FileRepository fileRepository, SignedUrlService signedUrls) {
+        this.fileRepository = fileRepository;
+        this.signedUrls = signedUrls;
+    }
+
+    /**
+     * Short-lived URL for any file (review screens embed previews with it).
+     */
+    @GetMapping("/{id}/signed-url")
+    public SignedUrlResponse signedUrl(@PathVariable UUID id) {
+        AppFile f = fileRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
+        return FileUrlsController.toDto(signedUrls.sign(f));
+    }
+}
@@ -1,13 +1,11 @@
 package com.example.demo.web;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import static org.springframework.http.HttpStatus.NOT_FOUND;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -16,18 +14,21 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AppFile;
 import com.example.demo.domain.HealthRequest;
+import com.example.demo.domain.HealthRequestKind;
 import com.example.demo.domain.HealthRequestStatus;
 import com.example.demo.domain.User;
 import com.example.demo.dto.HealthRequestResponse;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.AdminPrincipal;
 import com.example.demo.service.AdminHealthRequestService;
-import com.example.demo.service.FileStorageService;
 import com.example.demo.service.HealthReferralService;
+import com.example.demo.service.RequestPages;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/admin/health-requests")
@@ -35,24 +36,33 @@ public class AdminHealthRequestsController {
 
     private final AdminHealthRequestService adminService;
     private final UserRepository userRepository;
-    private final FileStorageService storage;
+    private final FileDownloadHandler downloads;
     private final HealthReferralService referralService;
 
     public AdminHealthRequestsController(AdminHealthRequestService adminService,
                                          UserRepository userRepository,
-                                         FileStorageService storage,
+                                         FileDownloadHandler downloads,
                                          HealthReferralService referralService) {
         this.adminService = adminService;
         this.userRepository = userRepository;
-        this.storage = storage;
+        this.downloads = downloads;
         this.referralService = referralService;
     }
 
     @GetMapping
     public List<HealthRequestResponse> list(@RequestParam(required = false) HealthRequestStatus status,
-                                           @AuthenticationPrincipal AdminPrincipal admin) {
-        List<HealthRequest> list = adminService.listAll(status == null ? null : status.name());
-        return list.stream().map(this::toDto).toList();
+                                            @RequestParam(required = false) HealthRequestKind kind,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit,
+                                            @AuthenticationPrincipal AdminPrincipal admin,
+                                            HttpServletResponse response) {
+        RequestPages.Page<HealthRequest> page = adminService.list(status, kind, cursor, limit);
+        if (page.nextCursor() != null) response.setHeader(RequestPages.NEXT_CURSOR_HEADER, page.nextCursor());
+
+        Map<UUID, User> users = new HashMap<>();
+        userRepository.findAllById(page.items().stream().map(HealthRequest::getUserId).distinct().toList())
+                .forEach(u -> users.put(u.getId(), u));
+        return page.items().stream().map(r -> toDto(r, users.get(r.getUserId()))).toList();
     }
 
     @GetMapping("/{id}")
@@ -87,44 +97,40 @@ public class AdminHealthRequestsController {
 
     // Files (Admin) for request
     @GetMapping("/{id}/booklet-image")
-    public ResponseEntity<Resource> bookletImage(@PathVariable UUID id, @AuthenticationPrincipal AdminPrincipal admin) {
+    public void bookletImage(@PathVariable UUID id, @AuthenticationPrincipal AdminPrincipal admin,
+                             @RequestParam(required = false) Integer size,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
         AppFile f = adminService.getRequestFile(id, AdminHealthRequestService.TAG_BOOKLET_IMAGE);
-        return serveFileInline(f);
+        downloads.serveImage(f, size, request, response);
     }
 
     @GetMapping("/{id}/referral/pdf")
-    public ResponseEntity<Resource> referralPdf(@PathVariable UUID id, @AuthenticationPrincipal AdminPrincipal admin) {
+    public void referralPdf(@PathVariable UUID id, @AuthenticationPrincipal AdminPrincipal admin,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AppFile f = adminService.getRequestFile(id, AdminHealthRequestService.TAG_REFERRAL_PDF);
+        serveFileInline(f, request, response);
+    }
+
+    @GetMapping("/{id}/referral/pdf/preview")
+    public void referralPdfPreview(@PathVariable UUID id, @AuthenticationPrincipal AdminPrincipal admin,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
         AppFile f = adminService.getRequestFile(id, AdminHealthRequestService.TAG_REFERRAL_PDF);
-        return serveFileInline(f);
+        downloads.servePdfPreview(f, request, response);
     }
 
     // Optional: direct referral PDF by referralId (Admin)
     @GetMapping("/referrals/{referralId}/pdf")
-    public ResponseEntity<Resource> referralPdfByReferralId(@PathVariable UUID referralId,
-                                                            @AuthenticationPrincipal AdminPrincipal admin) {
+    public void referralPdfByReferralId(@PathVariable UUID referralId,
+                                        @AuthenticationPrincipal AdminPrincipal admin,
+                                        HttpServletRequest request,
+                                        HttpServletResponse response) throws IOException {
         AppFile f = referralService.getReferralPdf(referralId);
-        return serveFileInline(f);
+        serveFileInline(f, request, response);
     }
 
-    private ResponseEntity<Resource> serveFileInline(AppFile f) {
-        if (f == null) throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
-
-        Resource res = storage.loadAsResource(f);
-
-        MediaType mt;
-        try { mt = MediaType.parseMediaType(f.getMimeType()); }
-        catch (Exception e) { mt = MediaType.APPLICATION_OCTET_STREAM; }
-
-        return ResponseEntity.ok()
-                .contentType(mt)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + safeFilename(f.getOriginalName()) + "\"")
-                .contentLength(f.getSizeBytes())
-                .body(res);
-    }
-
-    private static String safeFilename(String name) {
-        if (name == null || name.isBlank()) return "file";
-        return name.replace('"', '_');
+    private void serveFileInline(AppFile f,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        downloads.serve(f, request, response);
     }
 
     private static String pickNote(String noteParam, NoteBody body) {
@@ -135,9 +141,11 @@ public class AdminHealthRequestsController {
     }
 
     private HealthRequestResponse toDto(HealthRequest r) {
-        HealthRequestResponse dto = HealthRequestController.toDto(r);
+        return toDto(r, userRepository.findById(r.getUserId()).orElse(null));
+    }
 
-        User u = userRepository.findById(r.getUserId()).orElse(null);
+    private HealthRequestResponse toDto(HealthRequest r, User u) {
+        HealthRequestResponse dto = HealthRequestController.toDto(r);
         if (u != null) {
             dto.userEgn = u.getEgn();
             dto.userFullName = u.getFullName();
@@ -0,0 +1,29 @@
+package com.example.demo.web;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.security.LoginThrottle;
+
+@RestController
+@RequestMapping("/api/admin/login-throttle")
+public class AdminLoginThrottleController {
+
+    private final LoginThrottle loginThrottle;
+
+    public AdminLoginThrottleController(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    /**
+     * Identifiers / IPs with the most throttled login attempts (in this node's memory).
+     */
+    @GetMapping("/top")
+    public List<LoginThrottle.KeyStats> top(@RequestParam(defaultValue = "20") int limit) {
+        return loginThrottle.topRejected(Math.max(1, Math.min(limit, 200)));
+    }
+}
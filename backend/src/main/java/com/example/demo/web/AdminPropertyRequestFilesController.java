@@ -1,12 +1,9 @@
 package com.example.demo.web;
 
+import java.io.IOException;
 import java.util.UUID;
 
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -14,11 +11,11 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AppFile;
-import com.example.demo.domain.FileLink;
-import com.example.demo.repository.FileLinkRepository;
-import com.example.demo.repository.FileRepository;
 import com.example.demo.service.AdminPropertyRequestService;
-import com.example.demo.service.FileStorageService;
+import com.example.demo.service.FileServingService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Admin-only endpoints for previewing/downloading files attached to Property Requests.
@@ -29,55 +26,44 @@ import com.example.demo.service.FileStorageService;
 @RequestMapping("/api/admin/property-requests")
 public class AdminPropertyRequestFilesController {
 
-    private final FileLinkRepository fileLinkRepository;
-    private final FileRepository fileRepository;
-    private final FileStorageService fileStorageService;
+    private final FileServingService fileServing;
+    private final FileDownloadHandler downloads;
 
-    public AdminPropertyRequestFilesController(FileLinkRepository fileLinkRepository,
-                                              FileRepository fileRepository,
-                                              FileStorageService fileStorageService) {
-        this.fileLinkRepository = fileLinkRepository;
-        this.fileRepository = fileRepository;
-        this.fileStorageService = fileStorageService;
+    public AdminPropertyRequestFilesController(FileServingService fileServing,
+                                              FileDownloadHandler downloads) {
+        this.fileServing = fileServing;
+        this.downloads = downloads;
     }
 
     /**
      * Ownership document uploaded by the user for ADD_PROPERTY request.
      */
     @GetMapping("/{requestId}/ownership-doc")
-    public ResponseEntity<Resource> getOwnershipDoc(@PathVariable UUID requestId) {
-        return serveLinkedFile(AdminPropertyRequestService.ENTITY_TYPE_PROPERTY_REQUEST,
+    public void getOwnershipDoc(@PathVariable UUID requestId,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveLinkedFile(AdminPropertyRequestService.ENTITY_TYPE_PROPERTY_REQUEST,
                 requestId,
-                AdminPropertyRequestService.TAG_OWNERSHIP_DOC);
+                AdminPropertyRequestService.TAG_OWNERSHIP_DOC, request, response);
     }
 
-    private ResponseEntity<Resource> serveLinkedFile(String entityType, UUID entityId, String tag) {
-        FileLink link = fileLinkRepository
-                .findByEntityTypeAndEntityIdAndTag(entityType, entityId, tag)
+    /**
+     * PNG of the ownership document's first page (for scanning the review queue).
+     */
+    @GetMapping("/{requestId}/ownership-doc/preview")
+    public void getOwnershipDocPreview(@PathVariable UUID requestId,
+                                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AppFile file = fileServing.findLinked(AdminPropertyRequestService.ENTITY_TYPE_PROPERTY_REQUEST,
+                        requestId, AdminPropertyRequestService.TAG_OWNERSHIP_DOC)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_LINK_NOT_FOUND"));
 
-        AppFile file = fileRepository.findById(link.getFileId())
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
-
-        Resource resource = fileStorageService.loadAsResource(file);
-
-        MediaType mt;
-        try {
-            mt = MediaType.parseMediaType(file.getMimeType());
-        } catch (Exception e) {
-            mt = MediaType.APPLICATION_OCTET_STREAM;
-        }
-
-        return ResponseEntity.ok()
-                .contentType(mt)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "inline; filename=\"" + safeFilename(file.getOriginalName()) + "\"")
-                .contentLength(file.getSizeBytes())
-                .body(resource);
+        downloads.servePdfPreview(file, request, response);
     }
 
-    private static String safeFilename(String name) {
-        if (name == null || name.isBlank()) return "file";
-        return name.replace('"', '_');
+    private void serveLinkedFile(String entityType, UUID entityId, String tag,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AppFile file = fileServing.findLinked(entityType, entityId, tag)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_LINK_NOT_FOUND"));
+
+        downloads.serve(file, request, response);
     }
 }
@@ -1,6 +1,8 @@
 package com.example.demo.web;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.http.MediaType;
@@ -17,12 +19,16 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.demo.domain.PropertyRequest;
+import com.example.demo.domain.PropertyRequestKind;
 import com.example.demo.domain.PropertyRequestStatus;
 import com.example.demo.domain.User;
 import com.example.demo.dto.PropertyRequestResponse;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.AdminPrincipal;
 import com.example.demo.service.AdminPropertyRequestService;
+import com.example.demo.service.RequestPages;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/admin/property-requests")
@@ -37,12 +43,18 @@ public class AdminPropertyRequestsController {
     }
 
     @GetMapping
-    public List<PropertyRequestResponse> list(@RequestParam(required = false) PropertyRequestStatus status) {
-        List<PropertyRequest> list = adminService.listAllNonRejected();
-        if (status != null) {
-            list = list.stream().filter(r -> r.getStatus() == status).toList();
-        }
-        return list.stream().map(this::toDto).toList();
+    public List<PropertyRequestResponse> list(@RequestParam(required = false) PropertyRequestStatus status,
+                                              @RequestParam(required = false) PropertyRequestKind kind,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit,
+                                              HttpServletResponse response) {
+        RequestPages.Page<PropertyRequest> page = adminService.list(status, kind, cursor, limit);
+        if (page.nextCursor() != null) response.setHeader(RequestPages.NEXT_CURSOR_HEADER, page.nextCursor());
+
+        Map<UUID, User> users = new HashMap<>();
+        userRepository.findAllById(page.items().stream().map(PropertyRequest::getUserId).distinct().toList())
+                .forEach(u -> users.put(u.getId(), u));
+        return page.items().stream().map(r -> toDto(r, users.get(r.getUserId()))).toList();
     }
 
     @GetMapping("/{id}")
@@ -91,6 +103,10 @@ public class AdminPropertyRequestsController {
     }
 
     private PropertyRequestResponse toDto(PropertyRequest r) {
+        return toDto(r, userRepository.findById(r.getUserId()).orElse(null));
+    }
+
+    private PropertyRequestResponse toDto(PropertyRequest r, User u) {
         PropertyRequestResponse dto = new PropertyRequestResponse();
         dto.id = r.getId();
         dto.userId = r.getUserId();
@@ -104,7 +120,6 @@ public class AdminPropertyRequestsController {
         dto.createdAt = r.getCreatedAt();
         dto.updatedAt = r.getUpdatedAt();
 
-        User u = userRepository.findById(r.getUserId()).orElse(null);
         if (u != null) {
             dto.userEgn = u.getEgn();
             dto.userFullName = u.getFullName();
@@ -16,6 +16,9 @@ import com.example.demo.domain.AccountStatus;
 import com.example.demo.dto.AdminUserSummaryResponse;
 import com.example.demo.security.AdminPrincipal;
 import com.example.demo.service.AdminRegistrationService;
+import com.example.demo.service.RequestPages;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/admin/registrations")
@@ -28,8 +31,13 @@ public class AdminRegistrationsController {
     }
 
     @GetMapping
-    public List<AdminUserSummaryResponse> list(@RequestParam(defaultValue = "PENDING") AccountStatus status) {
-        return adminRegistrationService.list(status);
+    public List<AdminUserSummaryResponse> list(@RequestParam(defaultValue = "PENDING") AccountStatus status,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
+                                               HttpServletResponse response) {
+        RequestPages.Page<AdminUserSummaryResponse> page = adminRegistrationService.list(status, cursor, limit);
+        if (page.nextCursor() != null) response.setHeader(RequestPages.NEXT_CURSOR_HEADER, page.nextCursor());
+        return page.items();
     }
 
     @PatchMapping("/{id}/approve")
@@ -0,0 +1,130 @@
+package com.example.demo.web;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.domain.StorageJobState;
+import com.example.demo.dto.FileIntegrityFailureResponse;
+import com.example.demo.dto.StorageJobStatusResponse;
+import com.example.demo.service.FileStorageService;
+import com.example.demo.service.IntegrityScrubber;
+import com.example.demo.service.StorageGarbageCollector;
+import com.example.demo.service.StorageTieringService;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+public class AdminStorageController {
+
+    private final FileStorageService storage;
+    private final StorageGarbageCollector gc;
+    private final StorageTieringService tiering;
+    private final IntegrityScrubber scrubber;
+
+    public AdminStorageController(FileStorageService storage, StorageGarbageCollector gc, StorageTieringService tiering,
+                                  IntegrityScrubber scrubber) {
+        this.storage = storage;
+        this.gc = gc;
+        this.tiering = tiering;
+        this.scrubber = scrubber;
+    }
+
+    /**
+     * Moves one batch of small loose blobs into pack segments. Call again with after=nextAfter
+     * until nextAfter is null.
+     */
+    @PostMapping("/migrate-to-pack")
+    public FileStorageService.PackMigration migrateToPack(@RequestParam(required = false) String after,
+                                                          @RequestParam(defaultValue = "500") int limit) {
+        return storage.migrateToPack(after, Math.max(1, Math.min(limit, 5000)));
+    }
+
+    /**
+     * Progress and totals of the orphan GC jobs.
+     */
+    @GetMapping("/gc")
+    public List<StorageJobStatusResponse> gcStatus() {
+        return gc.status().stream().map(AdminStorageController::toResponse).toList();
+    }
+
+    /**
+     * Runs the orphan GC now instead of waiting for the next scheduled run.
+     */
+    @PostMapping("/gc/run")
+    public List<StorageJobStatusResponse> runGc() {
+        return gc.runNow().stream().map(AdminStorageController::toResponse).toList();
+    }
+
+    /**
+     * Progress and totals of the cold-tier job.
+     */
+    @GetMapping("/cold")
+    public StorageJobStatusResponse coldStatus() {
+        return toResponse(tiering.status());
+    }
+
+    /**
+     * Moves attachments of long-decided requests to the cold tier now.
+     */
+    @PostMapping("/cold/run")
+    public StorageJobStatusResponse runColdTiering() {
+        return toResponse(tiering.runNow());
+    }
+
+    /**
+     * Progress and totals of the integrity scrubber.
+     */
+    @GetMapping("/scrub")
+    public StorageJobStatusResponse scrubStatus() {
+        return toResponse(scrubber.status());
+    }
+
+    /**
+     * Runs the integrity scrubber now (still paced and yielding to downloads).
+     */
+    @PostMapping("/scrub/run")
+    public StorageJobStatusResponse runScrub() {
+        return toResponse(scrubber.runNow());
+    }
+
+    /**
+     * Files whose stored bytes did not match their sha256 when last verified, newest first.
+     */
+    @GetMapping("/scrub/failures")
+    public List<FileIntegrityFailureResponse> scrubFailures(@RequestParam(defaultValue = "100") int limit) {
+        return scrubber.failures(Math.max(1, Math.min(limit, 1000))).stream()
+                .map(AdminStorageController::toFailure)
+                .toList();
+    }
+
+    private static FileIntegrityFailureResponse toFailure(AppFile f) {
+        FileIntegrityFailureResponse r = new FileIntegrityFailureResponse();
+        r.fileId = f.getId();
+        r.ownerUserId = f.getOwnerUserId();
+        r.originalName = f.getOriginalName();
+        r.storageKey = f.getStorageKey();
+        r.sha256 = f.getSha256();
+        r.sizeBytes = f.getSizeBytes();
+        r.integrityError = f.getIntegrityError();
+        r.lastVerifiedAt = f.getLastVerifiedAt();
+        return r;
+    }
+
+    private static StorageJobStatusResponse toResponse(StorageJobState s) {
+        StorageJobStatusResponse r = new StorageJobStatusResponse();
+        r.job = s.getJob();
+        r.cursor = s.getCursor();
+        r.passCount = s.getPassCount();
+        r.processedCount = s.getProcessedCount();
+        r.reclaimedBytes = s.getReclaimedBytes();
+        r.errorCount = s.getErrorCount();
+        r.lastPassFinishedAt = s.getLastPassFinishedAt();
+        r.updatedAt = s.getUpdatedAt();
+        return r;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo.web;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -13,12 +15,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.domain.TransportVehicleRequest;
+import com.example.demo.domain.TransportVehicleRequestKind;
 import com.example.demo.domain.TransportVehicleRequestStatus;
 import com.example.demo.domain.User;
 import com.example.demo.dto.TransportVehicleRequestResponse;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.AdminPrincipal;
 import com.example.demo.service.AdminTransportRequestService;
+import com.example.demo.service.RequestPages;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/admin/transport-requests")
@@ -33,12 +39,18 @@ public class AdminTransportRequestsController {
     }
 
     @GetMapping
-    public List<TransportVehicleRequestResponse> list(@RequestParam(required = false) TransportVehicleRequestStatus status) {
-        List<TransportVehicleRequest> list = adminService.listAllNonRejected();
-        if (status != null) {
-            list = list.stream().filter(r -> r.getStatus() == status).toList();
-        }
-        return list.stream().map(this::toDto).toList();
+    public List<TransportVehicleRequestResponse> list(@RequestParam(required = false) TransportVehicleRequestStatus status,
+                                                      @RequestParam(required = false) TransportVehicleRequestKind kind,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      HttpServletResponse response) {
+        RequestPages.Page<TransportVehicleRequest> page = adminService.list(status, kind, cursor, limit);
+        if (page.nextCursor() != null) response.setHeader(RequestPages.NEXT_CURSOR_HEADER, page.nextCursor());
+
+        Map<UUID, User> users = new HashMap<>();
+        userRepo.findAllById(page.items().stream().map(TransportVehicleRequest::getUserId).distinct().toList())
+                .forEach(u -> users.put(u.getId(), u));
+        return page.items().stream().map(r -> toDto(r, users.get(r.getUserId()))).toList();
     }
 
     @GetMapping("/{id}")
@@ -67,6 +79,10 @@ public class AdminTransportRequestsController {
     }
 
     private TransportVehicleRequestResponse toDto(TransportVehicleRequest r) {
+        return toDto(r, userRepo.findById(r.getUserId()).orElse(null));
+    }
+
+    private TransportVehicleRequestResponse toDto(TransportVehicleRequest r, User u) {
         TransportVehicleRequestResponse dto = new TransportVehicleRequestResponse();
         dto.id = r.getId();
         dto.userId = r.getUserId();
@@ -82,7 +98,6 @@ public class AdminTransportRequestsController {
         dto.createdAt = r.getCreatedAt();
         dto.updatedAt = r.getUpdatedAt();
 
-        User u = userRepo.findById(r.getUserId()).orElse(null);
         if (u != null) {
             dto.userEgn = u.getEgn();
             dto.userFullName = u.getFullName();
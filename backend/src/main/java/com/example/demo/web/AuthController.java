@@ -1,5 +1,6 @@
 package com.example.demo.web;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -11,8 +12,11 @@ import org.springframework.web.multipart.MultipartFile;
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.RegisterRequest;
+import com.example.demo.security.LoginThrottle;
 import com.example.demo.service.AuthService;
+import com.example.demo.service.RetryLaterException;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -20,9 +24,11 @@ import jakarta.validation.Valid;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, LoginThrottle loginThrottle) {
         this.authService = authService;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
@@ -40,7 +46,12 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public AuthResponse login(@Valid @RequestBody LoginRequest req) {
+    public AuthResponse login(@Valid @RequestBody LoginRequest req, HttpServletRequest request) {
+        // reject retry storms before the DB lookup and BCrypt
+        long retryAfter = loginThrottle.tryAcquire("user", req.identifier, request.getRemoteAddr());
+        if (retryAfter > 0) {
+            throw new RetryLaterException(HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_LOGIN_ATTEMPTS", retryAfter);
+        }
         return authService.loginUser(req);
     }
 }
@@ -1,12 +1,9 @@
 package com.example.demo.web;
 
+import java.io.IOException;
 import java.util.UUID;
 
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,14 +14,14 @@ import org.springframework.web.server.ResponseStatusException;
 import com.example.demo.domain.AppFile;
 import com.example.demo.domain.Document;
 import com.example.demo.domain.DocumentRequest;
-import com.example.demo.domain.FileLink;
 import com.example.demo.repository.DocumentRepository;
 import com.example.demo.repository.DocumentRequestRepository;
-import com.example.demo.repository.FileLinkRepository;
-import com.example.demo.repository.FileRepository;
 import com.example.demo.security.UserPrincipal;
 import com.example.demo.service.DocumentRequestService;
-import com.example.demo.service.FileStorageService;
+import com.example.demo.service.FileServingService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api")
@@ -33,76 +30,60 @@ public class DocumentFilesController {
     private final DocumentRepository documentRepo;
     private final DocumentRequestRepository requestRepo;
 
-    private final FileLinkRepository fileLinkRepo;
-    private final FileRepository fileRepo;
-    private final FileStorageService storage;
+    private final FileServingService fileServing;
+    private final FileDownloadHandler downloads;
 
     public DocumentFilesController(DocumentRepository documentRepo,
                                    DocumentRequestRepository requestRepo,
-                                   FileLinkRepository fileLinkRepo,
-                                   FileRepository fileRepo,
-                                   FileStorageService storage) {
+                                   FileServingService fileServing,
+                                   FileDownloadHandler downloads) {
         this.documentRepo = documentRepo;
         this.requestRepo = requestRepo;
-        this.fileLinkRepo = fileLinkRepo;
-        this.fileRepo = fileRepo;
-        this.storage = storage;
+        this.fileServing = fileServing;
+        this.downloads = downloads;
     }
 
     // ---- approved documents ----
 
     @GetMapping("/documents/{id}/photo-1")
-    public ResponseEntity<Resource> docPhoto1(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void docPhoto1(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
         Document d = documentRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "DOCUMENT_NOT_FOUND"));
-        return serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT, d.getId(), DocumentRequestService.TAG_PHOTO_1);
+        serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT, d.getId(), DocumentRequestService.TAG_PHOTO_1, request, response);
     }
 
     @GetMapping("/documents/{id}/photo-2")
-    public ResponseEntity<Resource> docPhoto2(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void docPhoto2(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
         Document d = documentRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "DOCUMENT_NOT_FOUND"));
-        return serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT, d.getId(), DocumentRequestService.TAG_PHOTO_2);
+        serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT, d.getId(), DocumentRequestService.TAG_PHOTO_2, request, response);
     }
 
     // ---- requests ----
 
     @GetMapping("/document-requests/{id}/photo-1")
-    public ResponseEntity<Resource> reqPhoto1(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void reqPhoto1(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
         DocumentRequest r = requestRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
-        return serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT_REQUEST, r.getId(), DocumentRequestService.TAG_PHOTO_1);
+        serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT_REQUEST, r.getId(), DocumentRequestService.TAG_PHOTO_1, request, response);
     }
 
     @GetMapping("/document-requests/{id}/photo-2")
-    public ResponseEntity<Resource> reqPhoto2(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void reqPhoto2(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
         DocumentRequest r = requestRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
-        return serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT_REQUEST, r.getId(), DocumentRequestService.TAG_PHOTO_2);
+        serveLinked(DocumentRequestService.ENTITY_TYPE_DOCUMENT_REQUEST, r.getId(), DocumentRequestService.TAG_PHOTO_2, request, response);
     }
 
-    private ResponseEntity<Resource> serveLinked(String entityType, UUID entityId, String tag) {
-        FileLink link = fileLinkRepo.findByEntityTypeAndEntityIdAndTag(entityType, entityId, tag)
+    private void serveLinked(String entityType, UUID entityId, String tag,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AppFile f = fileServing.findLinked(entityType, entityId, tag)
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_LINK_NOT_FOUND"));
 
-        AppFile f = fileRepo.findById(link.getFileId())
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
-
-        Resource res = storage.loadAsResource(f);
-
-        MediaType mt;
-        try { mt = MediaType.parseMediaType(f.getMimeType()); }
-        catch (Exception e) { mt = MediaType.APPLICATION_OCTET_STREAM; }
-
-        return ResponseEntity.ok()
-                .contentType(mt)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + safeFilename(f.getOriginalName()) + "\"")
-                .contentLength(f.getSizeBytes())
-                .body(res);
-    }
-
-    private static String safeFilename(String name) {
-        if (name == null || name.isBlank()) return "file";
-        return name.replace('"', '_');
+        downloads.serve(f, request, response);
     }
 }
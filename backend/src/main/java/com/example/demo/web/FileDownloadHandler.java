@@ -0,0 +1,379 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.service.FileStorageService;
+import com.example.demo.service.ImageDerivativeService;
+import com.example.demo.service.PdfPreviewService;
+import com.example.demo.service.StoredBytes;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Shared download path for all *FilesController endpoints.
+ *
+ * - Range / 206 Partial Content (single range) and If-Range, so PDF viewers can fetch pages lazily.
+ * - Zero-copy: on Tomcat NIO the bytes go out via sendfile (request attributes, like DefaultServlet);
+ *   otherwise FileChannel.transferTo into the response channel. Files in object storage or in the
+ *   compressed cold tier are streamed.
+ * - Conditional GET: strong ETag from the stored sha256 plus Last-Modified; If-None-Match /
+ *   If-Modified-Since are answered with 304 from the DB row alone, before the file is looked up on disk.
+ * - serveImage / servePdfPreview: cached previews for the admin review screens.
+ */
+@Component
+public class FileDownloadHandler {
+
+    // Tomcat sendfile contract (see org.apache.coyote.Constants / DefaultServlet)
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // below this, a plain write is cheaper than setting up sendfile (same threshold as DefaultServlet)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private final FileStorageService storage;
+    private final ImageDerivativeService derivatives;
+    private final PdfPreviewService pdfPreviews;
+    private final String immutableCacheControl;
+
+    public FileDownloadHandler(FileStorageService storage,
+                               ImageDerivativeService derivatives,
+                               PdfPreviewService pdfPreviews,
+                               @Value("${app.files.cache.immutable-max-age:PT5M}") Duration immutableMaxAge) {
+        this.storage = storage;
+        this.derivatives = derivatives;
+        this.pdfPreviews = pdfPreviews;
+        this.immutableCacheControl = "private, max-age=" + immutableMaxAge.toSeconds() + ", immutable";
+    }
+
+    public void serve(AppFile f, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (f == null) throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
+
+        Validators v = new Validators(etag(f), lastModified(f), cacheControl(f));
+        if (answeredNotModified(request, response, v)) return;
+
+        FileStorageService.Location location = storage.resolve(f);
+        Content content = location.streamed()
+                ? new Content(location, f.getSizeBytes())
+                : Content.of(location.local());
+        write(content, mediaType(f), f.getOriginalName(), v, request, response);
+    }
+
+    /**
+     * Images with ?size=: a downscaled JPEG preview (see ImageDerivativeService) with its own validator.
+     * Without size, for non-images and for images that cannot be decoded the original is served.
+     */
+    public void serveImage(AppFile f, Integer size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (f == null) throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
+        if (size == null) {
+            serve(f, request, response);
+            return;
+        }
+        ImageDerivativeService.checkSize(size);
+        if (!derivatives.supports(f)) {
+            serve(f, request, response);
+            return;
+        }
+
+        // the preview is a pure function of (content, size), so this is as strong as the original's ETag
+        Validators v = new Validators("\"" + f.getSha256() + "-" + size + "\"", lastModified(f), cacheControl(f));
+        if (answeredNotModified(request, response, v)) return;
+
+        Path preview = derivatives.get(f, size);
+        if (preview == null) {
+            serve(f, request, response);
+            return;
+        }
+        write(wholeFile(preview), MediaType.IMAGE_JPEG_VALUE, derivedFilename(f.getOriginalName(), "-" + size + ".jpg"), v,
+                request, response);
+    }
+
+    /**
+     * PNG of the first page of a PDF (see PdfPreviewService). 404 PREVIEW_NOT_AVAILABLE for other files
+     * and for PDFs that cannot be rendered (encrypted, broken).
+     */
+    public void servePdfPreview(AppFile f, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (f == null) throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
+        if (!pdfPreviews.supports(f)) throw new ResponseStatusException(NOT_FOUND, "PREVIEW_NOT_AVAILABLE");
+
+        Validators v = new Validators("\"" + f.getSha256() + "-page1\"", lastModified(f), cacheControl(f));
+        if (answeredNotModified(request, response, v)) return;
+
+        Path preview = pdfPreviews.get(f);
+        if (preview == null) throw new ResponseStatusException(NOT_FOUND, "PREVIEW_NOT_AVAILABLE");
+
+        write(wholeFile(preview), MediaType.IMAGE_PNG_VALUE, derivedFilename(f.getOriginalName(), "-page1.png"), v,
+                request, response);
+    }
+
+    /**
+     * 304 when the client's copy is current. Validators are only set on the response once it is known
+     * to be a 304 / 200 / 206, so an error (e.g. missing bytes) is never sent with Cache-Control.
+     */
+    private static boolean answeredNotModified(HttpServletRequest request, HttpServletResponse response, Validators v) {
+        if (!notModified(request, v.etag(), v.lastModified())) return false;
+        setValidators(response, v);
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return true;
+    }
+
+    private static void setValidators(HttpServletResponse response, Validators v) {
+        if (v.etag() != null) response.setHeader(HttpHeaders.ETAG, v.etag());
+        if (v.lastModified() != null) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, v.lastModified().toInstant().toEpochMilli());
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, v.cacheControl());
+    }
+
+    /**
+     * Writes the (range of the) content. Local bytes go out via sendfile / transferTo; pack records are a
+     * region of a segment file, so every position is relative to bytes.offset(). Remote files are streamed
+     * from a ranged GET, which is opened before any header is set so a missing object is still a clean 404.
+     */
+    private void write(Content content, String contentType, String filename, Validators v,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = content.length();
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), v.etag(), v.lastModified())) {
+            long[] range = parseRange(rangeHeader, length);
+            if (range == UNSATISFIABLE) {
+                setValidators(response, v);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setContentLength(0);
+                return;
+            }
+            if (range != null) {
+                start = range[0];
+                end = range[1];
+                partial = true;
+            }
+        }
+
+        long count = end - start + 1;
+        boolean bodyless = "HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0;
+
+        try (InputStream remote = bodyless || !content.location().streamed() ? null
+                : storage.open(content.location(), start, count)) {
+            setValidators(response, v);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + safeFilename(filename) + "\"");
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (partial) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            response.setContentLengthLong(count);
+
+            if (bodyless) return;
+            if (remote != null) {
+                remote.transferTo(response.getOutputStream());
+                return;
+            }
+            writeLocal(content.location().local(), start, count, request, response);
+        }
+    }
+
+    private static void writeLocal(StoredBytes bytes, long start, long count,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // Tomcat writes the bytes with sendfile after the handler returns; the body must stay empty
+            request.setAttribute(SENDFILE_FILENAME_ATTR, bytes.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, bytes.offset() + start);
+            request.setAttribute(SENDFILE_END_ATTR, bytes.offset() + start + count);
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(bytes.file(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = bytes.offset() + start;
+            long remaining = count;
+            while (remaining > 0) {
+                long n = in.transferTo(pos, remaining, out);
+                if (n <= 0) break;
+                pos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /**
+     * Strong validator: identical sha256 means identical bytes.
+     */
+    static String etag(AppFile f) {
+        return f.getSha256() == null ? null : "\"" + f.getSha256() + "\"";
+    }
+
+    static ZonedDateTime lastModified(AppFile f) {
+        return f.getCreatedAt() == null ? null
+                : f.getCreatedAt().atZoneSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    // ----- helpers -----
+
+    /**
+     * The URLs are entity-scoped (/properties/{id}/sketch/pdf) and a link can be re-pointed to another file,
+     * so even content-addressed files only get a bounded freshness window; within it the browser does not
+     * revalidate at all. Everything else is revalidated every time, which costs a 304 and no disk read.
+     */
+    private String cacheControl(AppFile f) {
+        if (FileStorageService.isContentAddressed(f) && f.getSha256() != null) return immutableCacheControl;
+        return "private, no-cache";
+    }
+
+    /**
+     * RFC 9110 13.2.2: If-None-Match wins; If-Modified-Since is only looked at when it is absent.
+     */
+    private static boolean notModified(HttpServletRequest request, String etag, ZonedDateTime lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return etag != null && etagListMatches(ifNoneMatch, etag);
+        }
+
+        if (lastModified == null) return false;
+        long since;
+        try {
+            since = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP dates have second precision; lastModified is already truncated
+        return since >= 0 && lastModified.toInstant().toEpochMilli() <= since;
+    }
+
+    /** weak comparison, as If-None-Match requires: W/"x" matches "x" */
+    private static boolean etagListMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*")) return true;
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    /**
+     * Parses a single "bytes=a-b" / "bytes=a-" / "bytes=-n" range.
+     * Returns null to ignore the header (malformed or multiple ranges -> full 200), UNSATISFIABLE for 416.
+     */
+    private static long[] parseRange(String header, long length) {
+        String h = header.trim();
+        if (!h.regionMatches(true, 0, "bytes=", 0, 6)) return null;
+        String spec = h.substring(6).trim();
+        if (spec.isEmpty() || spec.indexOf(',') >= 0) return null;
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+
+        try {
+            String a = spec.substring(0, dash).trim();
+            String b = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (a.isEmpty()) {
+                // suffix range: last n bytes
+                long n = Long.parseLong(b);
+                if (n <= 0) return UNSATISFIABLE;
+                start = Math.max(0, length - n);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(a);
+                if (b.isEmpty()) {
+                    end = length - 1;
+                } else {
+                    long last = Long.parseLong(b);
+                    // last < first is a syntactically invalid range: ignore the header
+                    if (last < start) return null;
+                    end = Math.min(last, length - 1);
+                }
+            }
+            if (start >= length || start > end) return UNSATISFIABLE;
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-Range: the range applies only if the client's validator still matches; otherwise send the full file.
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag, ZonedDateTime lm) {
+        if (ifRange == null || ifRange.isBlank()) return true;
+        String v = ifRange.trim();
+
+        if (v.startsWith("\"") || v.startsWith("W/")) {
+            // If-Range uses strong comparison, so a weak validator never matches
+            return etag != null && etag.equals(v);
+        }
+
+        if (lm == null) return false;
+        try {
+            ZonedDateTime since = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return since.toInstant().equals(lm.toInstant());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static Content wholeFile(Path path) throws IOException {
+        return Content.of(StoredBytes.wholeFile(path, Files.size(path)));
+    }
+
+    private static String mediaType(AppFile f) {
+        try {
+            return MediaType.parseMediaType(f.getMimeType()).toString();
+        } catch (Exception e) {
+            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+    }
+
+    private static String derivedFilename(String originalName, String suffix) {
+        String base = originalName == null || originalName.isBlank() ? "file" : originalName;
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) base = base.substring(0, dot);
+        return base + suffix;
+    }
+
+    private static String safeFilename(String name) {
+        if (name == null || name.isBlank()) return "file";
+        return name.replace('"', '_');
+    }
+
+    private record Validators(String etag, ZonedDateTime lastModified, String cacheControl) {}
+
+    /** local bytes, or a streamed location (object storage, gzip cold tier) read through FileStorageService.open */
+    private record Content(FileStorageService.Location location, long length) {
+        static Content of(StoredBytes local) {
+            return new Content(new FileStorageService.Location(null, local), local.length());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.web;
+
+import java.util.UUID;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.dto.SignedUrlResponse;
+import com.example.demo.repository.FileRepository;
+import com.example.demo.security.SignedUrlService;
+import com.example.demo.security.UserPrincipal;
+
+@RestController
+@RequestMapping("/api/files")
+public class FileUrlsController {
+
+    private final FileRepository fileRepository;
+    private final SignedUrlService signedUrls;
+
+    public FileUrlsController(FileRepository fileRepository, SignedUrlService signedUrls) {
+        this.fileRepository = fileRepository;
+        this.signedUrls = signedUrls;
+    }
+
+    /**
+     * Short-lived URL for one of the user's own files, usable in <img> / <iframe> without the token header.
+     */
+    @GetMapping("/{id}/signed-url")
+    public SignedUrlResponse signedUrl(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+        AppFile f = fileRepository.findById(id)
+                .filter(file -> principal.getUserId().equals(file.getOwnerUserId()))
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
+        return toDto(signedUrls.sign(f));
+    }
+
+    static SignedUrlResponse toDto(SignedUrlService.SignedUrl s) {
+        SignedUrlResponse dto = new SignedUrlResponse();
+        dto.url = s.url();
+        dto.expiresAt = s.expiresAt();
+        return dto;
+    }
+}
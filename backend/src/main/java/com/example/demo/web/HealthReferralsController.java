@@ -1,32 +1,31 @@
 package com.example.demo.web;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
-import org.springframework.core.io.Resource;
-import org.springframework.http.*;
-import static org.springframework.http.HttpStatus.NOT_FOUND;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AppFile;
 import com.example.demo.domain.HealthReferral;
 import com.example.demo.dto.HealthReferralResponse;
 import com.example.demo.security.UserPrincipal;
-import com.example.demo.service.FileStorageService;
 import com.example.demo.service.HealthReferralService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("/api/health-referrals")
 public class HealthReferralsController {
 
     private final HealthReferralService referralService;
-    private final FileStorageService storage;
+    private final FileDownloadHandler downloads;
 
-    public HealthReferralsController(HealthReferralService referralService, FileStorageService storage) {
+    public HealthReferralsController(HealthReferralService referralService, FileDownloadHandler downloads) {
         this.referralService = referralService;
-        this.storage = storage;
+        this.downloads = downloads;
     }
 
     @GetMapping
@@ -41,33 +40,18 @@ public class HealthReferralsController {
     }
 
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<Resource> pdf(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void pdf(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                    HttpServletRequest request, HttpServletResponse response) throws IOException {
         // Ensure ownership
         referralService.getMy(principal.getUserId(), id);
 
         AppFile f = referralService.getReferralPdf(id);
-        return serveFileInline(f);
-    }
-
-    private ResponseEntity<Resource> serveFileInline(AppFile f) {
-        if (f == null) throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
-
-        Resource res = storage.loadAsResource(f);
-
-        MediaType mt;
-        try { mt = MediaType.parseMediaType(f.getMimeType()); }
-        catch (Exception e) { mt = MediaType.APPLICATION_OCTET_STREAM; }
-
-        return ResponseEntity.ok()
-                .contentType(mt)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + safeFilename(f.getOriginalName()) + "\"")
-                .contentLength(f.getSizeBytes())
-                .body(res);
+        serveFileInline(f, request, response);
     }
 
-    private static String safeFilename(String name) {
-        if (name == null || name.isBlank()) return "file";
-        return name.replace('"', '_');
+    private void serveFileInline(AppFile f,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        downloads.serve(f, request, response);
     }
 
     private static HealthReferralResponse toDto(HealthReferral r) {
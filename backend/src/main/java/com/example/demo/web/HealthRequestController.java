@@ -1,23 +1,20 @@
 package com.example.demo.web;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import static org.springframework.http.HttpStatus.NOT_FOUND;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AppFile;
 import com.example.demo.domain.HealthRequest;
@@ -25,21 +22,27 @@ import com.example.demo.dto.AddPersonalDoctorRequestData;
 import com.example.demo.dto.AddReferralRequestData;
 import com.example.demo.dto.HealthRequestResponse;
 import com.example.demo.security.UserPrincipal;
-import com.example.demo.service.FileStorageService;
 import com.example.demo.service.HealthRequestService;
+import com.example.demo.service.UploadSessionService;
 
 import jakarta.validation.Valid;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 @RequestMapping("/api/health-requests")
 public class HealthRequestController {
 
     private final HealthRequestService requestService;
-    private final FileStorageService storage;
+    private final FileDownloadHandler downloads;
+    private final UploadSessionService uploads;
 
-    public HealthRequestController(HealthRequestService requestService, FileStorageService storage) {
+    public HealthRequestController(HealthRequestService requestService, FileDownloadHandler downloads,
+                                   UploadSessionService uploads) {
         this.requestService = requestService;
-        this.storage = storage;
+        this.downloads = downloads;
+        this.uploads = uploads;
     }
 
     // Like property: GET /api/health-requests => my list
@@ -49,11 +52,15 @@ public class HealthRequestController {
         return requestService.listMy(userId).stream().map(HealthRequestController::toDto).toList();
     }
 
+    // bookletImage inline, or uploadId of a completed upload (/api/uploads)
     @PostMapping(value = "/add-personal-doctor", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public HealthRequestResponse addPersonalDoctor(@AuthenticationPrincipal UserPrincipal principal,
                                                    @Valid @RequestPart("data") AddPersonalDoctorRequestData data,
-                                                   @RequestPart("bookletImage") MultipartFile bookletImage) {
-        HealthRequest r = requestService.createAddPersonalDoctor(principal.getUserId(), data, bookletImage);
+                                                   @RequestPart(value = "bookletImage", required = false) MultipartFile bookletImage,
+                                                   @RequestParam(required = false) UUID uploadId) {
+        MultipartFile file = uploads.fileOrUpload(principal.getUserId(), bookletImage, uploadId);
+        HealthRequest r = requestService.createAddPersonalDoctor(principal.getUserId(), data, file);
+        uploads.discard(principal.getUserId(), uploadId);
         return toDto(r);
     }
 
@@ -64,46 +71,36 @@ public class HealthRequestController {
         return toDto(r);
     }
 
+    // referralPdf inline, or uploadId of a completed upload (/api/uploads)
     @PostMapping(value = "/add-referral", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public HealthRequestResponse addReferral(@AuthenticationPrincipal UserPrincipal principal,
                                              @Valid @RequestPart("data") AddReferralRequestData data,
-                                             @RequestPart("referralPdf") MultipartFile referralPdf) {
-        HealthRequest r = requestService.createAddReferral(principal.getUserId(), data, referralPdf);
+                                             @RequestPart(value = "referralPdf", required = false) MultipartFile referralPdf,
+                                             @RequestParam(required = false) UUID uploadId) {
+        MultipartFile file = uploads.fileOrUpload(principal.getUserId(), referralPdf, uploadId);
+        HealthRequest r = requestService.createAddReferral(principal.getUserId(), data, file);
+        uploads.discard(principal.getUserId(), uploadId);
         return toDto(r);
     }
 
     // Files (User)
     @GetMapping("/{id}/booklet-image")
-    public ResponseEntity<Resource> bookletImage(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void bookletImage(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
         AppFile f = requestService.getMyRequestFile(principal.getUserId(), id, HealthRequestService.TAG_BOOKLET_IMAGE);
-        return serveFileInline(f);
+        serveFileInline(f, request, response);
     }
 
     @GetMapping("/{id}/referral/pdf")
-    public ResponseEntity<Resource> referralPdf(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void referralPdf(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
         AppFile f = requestService.getMyRequestFile(principal.getUserId(), id, HealthRequestService.TAG_REFERRAL_PDF);
-        return serveFileInline(f);
-    }
-
-    private ResponseEntity<Resource> serveFileInline(AppFile f) {
-        if (f == null) throw new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND");
-
-        Resource res = storage.loadAsResource(f);
-
-        MediaType mt;
-        try { mt = MediaType.parseMediaType(f.getMimeType()); }
-        catch (Exception e) { mt = MediaType.APPLICATION_OCTET_STREAM; }
-
-        return ResponseEntity.ok()
-                .contentType(mt)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + safeFilename(f.getOriginalName()) + "\"")
-                .contentLength(f.getSizeBytes())
-                .body(res);
+        serveFileInline(f, request, response);
     }
 
-    private static String safeFilename(String name) {
-        if (name == null || name.isBlank()) return "file";
-        return name.replace('"', '_');
+    private void serveFileInline(AppFile f,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        downloads.serve(f, request, response);
     }
 
     public static HealthRequestResponse toDto(HealthRequest r) {
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,6 +22,7 @@ import com.example.demo.dto.CreateTaxAssessmentRequest;
 import com.example.demo.dto.PropertyRequestResponse;
 import com.example.demo.security.UserPrincipal;
 import com.example.demo.service.PropertyRequestService;
+import com.example.demo.service.UploadSessionService;
 
 import jakarta.validation.Valid;
 
@@ -29,9 +31,11 @@ import jakarta.validation.Valid;
 public class PropertyRequestController {
 
     private final PropertyRequestService propertyRequestService;
+    private final UploadSessionService uploads;
 
-    public PropertyRequestController(PropertyRequestService propertyRequestService) {
+    public PropertyRequestController(PropertyRequestService propertyRequestService, UploadSessionService uploads) {
         this.propertyRequestService = propertyRequestService;
+        this.uploads = uploads;
     }
 
     @GetMapping
@@ -40,11 +44,15 @@ public class PropertyRequestController {
         return propertyRequestService.listMy(userId).stream().map(PropertyRequestController::toDto).toList();
     }
 
+    // ownershipDoc inline, or uploadId of a completed upload (/api/uploads)
     @PostMapping(value = "/add", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public PropertyRequestResponse add(@AuthenticationPrincipal UserPrincipal principal,
                                        @Valid @RequestPart("data") AddPropertyRequestData data,
-                                       @RequestPart("ownershipDoc") MultipartFile ownershipDoc) {
-        PropertyRequest req = propertyRequestService.createAddProperty(principal.getUserId(), data, ownershipDoc);
+                                       @RequestPart(value = "ownershipDoc", required = false) MultipartFile ownershipDoc,
+                                       @RequestParam(required = false) UUID uploadId) {
+        MultipartFile file = uploads.fileOrUpload(principal.getUserId(), ownershipDoc, uploadId);
+        PropertyRequest req = propertyRequestService.createAddProperty(principal.getUserId(), data, file);
+        uploads.discard(principal.getUserId(), uploadId);
         return toDto(req);
     }
 
@@ -0,0 +1,89 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.security.SignedUrlService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves /api/files/signed/<token>[?size=N] straight from the token (see SignedUrlService), ahead of the
+ * Spring Security chain: no authentication, no account status check, no link or file query. Bytes go out
+ * through FileDownloadHandler, so Range, conditional GET, sendfile and ?size= previews work as usual.
+ *
+ * Registered in SecurityConfig; never passes the request down the chain. Because of that it sets the
+ * security headers the chain would otherwise add itself, and sandboxes the file (it is user content).
+ */
+public class SignedDownloadFilter extends OncePerRequestFilter {
+
+    // no scripts, no plugins, no same-origin access, even if a browser renders an upload as HTML or SVG
+    private static final String SANDBOX_CSP = "default-src 'none'; style-src 'unsafe-inline'; sandbox; frame-ancestors 'self'";
+    // browser PDF viewers refuse to render inside a sandbox; a PDF is not an active document anyway
+    private static final String PDF_CSP = "frame-ancestors 'self'";
+
+    private final SignedUrlService signedUrls;
+    private final FileDownloadHandler downloads;
+
+    public SignedDownloadFilter(SignedUrlService signedUrls, FileDownloadHandler downloads) {
+        this.signedUrls = signedUrls;
+        this.downloads = downloads;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws IOException {
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            error(response, HttpStatus.METHOD_NOT_ALLOWED, "METHOD_NOT_ALLOWED");
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        AppFile f = path.startsWith(SignedUrlService.PATH_PREFIX)
+                ? signedUrls.verify(path.substring(SignedUrlService.PATH_PREFIX.length()))
+                : null;
+        if (f == null) {
+            error(response, HttpStatus.FORBIDDEN, "INVALID_OR_EXPIRED_URL");
+            return;
+        }
+
+        // the SPA embeds signed URLs through its same-origin /api proxy; other sites may not frame them
+        response.setHeader("X-Frame-Options", "SAMEORIGIN");
+        response.setHeader("Content-Security-Policy", MediaType.APPLICATION_PDF_VALUE.equalsIgnoreCase(f.getMimeType())
+                && request.getParameter("size") == null ? PDF_CSP : SANDBOX_CSP);
+
+        try {
+            String size = request.getParameter("size");
+            if (size == null) {
+                downloads.serve(f, request, response);
+            } else {
+                downloads.serveImage(f, Integer.valueOf(size), request, response);
+            }
+        } catch (NumberFormatException e) {
+            error(response, HttpStatus.BAD_REQUEST, "INVALID_SIZE");
+        } catch (ResponseStatusException e) {
+            if (response.isCommitted()) throw e;
+            response.reset();
+            error(response, HttpStatus.valueOf(e.getStatusCode().value()), e.getReason());
+        }
+    }
+
+    private static void error(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        // also after a reset(); a success response gets its Cache-Control from FileDownloadHandler
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"" + message + "\"}");
+    }
+}
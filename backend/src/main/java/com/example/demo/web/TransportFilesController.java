@@ -1,12 +1,9 @@
 package com.example.demo.web;
 
+import java.io.IOException;
 import java.util.UUID;
 
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,114 +11,118 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.AppFile;
-import com.example.demo.domain.FileLink;
 import com.example.demo.domain.TransportVehicle;
 import com.example.demo.domain.TransportVehicleRequest;
-import com.example.demo.repository.FileLinkRepository;
-import com.example.demo.repository.FileRepository;
 import com.example.demo.repository.TransportVehicleRepository;
 import com.example.demo.repository.TransportVehicleRequestRepository;
 import com.example.demo.security.UserPrincipal;
-import com.example.demo.service.FileStorageService;
+import com.example.demo.service.FileServingService;
 import com.example.demo.service.TransportVehicleRequestService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 public class TransportFilesController {
 
     private final TransportVehicleRepository vehicleRepo;
     private final TransportVehicleRequestRepository requestRepo;
-    private final FileLinkRepository fileLinkRepo;
-    private final FileRepository fileRepo;
-    private final FileStorageService storage;
+    private final FileServingService fileServing;
+    private final FileDownloadHandler downloads;
 
     public TransportFilesController(TransportVehicleRepository vehicleRepo,
                                     TransportVehicleRequestRepository requestRepo,
-                                    FileLinkRepository fileLinkRepo,
-                                    FileRepository fileRepo,
-                                    FileStorageService storage) {
+                                    FileServingService fileServing,
+                                    FileDownloadHandler downloads) {
         this.vehicleRepo = vehicleRepo;
         this.requestRepo = requestRepo;
-        this.fileLinkRepo = fileLinkRepo;
-        this.fileRepo = fileRepo;
-        this.storage = storage;
+        this.fileServing = fileServing;
+        this.downloads = downloads;
     }
 
     // ----- USER: VEHICLE FILES -----
 
     @GetMapping("/api/transport-vehicles/{id}/registration-doc")
-    public ResponseEntity<Resource> vehicleRegDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void vehicleRegDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
         TransportVehicle v = vehicleRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "VEHICLE_NOT_FOUND"));
 
-        return serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(),
-                TransportVehicleRequestService.TAG_REGISTRATION_DOC);
+        serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(),
+                TransportVehicleRequestService.TAG_REGISTRATION_DOC, request, response);
     }
 
     @GetMapping("/api/transport-vehicles/{id}/tech-inspection-doc")
-    public ResponseEntity<Resource> vehicleInspectionDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void vehicleInspectionDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                                     HttpServletRequest request, HttpServletResponse response) throws IOException {
         TransportVehicle v = vehicleRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "VEHICLE_NOT_FOUND"));
 
-        return serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(),
-                TransportVehicleRequestService.TAG_TECH_INSPECTION_DOC);
+        serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE, v.getId(),
+                TransportVehicleRequestService.TAG_TECH_INSPECTION_DOC, request, response);
     }
 
     // ----- USER: REQUEST FILES -----
 
     @GetMapping("/api/transport-requests/{id}/registration-doc")
-    public ResponseEntity<Resource> requestRegDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void requestRegDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
         TransportVehicleRequest r = requestRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
 
-        return serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, r.getId(),
-                TransportVehicleRequestService.TAG_REGISTRATION_DOC);
+        serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, r.getId(),
+                TransportVehicleRequestService.TAG_REGISTRATION_DOC, request, response);
     }
 
     @GetMapping("/api/transport-requests/{id}/tech-inspection-doc")
-    public ResponseEntity<Resource> requestInspectionDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+    public void requestInspectionDoc(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal,
+                                     HttpServletRequest request, HttpServletResponse response) throws IOException {
         TransportVehicleRequest r = requestRepo.findByIdAndUserId(id, principal.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "REQUEST_NOT_FOUND"));
 
-        return serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, r.getId(),
-                TransportVehicleRequestService.TAG_TECH_INSPECTION_DOC);
+        serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, r.getId(),
+                TransportVehicleRequestService.TAG_TECH_INSPECTION_DOC, request, response);
     }
 
     // ----- ADMIN: REQUEST FILES -----
 
     @GetMapping("/api/admin/transport-requests/{id}/registration-doc")
-    public ResponseEntity<Resource> adminRequestRegDoc(@PathVariable UUID id) {
-        return serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, id,
-                TransportVehicleRequestService.TAG_REGISTRATION_DOC);
+    public void adminRequestRegDoc(@PathVariable UUID id,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, id,
+                TransportVehicleRequestService.TAG_REGISTRATION_DOC, request, response);
     }
 
     @GetMapping("/api/admin/transport-requests/{id}/tech-inspection-doc")
-    public ResponseEntity<Resource> adminRequestInspectionDoc(@PathVariable UUID id) {
-        return serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, id,
-                TransportVehicleRequestService.TAG_TECH_INSPECTION_DOC);
+    public void adminRequestInspectionDoc(@PathVariable UUID id,
+                                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveLinked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, id,
+                TransportVehicleRequestService.TAG_TECH_INSPECTION_DOC, request, response);
     }
 
-    private ResponseEntity<Resource> serveLinked(String entityType, UUID entityId, String tag) {
-        FileLink link = fileLinkRepo.findByEntityTypeAndEntityIdAndTag(entityType, entityId, tag)
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_LINK_NOT_FOUND"));
-
-        AppFile f = fileRepo.findById(link.getFileId())
-                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_NOT_FOUND"));
+    // first-page PNG previews for the admin review queue
 
-        Resource res = storage.loadAsResource(f);
+    @GetMapping("/api/admin/transport-requests/{id}/registration-doc/preview")
+    public void adminRequestRegDocPreview(@PathVariable UUID id,
+                                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        downloads.servePdfPreview(linked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, id,
+                TransportVehicleRequestService.TAG_REGISTRATION_DOC), request, response);
+    }
 
-        MediaType mt;
-        try { mt = MediaType.parseMediaType(f.getMimeType()); }
-        catch (Exception e) { mt = MediaType.APPLICATION_OCTET_STREAM; }
+    @GetMapping("/api/admin/transport-requests/{id}/tech-inspection-doc/preview")
+    public void adminRequestInspectionDocPreview(@PathVariable UUID id,
+                                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        downloads.servePdfPreview(linked(TransportVehicleRequestService.ENTITY_TYPE_TRANSPORT_VEHICLE_REQUEST, id,
+                TransportVehicleRequestService.TAG_TECH_INSPECTION_DOC), request, response);
+    }
 
-        return ResponseEntity.ok()
-                .contentType(mt)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + safeFilename(f.getOriginalName()) + "\"")
-                .contentLength(f.getSizeBytes())
-                .body(res);
+    private void serveLinked(String entityType, UUID entityId, String tag,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        downloads.serve(linked(entityType, entityId, tag), request, response);
     }
 
-    private static String safeFilename(String name) {
-        if (name == null || name.isBlank()) return "file";
-        return name.replace('"', '_');
+    private AppFile linked(String entityType, UUID entityId, String tag) {
+        return fileServing.findLinked(entityType, entityId, tag)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "FILE_LINK_NOT_FOUND"));
     }
 }
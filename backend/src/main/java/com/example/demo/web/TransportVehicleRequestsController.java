@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -19,15 +20,18 @@ import com.example.demo.dto.TransportTechInspectionRequestData;
 import com.example.demo.dto.TransportVehicleRequestResponse;
 import com.example.demo.security.UserPrincipal;
 import com.example.demo.service.TransportVehicleRequestService;
+import com.example.demo.service.UploadSessionService;
 
 @RestController
 @RequestMapping("/api/transport-requests")
 public class TransportVehicleRequestsController {
 
     private final TransportVehicleRequestService requestService;
+    private final UploadSessionService uploads;
 
-    public TransportVehicleRequestsController(TransportVehicleRequestService requestService) {
+    public TransportVehicleRequestsController(TransportVehicleRequestService requestService, UploadSessionService uploads) {
         this.requestService = requestService;
+        this.uploads = uploads;
     }
 
     @GetMapping
@@ -42,21 +46,29 @@ public class TransportVehicleRequestsController {
         return toDto(r);
     }
 
+    // registrationDoc inline, or uploadId of a completed upload (/api/uploads)
     @PostMapping(value = "/add-vehicle", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public TransportVehicleRequestResponse addVehicle(@AuthenticationPrincipal UserPrincipal principal,
                                                       @RequestPart("data") TransportAddVehicleRequestData data,
-                                                      @RequestPart("registrationDoc") MultipartFile registrationDoc) {
+                                                      @RequestPart(value = "registrationDoc", required = false) MultipartFile registrationDoc,
+                                                      @RequestParam(required = false) UUID uploadId) {
         String egn = principal.getUsername();
-        TransportVehicleRequest r = requestService.createAddVehicle(principal.getUserId(), egn, data, registrationDoc);
+        MultipartFile file = uploads.fileOrUpload(principal.getUserId(), registrationDoc, uploadId);
+        TransportVehicleRequest r = requestService.createAddVehicle(principal.getUserId(), egn, data, file);
+        uploads.discard(principal.getUserId(), uploadId);
         return toDto(r);
     }
 
+    // inspectionDoc inline, or uploadId of a completed upload (/api/uploads)
     @PostMapping(value = "/tech-inspection", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public TransportVehicleRequestResponse techInspection(@AuthenticationPrincipal UserPrincipal principal,
                                                           @RequestPart("data") TransportTechInspectionRequestData data,
-                                                          @RequestPart("inspectionDoc") MultipartFile inspectionDoc) {
+                                                          @RequestPart(value = "inspectionDoc", required = false) MultipartFile inspectionDoc,
+                                                          @RequestParam(required = false) UUID uploadId) {
         String egn = principal.getUsername();
-        TransportVehicleRequest r = requestService.createTechInspection(principal.getUserId(), egn, data, inspectionDoc);
+        MultipartFile file = uploads.fileOrUpload(principal.getUserId(), inspectionDoc, uploadId);
+        TransportVehicleRequest r = requestService.createTechInspection(principal.getUserId(), egn, data, file);
+        uploads.discard(principal.getUserId(), uploadId);
         return toDto(r);
     }
 
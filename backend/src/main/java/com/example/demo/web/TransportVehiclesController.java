@@ -33,7 +33,9 @@ public class TransportVehiclesController {
     @GetMapping
     public List<TransportVehicleResponse> my(@AuthenticationPrincipal UserPrincipal principal) {
         UUID userId = principal.getUserId();
-        return vehicleService.listMy(userId).stream().map(v -> toDto(v, vehicleService.listTaxPayments(v.getId()))).toList();
+        List<TransportVehicle> vehicles = vehicleService.listMy(userId);
+        Map<UUID, List<TransportVehicleTaxPayment>> payments = vehicleService.listTaxPayments(vehicles);
+        return vehicles.stream().map(v -> toDto(v, payments.get(v.getId()))).toList();
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,89 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.dto.CreateUploadSessionRequest;
+import com.example.demo.dto.UploadSessionResponse;
+import com.example.demo.security.UserPrincipal;
+import com.example.demo.service.UploadSessionService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+
+/**
+ * Resumable uploads (see UploadSessionService):
+ *
+ * POST /api/uploads                       -> session (uploadId, receivedBytes = 0)
+ * PUT  /api/uploads/{id}?offset=N         raw bytes (application/octet-stream, Content-Length required)
+ * GET  /api/uploads/{id}                  -> receivedBytes, where to resume after a dropped connection
+ * POST /api/uploads/{id}/complete         -> sha256; the uploadId can now replace the file part of a request
+ * DELETE /api/uploads/{id}
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadSessionsController {
+
+    private final UploadSessionService uploads;
+
+    public UploadSessionsController(UploadSessionService uploads) {
+        this.uploads = uploads;
+    }
+
+    @PostMapping
+    public UploadSessionResponse create(@AuthenticationPrincipal UserPrincipal principal,
+                                        @Valid @RequestBody CreateUploadSessionRequest body) {
+        return toDto(uploads.create(principal.getUserId(), body.fileName, body.contentType, body.totalBytes));
+    }
+
+    @GetMapping("/{id}")
+    public UploadSessionResponse get(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+        return toDto(uploads.status(principal.getUserId(), id));
+    }
+
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public UploadSessionResponse putChunk(@PathVariable UUID id,
+                                          @RequestParam long offset,
+                                          @AuthenticationPrincipal UserPrincipal principal,
+                                          HttpServletRequest request) throws IOException {
+        return toDto(uploads.append(principal.getUserId(), id, offset, request.getContentLengthLong(),
+                request.getInputStream()));
+    }
+
+    @PostMapping("/{id}/complete")
+    public UploadSessionResponse complete(@PathVariable UUID id,
+                                          @RequestParam(required = false) String sha256,
+                                          @AuthenticationPrincipal UserPrincipal principal) {
+        return toDto(uploads.complete(principal.getUserId(), id, sha256));
+    }
+
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable UUID id, @AuthenticationPrincipal UserPrincipal principal) {
+        uploads.discard(principal.getUserId(), id);
+    }
+
+    private static UploadSessionResponse toDto(UploadSessionService.UploadStatus s) {
+        UploadSessionResponse dto = new UploadSessionResponse();
+        dto.uploadId = s.uploadId();
+        dto.fileName = s.fileName();
+        dto.contentType = s.contentType();
+        dto.totalBytes = s.totalBytes();
+        dto.receivedBytes = s.receivedBytes();
+        dto.completed = s.completed();
+        dto.sha256 = s.sha256();
+        dto.expiresAt = s.expiresAt();
+        return dto;
+    }
+}
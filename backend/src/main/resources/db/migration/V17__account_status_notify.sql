@@ -0,0 +1,26 @@
+-- V17__account_status_notify.sql
+-- Notify backend nodes when a user's account_status changes (or the user is deleted),
+-- so their in-process AccountStatusCache can evict that user. Delivered on commit.
+
+CREATE OR REPLACE FUNCTION notify_account_status_changed()
+RETURNS trigger AS $$
+BEGIN
+  PERFORM pg_notify('account_status_changed', OLD.id::text);
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_users_account_status_notify ON users;
+
+CREATE TRIGGER trg_users_account_status_notify
+AFTER UPDATE OF account_status ON users
+FOR EACH ROW
+WHEN (OLD.account_status IS DISTINCT FROM NEW.account_status)
+EXECUTE FUNCTION notify_account_status_changed();
+
+DROP TRIGGER IF EXISTS trg_users_delete_notify ON users;
+
+CREATE TRIGGER trg_users_delete_notify
+AFTER DELETE ON users
+FOR EACH ROW
+EXECUTE FUNCTION notify_account_status_changed();
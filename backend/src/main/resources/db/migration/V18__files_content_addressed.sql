@@ -0,0 +1,6 @@
+-- V18__files_content_addressed.sql
+-- New uploads are stored once per content under blobs/ab/cd/<sha256>; several files rows may share a storage_key.
+-- Existing rows keep their users/<owner>/<fileId> keys.
+
+CREATE INDEX IF NOT EXISTS idx_files_storage_key ON files(storage_key);
+CREATE INDEX IF NOT EXISTS idx_files_sha256 ON files(sha256);
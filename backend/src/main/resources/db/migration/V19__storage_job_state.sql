@@ -0,0 +1,15 @@
+-- V19__storage_job_state.sql
+-- Progress of resumable background storage jobs (orphan GC, ...): one row per job.
+-- cursor is the keyset position of the current pass; counters are totals since the job first ran.
+
+CREATE TABLE IF NOT EXISTS storage_job_state (
+  job varchar(40) PRIMARY KEY,
+
+  cursor text NULL,
+  pass_count bigint NOT NULL DEFAULT 0,
+  processed_count bigint NOT NULL DEFAULT 0,
+  reclaimed_bytes bigint NOT NULL DEFAULT 0,
+
+  last_pass_finished_at timestamptz NULL,
+  updated_at timestamptz NOT NULL DEFAULT now()
+);
@@ -0,0 +1,10 @@
+-- V20__file_integrity.sql
+-- Integrity scrubber: when a file's stored bytes were last re-hashed against files.sha256, and what was
+-- wrong if they did not match (NULL = fine). Job progress lives in storage_job_state like the other jobs.
+
+ALTER TABLE files ADD COLUMN IF NOT EXISTS last_verified_at timestamptz NULL;
+ALTER TABLE files ADD COLUMN IF NOT EXISTS integrity_error varchar(40) NULL;
+
+CREATE INDEX IF NOT EXISTS idx_files_integrity_error ON files(integrity_error) WHERE integrity_error IS NOT NULL;
+
+ALTER TABLE storage_job_state ADD COLUMN IF NOT EXISTS error_count bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,47 @@
+-- V21__admin_request_keyset_indexes.sql
+-- Admin request lists page newest first on (created_at, id) with optional status/kind filters
+-- (RequestPages). Each filter combination gets an index whose order matches the keyset, so a page is one
+-- index range scan of `limit` rows at any depth:
+--   (created_at, id)               no filter ("everything but REJECTED" filters rows on the way)
+--   (status, created_at, id)       ?status=
+--   (status, kind, created_at, id) ?status=&kind= (also serves every lookup the old (status, kind) index did)
+-- The superseded single-column created_at and (status, kind) indexes are dropped.
+
+-- property_requests
+CREATE INDEX IF NOT EXISTS idx_property_requests_created_at_id
+  ON property_requests(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_property_requests_status_created_at_id
+  ON property_requests(status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_property_requests_status_kind_created_at_id
+  ON property_requests(status, kind, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_property_requests_created_at;
+DROP INDEX IF EXISTS idx_property_requests_status_kind;
+
+-- document_requests
+CREATE INDEX IF NOT EXISTS idx_document_requests_created_at_id
+  ON document_requests(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_document_requests_status_created_at_id
+  ON document_requests(status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_document_requests_status_kind_created_at_id
+  ON document_requests(status, kind, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_document_requests_created_at;
+DROP INDEX IF EXISTS idx_document_requests_status_kind;
+
+-- transport_vehicle_requests
+CREATE INDEX IF NOT EXISTS idx_transport_vehicle_requests_created_at_id
+  ON transport_vehicle_requests(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transport_vehicle_requests_status_created_at_id
+  ON transport_vehicle_requests(status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transport_vehicle_requests_status_kind_created_at_id
+  ON transport_vehicle_requests(status, kind, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_transport_vehicle_requests_created_at;
+DROP INDEX IF EXISTS idx_transport_vehicle_requests_status_kind;
+
+-- health_requests (lists every status; the (status, created_at) index gains the id tie-breaker)
+CREATE INDEX IF NOT EXISTS idx_health_requests_created_at_id
+  ON health_requests(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_health_requests_status_created_at_id
+  ON health_requests(status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_health_requests_status_kind_created_at_id
+  ON health_requests(status, kind, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_health_requests_status_created_at;
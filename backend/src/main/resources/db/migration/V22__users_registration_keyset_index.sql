@@ -0,0 +1,7 @@
+-- V22__users_registration_keyset_index.sql
+-- Admin registration queue pages newest first per account status on (created_at, id); one index range
+-- scan per page. It also covers every lookup the single-column account_status index served.
+
+CREATE INDEX IF NOT EXISTS idx_users_account_status_created_at_id
+  ON users(account_status, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_users_account_status;
@@ -0,0 +1,80 @@
+package com.example.demo.security;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.domain.AccountStatus;
+
+class AccessTokenServiceTests {
+
+    private final AccessTokenService tokens = new AccessTokenService("test-secret", Duration.ofMinutes(15));
+
+    @Test
+    void userTokenVerifiesToItsPrincipal() {
+        UUID userId = UUID.randomUUID();
+        String token = tokens.issueUser(userId, "8001010000", AccountStatus.ACTIVE).token();
+
+        Object principal = tokens.verify(token, AccessTokenService.Kind.USER);
+
+        assertThat(principal).isInstanceOfSatisfying(UserPrincipal.class, p -> {
+            assertThat(p.getUserId()).isEqualTo(userId);
+            assertThat(p.getUsername()).isEqualTo("8001010000");
+            assertThat(p.getAccountStatus()).isEqualTo(AccountStatus.ACTIVE);
+        });
+    }
+
+    @Test
+    void adminTokenVerifiesToItsPrincipal() {
+        UUID adminId = UUID.randomUUID();
+        String token = tokens.issueAdmin(adminId, "admin|with|bars").token();
+
+        Object principal = tokens.verify(token, AccessTokenService.Kind.ADMIN);
+
+        assertThat(principal).isInstanceOfSatisfying(AdminPrincipal.class, p -> {
+            assertThat(p.getAdminId()).isEqualTo(adminId);
+            assertThat(p.getUsername()).isEqualTo("admin|with|bars");
+        });
+    }
+
+    @Test
+    void tokenOfTheOtherKindIsRejected() {
+        String user = tokens.issueUser(UUID.randomUUID(), "8001010000", AccountStatus.ACTIVE).token();
+        String admin = tokens.issueAdmin(UUID.randomUUID(), "admin").token();
+
+        assertThat(tokens.verify(user, AccessTokenService.Kind.ADMIN)).isNull();
+        assertThat(tokens.verify(admin, AccessTokenService.Kind.USER)).isNull();
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        AccessTokenService expired = new AccessTokenService("test-secret", Duration.ofSeconds(-1));
+        String token = expired.issueUser(UUID.randomUUID(), "8001010000", AccountStatus.ACTIVE).token();
+
+        assertThat(tokens.verify(token, AccessTokenService.Kind.USER)).isNull();
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = tokens.issueUser(UUID.randomUUID(), "8001010000", AccountStatus.ACTIVE).token();
+        int dot = token.indexOf('.');
+        // flip one payload character; the signature no longer matches
+        char c = token.charAt(0) == 'A' ? 'B' : 'A';
+
+        assertThat(tokens.verify(c + token.substring(1), AccessTokenService.Kind.USER)).isNull();
+        assertThat(tokens.verify(token.substring(0, dot) + ".AAAA", AccessTokenService.Kind.USER)).isNull();
+        assertThat(tokens.verify(token.substring(0, dot), AccessTokenService.Kind.USER)).isNull();
+        assertThat(tokens.verify("not a token", AccessTokenService.Kind.USER)).isNull();
+        assertThat(tokens.verify(null, AccessTokenService.Kind.USER)).isNull();
+    }
+
+    @Test
+    void tokenFromAnotherSecretIsRejected() {
+        String token = new AccessTokenService("other-secret", Duration.ofMinutes(15))
+                .issueUser(UUID.randomUUID(), "8001010000", AccountStatus.ACTIVE).token();
+
+        assertThat(tokens.verify(token, AccessTokenService.Kind.USER)).isNull();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.security;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.domain.AccountStatus;
+import com.example.demo.domain.AppFile;
+
+class SignedUrlServiceTests {
+
+    private final SignedUrlService signedUrls = new SignedUrlService("test-secret", Duration.ofMinutes(5));
+
+    @Test
+    void signedUrlCarriesTheWholeFile() {
+        AppFile f = file();
+
+        AppFile verified = signedUrls.verify(token(signedUrls.sign(f)));
+
+        assertThat(verified).isNotNull();
+        assertThat(verified.getId()).isEqualTo(f.getId());
+        assertThat(verified.getSizeBytes()).isEqualTo(f.getSizeBytes());
+        assertThat(verified.getCreatedAt()).isEqualTo(f.getCreatedAt());
+        assertThat(verified.getSha256()).isEqualTo(f.getSha256());
+        assertThat(verified.getStorageKey()).isEqualTo(f.getStorageKey());
+        assertThat(verified.getMimeType()).isEqualTo(f.getMimeType());
+        assertThat(verified.getOriginalName()).isEqualTo(f.getOriginalName());
+    }
+
+    @Test
+    void fileWithoutShaRoundTrips() {
+        AppFile f = file();
+        f.setSha256(null);
+
+        assertThat(signedUrls.verify(token(signedUrls.sign(f))).getSha256()).isNull();
+    }
+
+    @Test
+    void expiredUrlIsRejected() {
+        SignedUrlService expired = new SignedUrlService("test-secret", Duration.ofSeconds(-1));
+
+        assertThat(signedUrls.verify(token(expired.sign(file())))).isNull();
+    }
+
+    @Test
+    void tamperedUrlIsRejected() {
+        String token = token(signedUrls.sign(file()));
+        int dot = token.indexOf('.');
+        char c = token.charAt(3) == 'A' ? 'B' : 'A';
+
+        assertThat(signedUrls.verify(token.substring(0, 3) + c + token.substring(4))).isNull();
+        assertThat(signedUrls.verify(token.substring(0, dot + 1) + "AAAA")).isNull();
+        assertThat(signedUrls.verify(token.substring(0, dot))).isNull();
+        assertThat(signedUrls.verify(null)).isNull();
+    }
+
+    @Test
+    void accessTokenSignedWithTheSameSecretIsNotAUrl() {
+        String accessToken = new AccessTokenService("test-secret", Duration.ofMinutes(5))
+                .issueUser(UUID.randomUUID(), "8001010000", AccountStatus.ACTIVE).token();
+
+        assertThat(signedUrls.verify(accessToken)).isNull();
+    }
+
+    private static String token(SignedUrlService.SignedUrl url) {
+        assertThat(url.url()).startsWith(SignedUrlService.PATH_PREFIX);
+        return url.url().substring(SignedUrlService.PATH_PREFIX.length());
+    }
+
+    private static AppFile file() {
+        AppFile f = new AppFile();
+        f.setId(UUID.randomUUID());
+        f.setSizeBytes(12_345);
+        f.setCreatedAt(OffsetDateTime.of(2025, 1, 2, 3, 4, 5, 6_000_000, ZoneOffset.UTC));
+        f.setSha256("ab".repeat(32));
+        f.setStorageKey("blobs/ab/ab/" + "ab".repeat(32));
+        f.setMimeType("application/pdf");
+        f.setOriginalName("справка | 2025.pdf");
+        return f;
+    }
+}
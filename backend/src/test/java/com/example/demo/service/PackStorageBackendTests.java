@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.repository.FileRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PackStorageBackendTests {
+
+    @TempDir
+    Path root;
+
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private PackStorageBackend pack;
+
+    @AfterEach
+    void close() throws IOException {
+        if (pack != null) pack.close();
+    }
+
+    @Test
+    void appendedRecordIsReadableAndDeduplicated() throws IOException {
+        pack = open();
+        byte[] bytes = bytes(40, 1);
+
+        String key = append(bytes);
+
+        assertThat(key).startsWith("pack/1/48/40/");
+        assertThat(pack.existingKey(sha(bytes))).isEqualTo(key);
+        assertThat(read(key)).isEqualTo(bytes);
+
+        pack.release(key);
+        assertThat(pack.existingKey(sha(bytes))).isNull();
+        // released records stay readable until compaction
+        assertThat(read(key)).isEqualTo(bytes);
+    }
+
+    @Test
+    void nothingIsCreatedOrQueriedBeforeTheFirstAppend() throws IOException {
+        pack = open();
+        Path packs = root.resolve("packs");
+
+        pack.compact();
+        assertThat(packs).doesNotExist();
+        verifyNoInteractions(fileRepository);
+
+        assertThat(append(bytes(40, 1))).startsWith("pack/1/48/40/");
+        assertThat(packs.resolve("segment-00000001.pack")).exists();
+    }
+
+    @Test
+    void tooLargeBlobIsRefused() {
+        pack = open();
+
+        assertThat(pack.accepts(100)).isTrue();
+        assertThat(pack.accepts(101)).isFalse();
+        assertThatThrownBy(() -> append(bytes(101, 1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shortInputLeavesNoPartialRecord() throws IOException {
+        pack = open();
+        String first = append(bytes(40, 1));
+
+        assertThatThrownBy(() -> pack.append(sha(bytes(40, 2)), new ByteArrayInputStream(bytes(10, 2)), 40))
+                .isInstanceOf(IOException.class);
+
+        String next = append(bytes(40, 3));
+        assertThat(next).startsWith("pack/1/136/40/");
+        assertThat(read(first)).isEqualTo(bytes(40, 1));
+        assertThat(read(next)).isEqualTo(bytes(40, 3));
+    }
+
+    @Test
+    void restartRebuildsIndexAndCutsOffTornRecord() throws IOException {
+        pack = open();
+        byte[] a = bytes(20, 1);
+        byte[] b = bytes(20, 2);
+        String keyA = append(a);
+        String keyB = append(b);
+        pack.close();
+
+        // the node died in the middle of the next record's header
+        Path segment = root.resolve("packs/segment-00000001.pack");
+        long complete = Files.size(segment);
+        Files.write(segment, new byte[] { 0x50, 0x41, 0x4b }, StandardOpenOption.APPEND);
+
+        pack = open();
+
+        assertThat(Files.size(segment)).isEqualTo(complete);
+        assertThat(pack.existingKey(sha(a))).isEqualTo(keyA);
+        assertThat(pack.existingKey(sha(b))).isEqualTo(keyB);
+        assertThat(read(keyB)).isEqualTo(b);
+        assertThat(append(bytes(10, 3))).startsWith("pack/1/" + (complete + 48) + "/10/");
+    }
+
+    @Test
+    void compactionMovesLiveRecordsAndDefersTheDelete() throws IOException {
+        pack = open();
+        byte[] live = bytes(40, 1);
+        byte[] dead = bytes(40, 2);
+        String liveKey = append(live);
+        String deadKey = append(dead);
+        // does not fit into segment 1 any more: segment 1 is sealed
+        assertThat(append(bytes(40, 3))).startsWith("pack/2/");
+        pack.release(deadKey);
+
+        when(fileRepository.findStorageKeysStartingWith("pack/1/"))
+                .thenReturn(List.of(liveKey))
+                .thenReturn(List.of(liveKey))
+                .thenReturn(List.of());
+
+        // run 1: half dead, taken out of the dedup index
+        pack.compact();
+        assertThat(pack.existingKey(sha(live))).isNull();
+
+        // run 2: the live record is copied and its rows re-pointed; the segment is only renamed
+        pack.compact();
+        verify(fileRepository).moveStorageKey(eq(liveKey), anyString());
+        String movedKey = pack.existingKey(sha(live));
+        assertThat(movedKey).startsWith("pack/2/");
+        assertThat(read(movedKey)).isEqualTo(live);
+        Path packs = root.resolve("packs");
+        assertThat(packs.resolve("segment-00000001.pack")).doesNotExist();
+        assertThat(packs.resolve("segment-00000001.pack.dead")).exists();
+        // a download that still holds the old key is served from the renamed segment
+        assertThat(read(liveKey)).isEqualTo(live);
+
+        // run 3: the renamed segment is gone
+        pack.compact();
+        assertThat(packs.resolve("segment-00000001.pack.dead")).doesNotExist();
+        assertThat(pack.locate(liveKey)).isNull();
+    }
+
+    @Test
+    void renamedSegmentIsNotScannedOnRestart() throws IOException {
+        pack = open();
+        byte[] bytes = bytes(40, 1);
+        append(bytes);
+        pack.close();
+        Path packs = root.resolve("packs");
+        Files.move(packs.resolve("segment-00000001.pack"), packs.resolve("segment-00000001.pack.dead"));
+
+        pack = open();
+
+        assertThat(pack.existingKey(sha(bytes))).isNull();
+    }
+
+    private PackStorageBackend open() {
+        // room for two 40-byte records per segment
+        return new PackStorageBackend(fileRepository, new SimpleMeterRegistry(), root.toString(), 200, 100, 0.5);
+    }
+
+    private String append(byte[] bytes) throws IOException {
+        return pack.append(sha(bytes), new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private byte[] read(String key) throws IOException {
+        StoredBytes stored = pack.locate(key);
+        assertThat(stored).as(key).isNotNull();
+        try (FileChannel ch = FileChannel.open(stored.file(), StandardOpenOption.READ);
+             InputStream in = Channels.newInputStream(ch.position(stored.offset()))) {
+            return in.readNBytes((int) stored.length());
+        }
+    }
+
+    private static byte[] bytes(int n, int seed) {
+        byte[] bytes = new byte[n];
+        Arrays.fill(bytes, (byte) seed);
+        return bytes;
+    }
+
+    private static String sha(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
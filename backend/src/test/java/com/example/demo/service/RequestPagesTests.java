@@ -0,0 +1,59 @@
+package com.example.demo.service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class RequestPagesTests {
+
+    @Test
+    void cursorRoundTripsCreatedAtAndId() {
+        OffsetDateTime createdAt = OffsetDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000, ZoneOffset.ofHours(2));
+        UUID id = UUID.randomUUID();
+
+        RequestPages.Cursor cursor = RequestPages.decode(RequestPages.encode(createdAt, id));
+
+        assertThat(cursor.createdAt()).isEqualTo(createdAt.withOffsetSameInstant(ZoneOffset.UTC));
+        assertThat(cursor.createdAt().toInstant()).isEqualTo(createdAt.toInstant());
+        assertThat(cursor.id()).isEqualTo(id);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = RequestPages.encode(OffsetDateTime.now(), UUID.randomUUID());
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertThat(RequestPages.decode(null)).isNull();
+        assertThat(RequestPages.decode("  ")).isNull();
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() {
+        for (String bad : new String[] { "not base64!", "bm8tYmFy", "eHw=", "MjAyNXx4eXo" }) {
+            assertThatThrownBy(() -> RequestPages.decode(bad))
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                        assertThat(e.getReason()).isEqualTo("CURSOR_INVALID");
+                    });
+        }
+    }
+
+    @Test
+    void limitIsClamped() {
+        assertThat(RequestPages.size(null)).isEqualTo(RequestPages.DEFAULT_LIMIT);
+        assertThat(RequestPages.size(0)).isEqualTo(1);
+        assertThat(RequestPages.size(-5)).isEqualTo(1);
+        assertThat(RequestPages.size(50)).isEqualTo(50);
+        assertThat(RequestPages.size(100_000)).isEqualTo(RequestPages.MAX_LIMIT);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs against the MinIO service of docker-compose.yml (docker compose --profile s3 up minio minio-init);
+ * skipped when nothing listens on S3_TEST_ENDPOINT (default http://localhost:9000).
+ */
+class S3StorageBackendTests {
+
+    private static final String ENDPOINT = System.getenv().getOrDefault("S3_TEST_ENDPOINT", "http://localhost:9000");
+    private static final String BUCKET = System.getenv().getOrDefault("S3_TEST_BUCKET", "egov-uploads");
+    private static final int PART_BYTES = 5 * 1024 * 1024;
+
+    private S3StorageBackend s3;
+
+    @BeforeEach
+    void connect() {
+        assumeTrue(reachable(URI.create(ENDPOINT)), "no MinIO at " + ENDPOINT);
+        s3 = new S3StorageBackend(new SimpleMeterRegistry(), BUCKET, ENDPOINT, "us-east-1",
+                "minioadmin", "minioadmin", true, PART_BYTES);
+    }
+
+    @AfterEach
+    void close() {
+        if (s3 != null) s3.close();
+    }
+
+    @Test
+    void stagePromoteReadRelease() throws IOException {
+        byte[] bytes = randomBytes(64 * 1024);
+        UUID fileId = UUID.randomUUID();
+
+        String sha256 = s3.stage(fileId, new ByteArrayInputStream(bytes), bytes.length, "application/pdf");
+        assertThat(sha256).isEqualTo(sha256(bytes));
+
+        String key = S3StorageBackend.blobKey(sha256);
+        s3.promote(fileId, key, null);
+        try {
+            assertThat(s3.existingKey(sha256)).isEqualTo(key);
+            try (InputStream in = s3.open(key, 1000, 24)) {
+                assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(bytes, 1000, 1024));
+            }
+        } finally {
+            s3.release(key);
+        }
+        assertThat(s3.existingKey(sha256)).isNull();
+        assertThatThrownBy(() -> s3.open(key, 0, 1).read()).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void understatedSizeStillUploadsEverythingAsMultipart() throws IOException {
+        // longer than one part, declared as tiny: the first buffer has to grow
+        byte[] bytes = randomBytes(PART_BYTES + 123_456);
+        UUID fileId = UUID.randomUUID();
+
+        String sha256 = s3.stage(fileId, new ByteArrayInputStream(bytes), 10, "application/octet-stream");
+        assertThat(sha256).isEqualTo(sha256(bytes));
+
+        String key = S3StorageBackend.blobKey(sha256);
+        s3.promote(fileId, key, null);
+        try {
+            try (InputStream in = s3.open(key, bytes.length - 100, 100)) {
+                assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(bytes, bytes.length - 100, bytes.length));
+            }
+        } finally {
+            s3.release(key);
+        }
+    }
+
+    @Test
+    void promoteWithoutStagedObjectReuploadsFromSource() throws IOException {
+        byte[] bytes = randomBytes(4096);
+        String sha256 = sha256(bytes);
+        String key = S3StorageBackend.blobKey(sha256);
+
+        s3.promote(UUID.randomUUID(), key, () -> new ByteArrayInputStream(bytes));
+        try {
+            try (InputStream in = s3.open(key, 0, bytes.length)) {
+                assertThat(in.readAllBytes()).isEqualTo(bytes);
+            }
+        } finally {
+            s3.release(key);
+        }
+    }
+
+    private static boolean reachable(URI endpoint) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(endpoint.getHost(), endpoint.getPort()), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static byte[] randomBytes(int n) {
+        byte[] bytes = new byte[n];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+class UploadSessionServiceTests {
+
+    private static final UUID OWNER = UUID.randomUUID();
+
+    @TempDir
+    Path dir;
+
+    private final byte[] bytes = randomBytes(300_000);
+
+    @Test
+    void chunksAppendAtTheReceivedOffset() throws IOException {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+
+        assertThat(append(uploads, id, 0, 100_000).receivedBytes()).isEqualTo(100_000);
+        assertThat(append(uploads, id, 100_000, 200_000).receivedBytes()).isEqualTo(300_000);
+
+        UploadSessionService.UploadStatus done = uploads.complete(OWNER, id, sha256(bytes));
+        assertThat(done.completed()).isTrue();
+        assertThat(done.sha256()).isEqualTo(sha256(bytes));
+
+        MultipartFile file = uploads.fileOrUpload(OWNER, null, id);
+        assertThat(file.getSize()).isEqualTo(bytes.length);
+        assertThat(file.getBytes()).isEqualTo(bytes);
+        assertThat(((UploadSessionService.CompletedUpload) file).sha256()).isEqualTo(sha256(bytes));
+    }
+
+    @Test
+    void chunkAtAnotherOffsetIsRejected() {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+        append(uploads, id, 0, 1000);
+
+        // a retried chunk that already arrived, and one that skips ahead
+        expectStatus(() -> append(uploads, id, 0, 1000), HttpStatus.CONFLICT, "UPLOAD_OFFSET_MISMATCH");
+        expectStatus(() -> append(uploads, id, 2000, 1000), HttpStatus.CONFLICT, "UPLOAD_OFFSET_MISMATCH");
+        assertThat(uploads.status(OWNER, id).receivedBytes()).isEqualTo(1000);
+    }
+
+    @Test
+    void interruptedChunkKeepsWhatArrivedAndResumesThere() {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+
+        // the client sends 150 000 of a 200 000-byte chunk, then the connection drops
+        InputStream dropped = new InputStream() {
+            private final InputStream in = new ByteArrayInputStream(bytes, 0, 150_000);
+
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b == -1) throw new IOException("connection reset");
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = in.read(buf, off, len);
+                if (n == -1) throw new IOException("connection reset");
+                return n;
+            }
+        };
+        UploadSessionService.UploadStatus status = uploads.append(OWNER, id, 0, 200_000, dropped);
+        assertThat(status.receivedBytes()).isEqualTo(150_000);
+
+        append(uploads, id, status.receivedBytes(), bytes.length - status.receivedBytes());
+        assertThat(uploads.complete(OWNER, id, null).sha256()).isEqualTo(sha256(bytes));
+    }
+
+    @Test
+    void sessionSurvivesARestart() throws IOException {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+        append(uploads, id, 0, 120_000);
+        // the node dies while writing the next chunk: bytes on disk that the session never recorded
+        Files.write(dir.resolve(id.toString()).resolve("data"), Arrays.copyOfRange(bytes, 120_000, 125_000),
+                StandardOpenOption.APPEND);
+
+        UploadSessionService restarted = service();
+
+        UploadSessionService.UploadStatus status = restarted.status(OWNER, id);
+        assertThat(status.receivedBytes()).isEqualTo(120_000);
+        assertThat(status.fileName()).isEqualTo("big.pdf");
+        assertThat(Files.size(dir.resolve(id.toString()).resolve("data"))).isEqualTo(120_000);
+
+        // the digest is rebuilt from disk, so the final hash still covers every byte
+        append(restarted, id, 120_000, bytes.length - 120_000);
+        assertThat(restarted.complete(OWNER, id, sha256(bytes)).sha256()).isEqualTo(sha256(bytes));
+    }
+
+    @Test
+    void completedSessionSurvivesARestart() {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+        append(uploads, id, 0, bytes.length);
+        uploads.complete(OWNER, id, null);
+
+        UploadSessionService restarted = service();
+
+        assertThat(restarted.status(OWNER, id).sha256()).isEqualTo(sha256(bytes));
+        expectStatus(() -> append(restarted, id, bytes.length, 1), HttpStatus.CONFLICT, "UPLOAD_ALREADY_COMPLETED");
+    }
+
+    @Test
+    void completeChecksSizeAndChecksum() {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+        append(uploads, id, 0, 1000);
+
+        expectStatus(() -> uploads.complete(OWNER, id, null), HttpStatus.CONFLICT, "UPLOAD_INCOMPLETE");
+        expectStatus(() -> uploads.fileOrUpload(OWNER, null, id), HttpStatus.CONFLICT, "UPLOAD_NOT_COMPLETED");
+
+        append(uploads, id, 1000, bytes.length - 1000);
+        expectStatus(() -> uploads.complete(OWNER, id, "00".repeat(32)), HttpStatus.CONFLICT, "UPLOAD_CHECKSUM_MISMATCH");
+    }
+
+    @Test
+    void chunkCannotGoPastTheDeclaredSize() {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+
+        expectStatus(() -> uploads.append(OWNER, id, 0, bytes.length + 1, new ByteArrayInputStream(new byte[0])),
+                HttpStatus.BAD_REQUEST, "UPLOAD_EXCEEDS_DECLARED_SIZE");
+        expectStatus(() -> uploads.append(OWNER, id, 0, 600_000, new ByteArrayInputStream(new byte[0])),
+                HttpStatus.PAYLOAD_TOO_LARGE, "UPLOAD_CHUNK_TOO_LARGE");
+    }
+
+    @Test
+    void anotherUsersUploadIsNotFound() {
+        UploadSessionService uploads = service();
+        UUID id = create(uploads);
+
+        expectStatus(() -> uploads.status(UUID.randomUUID(), id), HttpStatus.NOT_FOUND, "UPLOAD_NOT_FOUND");
+        append(uploads, id, 0, 10);
+        uploads.discard(UUID.randomUUID(), id);
+        assertThat(uploads.status(OWNER, id).receivedBytes()).isEqualTo(10);
+
+        uploads.discard(OWNER, id);
+        expectStatus(() -> uploads.status(OWNER, id), HttpStatus.NOT_FOUND, "UPLOAD_NOT_FOUND");
+    }
+
+    @Test
+    void openSessionsArePerOwnerLimited() {
+        UploadSessionService uploads = service();
+        UUID first = create(uploads);
+        create(uploads);
+        create(uploads);
+
+        expectStatus(() -> create(uploads), HttpStatus.CONFLICT, "TOO_MANY_UPLOADS");
+        // other owners have their own allowance, also for sessions this node only knows from disk
+        assertThat(uploads.create(UUID.randomUUID(), "a.pdf", "application/pdf", 10).uploadId()).isNotNull();
+        expectStatus(() -> create(service()), HttpStatus.CONFLICT, "TOO_MANY_UPLOADS");
+
+        uploads.discard(OWNER, first);
+        assertThat(create(uploads)).isNotNull();
+    }
+
+    private UploadSessionService service() {
+        return new UploadSessionService(dir.toString(), 512 * 1024, Duration.ofHours(1), 3);
+    }
+
+    private UUID create(UploadSessionService uploads) {
+        return uploads.create(OWNER, "big.pdf", "application/pdf", bytes.length).uploadId();
+    }
+
+    private UploadSessionService.UploadStatus append(UploadSessionService uploads, UUID id, long offset, long length) {
+        return uploads.append(OWNER, id, offset, length,
+                new ByteArrayInputStream(bytes, (int) offset, (int) length));
+    }
+
+    private static void expectStatus(ThrowingCallable call, HttpStatus status, String reason) {
+        assertThatThrownBy(call).isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+            assertThat(e.getStatusCode()).isEqualTo(status);
+            assertThat(e.getReason()).isEqualTo(reason);
+        });
+    }
+
+    private static byte[] randomBytes(int n) {
+        byte[] b = new byte[n];
+        new Random(42).nextBytes(b);
+        return b;
+    }
+
+    private static String sha256(byte[] b) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(b));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
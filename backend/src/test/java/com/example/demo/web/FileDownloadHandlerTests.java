@@ -0,0 +1,204 @@
+package com.example.demo.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.demo.domain.AppFile;
+import com.example.demo.service.FileStorageService;
+import com.example.demo.service.ImageDerivativeService;
+import com.example.demo.service.PdfPreviewService;
+import com.example.demo.service.StoredBytes;
+
+class FileDownloadHandlerTests {
+
+    private static final String BODY = "0123456789abcdefghij";
+    private static final String SHA = "ab".repeat(32);
+    private static final OffsetDateTime CREATED = OffsetDateTime.of(2025, 5, 6, 7, 8, 9, 500_000_000, ZoneOffset.UTC);
+    private static final String LAST_MODIFIED = "Tue, 06 May 2025 07:08:09 GMT";
+
+    @TempDir
+    Path dir;
+
+    private final FileStorageService storage = mock(FileStorageService.class);
+    private final FileDownloadHandler handler = new FileDownloadHandler(storage, mock(ImageDerivativeService.class),
+            mock(PdfPreviewService.class), Duration.ofMinutes(5));
+    private AppFile file;
+
+    @BeforeEach
+    void storeFile() throws IOException {
+        // a pack-style region: the file's bytes start at offset 4 of the segment
+        Path segment = dir.resolve("segment");
+        Files.writeString(segment, "xxxx" + BODY + "yyyy");
+
+        file = new AppFile();
+        file.setId(UUID.randomUUID());
+        file.setSha256(SHA);
+        file.setCreatedAt(CREATED);
+        file.setStorageKey("pack/1/4/20/" + SHA);
+        file.setMimeType("application/pdf");
+        file.setOriginalName("doc.pdf");
+        file.setSizeBytes(BODY.length());
+        when(storage.resolve(any())).thenReturn(
+                new FileStorageService.Location(file.getStorageKey(), new StoredBytes(segment, 4, BODY.length())));
+    }
+
+    @Test
+    void fullFileWithValidators() throws IOException {
+        MockHttpServletResponse res = get(new MockHttpServletRequest("GET", "/f"));
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentAsString()).isEqualTo(BODY);
+        assertThat(res.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + SHA + "\"");
+        assertThat(res.getHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(LAST_MODIFIED);
+        assertThat(res.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(res.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("private, max-age=300, immutable");
+        assertThat(res.getContentLengthLong()).isEqualTo(BODY.length());
+    }
+
+    @Test
+    void closedRange() throws IOException {
+        MockHttpServletResponse res = get(range("bytes=2-5"));
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+        assertThat(res.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void openAndSuffixRanges() throws IOException {
+        assertThat(get(range("bytes=15-")).getContentAsString()).isEqualTo("fghij");
+        assertThat(get(range("bytes=-3")).getContentAsString()).isEqualTo("hij");
+        // longer than the file: the whole file, still as a 206
+        MockHttpServletResponse suffix = get(range("bytes=-100"));
+        assertThat(suffix.getStatus()).isEqualTo(206);
+        assertThat(suffix.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-19/20");
+        // the end is clamped to the last byte
+        assertThat(get(range("bytes=18-1000")).getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 18-19/20");
+    }
+
+    @Test
+    void rangePastTheEndIsUnsatisfiable() throws IOException {
+        for (String header : new String[] { "bytes=20-", "bytes=25-30", "bytes=-0" }) {
+            MockHttpServletResponse res = get(range(header));
+
+            assertThat(res.getStatus()).as(header).isEqualTo(416);
+            assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).as(header).isEqualTo("bytes */20");
+            assertThat(res.getContentAsByteArray()).as(header).isEmpty();
+        }
+    }
+
+    @Test
+    void malformedOrMultipleRangesAreIgnored() throws IOException {
+        for (String header : new String[] { "bytes=5-2", "bytes=0-1,4-5", "items=0-5", "bytes=a-b", "bytes=5" }) {
+            MockHttpServletResponse res = get(range(header));
+
+            assertThat(res.getStatus()).as(header).isEqualTo(200);
+            assertThat(res.getContentAsString()).as(header).isEqualTo(BODY);
+        }
+    }
+
+    @Test
+    void ifRangeAppliesTheRangeOnlyWhileTheValidatorMatches() throws IOException {
+        MockHttpServletRequest byEtag = range("bytes=0-1");
+        byEtag.addHeader(HttpHeaders.IF_RANGE, "\"" + SHA + "\"");
+        assertThat(get(byEtag).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest byDate = range("bytes=0-1");
+        byDate.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED);
+        assertThat(get(byDate).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest stale = range("bytes=0-1");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+        assertThat(get(stale).getStatus()).isEqualTo(200);
+
+        // If-Range uses strong comparison
+        MockHttpServletRequest weak = range("bytes=0-1");
+        weak.addHeader(HttpHeaders.IF_RANGE, "W/\"" + SHA + "\"");
+        assertThat(get(weak).getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest oldDate = range("bytes=0-1");
+        oldDate.addHeader(HttpHeaders.IF_RANGE, "Mon, 05 May 2025 07:08:09 GMT");
+        assertThat(get(oldDate).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModifiedWithoutTouchingStorage() throws IOException {
+        for (String header : new String[] { "\"" + SHA + "\"", "W/\"" + SHA + "\"", "\"x\", \"" + SHA + "\"", "*" }) {
+            MockHttpServletRequest req = new MockHttpServletRequest("GET", "/f");
+            req.addHeader(HttpHeaders.IF_NONE_MATCH, header);
+
+            MockHttpServletResponse res = get(req);
+
+            assertThat(res.getStatus()).as(header).isEqualTo(304);
+            assertThat(res.getHeader(HttpHeaders.ETAG)).as(header).isEqualTo("\"" + SHA + "\"");
+            assertThat(res.getContentAsByteArray()).as(header).isEmpty();
+        }
+        verify(storage, never()).resolve(any());
+    }
+
+    @Test
+    void ifModifiedSinceIsOnlyUsedWithoutIfNoneMatch() throws IOException {
+        MockHttpServletRequest current = new MockHttpServletRequest("GET", "/f");
+        current.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+        assertThat(get(current).getStatus()).isEqualTo(304);
+
+        MockHttpServletRequest older = new MockHttpServletRequest("GET", "/f");
+        older.addHeader(HttpHeaders.IF_MODIFIED_SINCE,
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(CREATED.minusDays(1)));
+        assertThat(get(older).getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest both = new MockHttpServletRequest("GET", "/f");
+        both.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        both.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+        assertThat(get(both).getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest garbage = new MockHttpServletRequest("GET", "/f");
+        garbage.addHeader(HttpHeaders.IF_MODIFIED_SINCE, "yesterday");
+        assertThat(get(garbage).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void headHasHeadersButNoBody() throws IOException {
+        MockHttpServletRequest req = new MockHttpServletRequest("HEAD", "/f");
+        req.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+
+        MockHttpServletResponse res = get(req);
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getContentLengthLong()).isEqualTo(10);
+        assertThat(res.getContentAsByteArray()).isEmpty();
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        handler.serve(file, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest range(String header) {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/f");
+        req.addHeader(HttpHeaders.RANGE, header);
+        return req;
+    }
+}
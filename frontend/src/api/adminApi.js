@@ -1,10 +1,10 @@
 // src/api/adminApi.js
-import { http } from "./http";
+import { http, httpAllPages, httpPage, queryString } from "./http";
 import { getAuthHeader, requireAdmin } from "../auth/authStorage";
 
 /**
  * Admin endpoints (Spring Boot):
- * - GET    /api/admin/registrations?status=PENDING|ACTIVE
+ * - GET    /api/admin/registrations?status=PENDING|ACTIVE&cursor=&limit= (next page cursor in X-Next-Cursor)
  * - PATCH  /api/admin/registrations/{id}/approve
  * - DELETE /api/admin/registrations/{id}
  *
@@ -17,9 +17,19 @@ import { getAuthHeader, requireAdmin } from "../auth/authStorage";
 
 export async function listRegistrations(status = "PENDING") {
   requireAdmin();
-  const qs = new URLSearchParams({ status }).toString();
-  return http(`/api/admin/registrations?${qs}`, {
-    method: "GET",
+  return httpAllPages(`/api/admin/registrations${queryString({ status })}`, {
+    authHeader: getAuthHeader(),
+  });
+}
+
+/**
+ * One page of the registration queue, newest first. Pass the returned nextCursor back to get the next
+ * page; it is null on the last one.
+ * @returns {Promise<{ items: any[], nextCursor: string|null }>}
+ */
+export async function listRegistrationsPage({ status = "PENDING", cursor, limit } = {}) {
+  requireAdmin();
+  return httpPage(`/api/admin/registrations${queryString({ status, cursor, limit })}`, {
     authHeader: getAuthHeader(),
   });
 }
@@ -1,5 +1,5 @@
 // src/api/adminDocumentsApi.js
-import { http } from "./http";
+import { http, httpAllPages, httpPage, queryString } from "./http";
 import { getAuthHeader, requireAdmin } from "../auth/authStorage";
 
 function enc(x) {
@@ -8,7 +8,7 @@ function enc(x) {
 
 /**
  * ADMIN Documents endpoints:
- * - GET   /api/admin/document-requests?status=PENDING|APPROVED|REJECTED
+ * - GET   /api/admin/document-requests?status=PENDING|APPROVED|REJECTED&kind=&cursor=&limit= (next page cursor in X-Next-Cursor)
  * - GET   /api/admin/document-requests/{id}
  * - PATCH /api/admin/document-requests/{id}/approve?note=...
  * - PATCH /api/admin/document-requests/{id}/reject   (body: { note })
@@ -18,9 +18,19 @@ function enc(x) {
 
 export async function listAdminDocumentRequests(status /* optional */) {
   requireAdmin();
-  const qs = status ? `?${new URLSearchParams({ status }).toString()}` : "";
-  return http(`/api/admin/document-requests${qs}`, {
-    method: "GET",
+  return httpAllPages(`/api/admin/document-requests${queryString({ status })}`, {
+    authHeader: getAuthHeader(),
+  });
+}
+
+/**
+ * One page, newest first (status omitted = every status except REJECTED). Pass the returned nextCursor back to get the
+ * next page; it is null on the last one.
+ * @returns {Promise<{ items: any[], nextCursor: string|null }>}
+ */
+export async function listAdminDocumentRequestsPage({ status, kind, cursor, limit } = {}) {
+  requireAdmin();
+  return httpPage(`/api/admin/document-requests${queryString({ status, kind, cursor, limit })}`, {
     authHeader: getAuthHeader(),
   });
 }
@@ -1,5 +1,5 @@
 // src/api/adminHealthRequestsApi.js
-import { http } from "./http";
+import { http, httpAllPages, httpPage, queryString } from "./http";
 import { getAuthHeader, requireAdmin } from "../auth/authStorage";
 
 function enc(x) {
@@ -8,10 +8,19 @@ function enc(x) {
 
 export async function listAdminHealthRequests(status /* optional */) {
   requireAdmin();
+  return httpAllPages(`/api/admin/health-requests${queryString({ status })}`, {
+    authHeader: getAuthHeader(),
+  });
+}
 
-  const qs = status ? `?${new URLSearchParams({ status }).toString()}` : "";
-  return http(`/api/admin/health-requests${qs}`, {
-    method: "GET",
+/**
+ * One page, newest first (status omitted = every status). Pass the returned nextCursor back to get the
+ * next page; it is null on the last one.
+ * @returns {Promise<{ items: any[], nextCursor: string|null }>}
+ */
+export async function listAdminHealthRequestsPage({ status, kind, cursor, limit } = {}) {
+  requireAdmin();
+  return httpPage(`/api/admin/health-requests${queryString({ status, kind, cursor, limit })}`, {
     authHeader: getAuthHeader(),
   });
 }
@@ -1,10 +1,10 @@
 // src/api/adminPropertyApi.js
-import { http } from "./http";
+import { http, httpAllPages, httpPage, queryString } from "./http";
 import { getAuthHeader, requireAdmin } from "../auth/authStorage";
 
 /**
  * Property Requests (Admin) endpoints:
- * - GET    /api/admin/property-requests?status=PENDING|APPROVED|REJECTED
+ * - GET    /api/admin/property-requests?status=PENDING|APPROVED|REJECTED&kind=&cursor=&limit= (next page cursor in X-Next-Cursor)
  * - GET    /api/admin/property-requests/{id}
  * - PATCH  /api/admin/property-requests/{id}/approve
  * - PATCH  /api/admin/property-requests/{id}/reject   (json: { note })
@@ -17,9 +17,19 @@ function enc(x) {
 
 export async function listAdminPropertyRequests(status = "PENDING") {
   requireAdmin();
-  const qs = new URLSearchParams({ status }).toString();
-  return http(`/api/admin/property-requests?${qs}`, {
-    method: "GET",
+  return httpAllPages(`/api/admin/property-requests${queryString({ status })}`, {
+    authHeader: getAuthHeader(),
+  });
+}
+
+/**
+ * One page, newest first (status omitted = every status except REJECTED). Pass the returned nextCursor back to get the
+ * next page; it is null on the last one.
+ * @returns {Promise<{ items: any[], nextCursor: string|null }>}
+ */
+export async function listAdminPropertyRequestsPage({ status, kind, cursor, limit } = {}) {
+  requireAdmin();
+  return httpPage(`/api/admin/property-requests${queryString({ status, kind, cursor, limit })}`, {
     authHeader: getAuthHeader(),
   });
 }
@@ -1,11 +1,11 @@
 // src/api/adminTransportApi.js
-import { http } from "./http";
+import { http, httpAllPages, httpPage, queryString } from "./http";
 import { getAuthHeader, requireAdmin } from "../auth/authStorage";
 
 /**
  * ADMIN Transport endpoints (matches provided Backend):
  * - Requests:
- *   GET   /api/admin/transport-requests?status=PENDING|APPROVED|REJECTED
+ *   GET   /api/admin/transport-requests?status=PENDING|APPROVED|REJECTED&kind=&cursor=&limit= (next page cursor in X-Next-Cursor)
  *   GET   /api/admin/transport-requests/{id}
  *   PATCH /api/admin/transport-requests/{id}/approve
  *   PATCH /api/admin/transport-requests/{id}/reject (body: { note })
@@ -22,9 +22,19 @@ function enc(x) {
 
 export async function listAdminTransportRequests(status = "PENDING") {
   requireAdmin();
-  const qs = new URLSearchParams({ status }).toString();
-  return http(`/api/admin/transport-requests?${qs}`, {
-    method: "GET",
+  return httpAllPages(`/api/admin/transport-requests${queryString({ status })}`, {
+    authHeader: getAuthHeader(),
+  });
+}
+
+/**
+ * One page, newest first (status omitted = every status except REJECTED). Pass the returned nextCursor back to get the
+ * next page; it is null on the last one.
+ * @returns {Promise<{ items: any[], nextCursor: string|null }>}
+ */
+export async function listAdminTransportRequestsPage({ status, kind, cursor, limit } = {}) {
+  requireAdmin();
+  return httpPage(`/api/admin/transport-requests${queryString({ status, kind, cursor, limit })}`, {
     authHeader: getAuthHeader(),
   });
 }
@@ -11,6 +11,9 @@ const DEFAULT_HEADERS = {
   Accept: "application/json",
 };
 
+// keyset-paged admin lists: cursor of the next page (absent on the last one)
+const NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
 /**
  * @param {string} path e.g. "/api/auth/login"
  * @param {object} options
@@ -21,12 +24,69 @@ const DEFAULT_HEADERS = {
  * @param {"json"|"text"|"blob"} [options.responseType] default "json"
  */
 export async function http(path, options = {}) {
+  const { responseType = "json" } = options;
+  const res = await send(path, options);
+
+  // OK response
+  if (responseType === "blob") {
+    return res.blob();
+  }
+
+  if (responseType === "text") {
+    return res.text();
+  }
+
+  return readJsonOrText(res);
+}
+
+/**
+ * GET of a keyset-paged admin list: one page as a JSON array plus the next page's cursor.
+ *
+ * @returns {Promise<{ items: any[], nextCursor: string|null }>}
+ */
+export async function httpPage(path, options = {}) {
+  const res = await send(path, { ...options, method: "GET" });
+  const data = await readJsonOrText(res);
+  return {
+    items: Array.isArray(data) ? data : [],
+    nextCursor: res.headers.get(NEXT_CURSOR_HEADER) || null,
+  };
+}
+
+/**
+ * "?a=1&b=2" from the given params, skipping null/undefined/"" values ("" when nothing is left).
+ */
+export function queryString(params = {}) {
+  const qs = new URLSearchParams();
+  for (const [k, v] of Object.entries(params)) {
+    if (v !== null && v !== undefined && v !== "") qs.set(k, String(v));
+  }
+  const s = qs.toString();
+  return s ? `?${s}` : "";
+}
+
+/**
+ * Follows X-Next-Cursor until the last page and returns every item (for counters and merges that need
+ * the whole list; list pages should use httpPage and load more on demand).
+ */
+export async function httpAllPages(path, options = {}) {
+  const all = [];
+  let cursor = null;
+  do {
+    const url = cursor ? `${path}${path.includes("?") ? "&" : "?"}${queryString({ cursor }).slice(1)}` : path;
+    const page = await httpPage(url, options);
+    all.push(...page.items);
+    cursor = page.nextCursor;
+  } while (cursor);
+  return all;
+}
+
+async function send(path, options) {
   const {
     method = "GET",
     body = null,
     authHeader = null,
     headers = {},
-    responseType = "json",
   } = options;
 
   const isFormData = typeof FormData !== "undefined" && body instanceof FormData;
@@ -91,19 +151,14 @@ export async function http(path, options = {}) {
     throw err;
   }
 
-  // OK response
-  if (responseType === "blob") {
-    return res.blob();
-  }
+  return res;
+}
 
+// json if possible, else text
+async function readJsonOrText(res) {
   const contentType = res.headers.get("content-type") || "";
   const isJson = contentType.includes("application/json");
 
-  if (responseType === "text") {
-    return res.text();
-  }
-
-  // default: json if possible, else text
   if (isJson) {
     try {
       return await res.json();
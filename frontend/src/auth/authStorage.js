@@ -1,14 +1,13 @@
 // src/auth/authStorage.js
 
 /**
- * Stores authentication info for Basic Auth flow.
+ * Stores authentication info.
  *
  * We store:
  * - role: "user" | "admin"
- * - basicToken: base64("identifier:password")
- *
- * NOTE: This is fine for your current setup (Basic Auth, no JWT),
- * but in a production app you’d usually switch to JWT/refresh tokens.
+ * - accessToken: signed short-lived token returned by the login endpoints (sent as Bearer)
+ * - basicToken: base64("identifier:password") - only kept when the login returned no accessToken
+ *   (backend with Basic fallback enabled), so the password is not sitting in sessionStorage otherwise
  */
 
 const STORAGE_KEY = "egov_auth";
@@ -16,7 +15,8 @@ const STORAGE_KEY = "egov_auth";
 /**
  * @typedef {{
  *   role: "user" | "admin",
- *   basicToken: string
+ *   accessToken?: string | null,
+ *   basicToken?: string | null
  * }} AuthState
  */
 
@@ -33,10 +33,10 @@ function writeState(state) {
   sessionStorage.setItem(STORAGE_KEY, JSON.stringify(state));
 }
 
-export function setAuth(role, identifier, password) {
-  const basicToken = btoa(`${identifier}:${password}`);
+export function setAuth(role, identifier, password, accessToken = null) {
+  const basicToken = accessToken ? null : btoa(`${identifier}:${password}`);
   /** @type {AuthState} */
-  const state = { role, basicToken };
+  const state = { role, accessToken, basicToken };
   writeState(state);
   return state;
 }
@@ -52,11 +52,12 @@ export function getRole() {
 
 export function isAuthed() {
   const state = readState();
-  return Boolean(state?.basicToken && state?.role);
+  return Boolean((state?.accessToken || state?.basicToken) && state?.role);
 }
 
 export function getAuthHeader() {
   const state = readState();
+  if (state?.accessToken) return `Bearer ${state.accessToken}`;
   if (!state?.basicToken) return null;
   return `Basic ${state.basicToken}`;
 }
@@ -37,8 +37,8 @@ export async function loginUser({ egn, password }) {
 
   const res = await authApi.loginUser({ egn: e, password });
 
-  // Save Basic auth for protected routes
-  setAuth("user", e, password);
+  // Save the access token (Basic credentials are kept only as a fallback)
+  setAuth("user", e, password, res?.accessToken ?? null);
 
   // Keep UI compatibility (some pages read currentUser from localStorage)
   try {
@@ -59,7 +59,7 @@ export async function loginAdmin({ username, password }) {
 
   const res = await authApi.loginAdmin({ username: u, password });
 
-  setAuth("admin", u, password);
+  setAuth("admin", u, password, res?.accessToken ?? null);
 
   try {
     const snapshot = { ...(res || {}), username: u, role: "admin" };
@@ -76,6 +76,11 @@ export async function getRegistrationRequests() {
   return adminApi.listRegistrations("PENDING");
 }
 
+/** one page of pending registrations: { items, nextCursor } */
+export async function getRegistrationRequestsPage(cursor = null) {
+  return adminApi.listRegistrationsPage({ status: "PENDING", cursor });
+}
+
 export async function approveRegistrationRequest(userId) {
   if (!userId) throw new Error("Липсва ID на потребителя.");
   return adminApi.approveRegistration(userId);
@@ -1,34 +1,25 @@
-import { useEffect, useState } from "react";
 import { useNavigate } from "react-router-dom";
 
-import { listAdminDocumentRequests } from "../../../api/adminDocumentsApi";
+import { listAdminDocumentRequestsPage } from "../../../api/adminDocumentsApi";
 import {
   DOCUMENT_REQUEST_STATUSES,
   documentTypeLabel,
   requestStatusLabel,
   kindLabel,
 } from "../../../utils/documents/documentsModel";
+import { usePagedList } from "../../../ui/usePagedList";
 
 // ✅ Property UI (коригирай пътя при нужда)
 import { PropertyShell, PropertyHead, Card, HeadRow, Btn } from "../../../ui/property/PropertyUI";
 
 export default function AdminDocumentRequestsPage() {
   const navigate = useNavigate();
-  const [requests, setRequests] = useState([]);
-  const [error, setError] = useState("");
-
-  useEffect(() => {
-    (async () => {
-      setError("");
-      try {
-        const all = await listAdminDocumentRequests(); // backend already excludes REJECTED by default
-        const arr = Array.isArray(all) ? all : [];
-        setRequests(arr.filter((r) => r.status !== DOCUMENT_REQUEST_STATUSES.REJECTED));
-      } catch (e) {
-        setError(e?.message || "Грешка при зареждане на заявки.");
-      }
-    })();
-  }, []);
+  // backend already excludes REJECTED when no status is given
+  const { items, hasMore, loading, error, loadMore } = usePagedList(
+    (cursor) => listAdminDocumentRequestsPage({ cursor }),
+    []
+  );
+  const requests = items.filter((r) => r.status !== DOCUMENT_REQUEST_STATUSES.REJECTED);
 
   function openReview(id) {
     navigate(`/admin/document-requests/${id}`);
@@ -48,7 +39,7 @@ export default function AdminDocumentRequestsPage() {
 
       {requests.length === 0 ? (
         <p className="pp-muted" style={{ marginTop: 10 }}>
-          Няма заявки за документи.
+          {loading ? "Зареждане..." : "Няма заявки за документи."}
         </p>
       ) : (
         <Card style={{ marginTop: 12 }}>
@@ -102,6 +93,14 @@ export default function AdminDocumentRequestsPage() {
             </tbody>
           </table>
 
+          {hasMore && (
+            <div style={{ display: "flex", justifyContent: "center", marginTop: 10 }}>
+              <Btn onClick={loadMore} disabled={loading}>
+                {loading ? "Зареждане..." : "Зареди още"}
+              </Btn>
+            </div>
+          )}
+
           <div style={{ fontSize: 12, opacity: 0.7, marginTop: 10 }}>
             * „Прегледай“ е активно само за чакащи заявки.
           </div>
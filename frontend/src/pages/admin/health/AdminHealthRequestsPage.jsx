@@ -1,7 +1,8 @@
-import { useEffect, useMemo, useState } from "react";
+import { useMemo, useState } from "react";
 import { useNavigate } from "react-router-dom";
 
-import { listAdminHealthRequests } from "../../../api/adminHealthRequestsApi";
+import { listAdminHealthRequestsPage } from "../../../api/adminHealthRequestsApi";
+import { usePagedList } from "../../../ui/usePagedList";
 
 import {
   HEALTH_REQUEST_STATUSES,
@@ -14,22 +15,13 @@ import { PropertyShell, PropertyHead, Card, HeadRow, Btn } from "../../../ui/pro
 
 export default function AdminHealthRequestsPage() {
   const navigate = useNavigate();
-  const [requests, setRequests] = useState([]);
   const [showRejected, setShowRejected] = useState(false);
 
-  async function refresh() {
-    try {
-      const list = await listAdminHealthRequests(); // all
-      setRequests(Array.isArray(list) ? list : []);
-    } catch (e) {
-      console.error(e);
-      setRequests([]);
-    }
-  }
-
-  useEffect(() => {
-    refresh();
-  }, []);
+  // all statuses, newest first; rejected ones are hidden below unless asked for
+  const { items: requests, hasMore, loading, loadMore } = usePagedList(
+    (cursor) => listAdminHealthRequestsPage({ cursor }),
+    []
+  );
 
   const visible = useMemo(() => {
     if (showRejected) return requests;
@@ -64,7 +56,7 @@ export default function AdminHealthRequestsPage() {
 
         {visible.length === 0 ? (
           <p className="pp-muted" style={{ margin: 0 }}>
-            Няма заявки за здраве.
+            {loading ? "Зареждане..." : "Няма заявки за здраве."}
           </p>
         ) : (
           <table className="pp-table">
@@ -116,6 +108,14 @@ export default function AdminHealthRequestsPage() {
             </tbody>
           </table>
         )}
+
+        {hasMore && (
+          <div style={{ display: "flex", justifyContent: "center", marginTop: 10 }}>
+            <Btn onClick={loadMore} disabled={loading}>
+              {loading ? "Зареждане..." : "Зареди още"}
+            </Btn>
+          </div>
+        )}
       </Card>
     </PropertyShell>
   );
@@ -1,6 +1,6 @@
-import { useEffect, useState } from "react";
 import { useNavigate } from "react-router-dom";
-import { listAdminPropertyRequests } from "../../../api/adminPropertyApi";
+import { listAdminPropertyRequestsPage } from "../../../api/adminPropertyApi";
+import { usePagedList } from "../../../ui/usePagedList";
 
 // ✅ Property UI (пътя при теб може да е различен – ти вече си го нагласил)
 import { PropertyShell, PropertyHead, Card, HeadRow, Btn } from "../../../ui/property/PropertyUI";
@@ -55,30 +55,11 @@ function timeLeftLabel(r) {
 
 export default function AdminPropertyRequestsPage() {
   const navigate = useNavigate();
-  const [requests, setRequests] = useState([]);
-  const [error, setError] = useState("");
-
-  useEffect(() => {
-    let alive = true;
-
-    async function load() {
-      setError("");
-      try {
-        const all = await listAdminPropertyRequests("PENDING");
-        if (!alive) return;
-        const list = Array.isArray(all) ? all : [];
-        setRequests(list.filter((r) => r.status !== "REJECTED"));
-      } catch (e) {
-        if (!alive) return;
-        setError(e?.message || "Грешка при зареждане.");
-      }
-    }
-
-    load();
-    return () => {
-      alive = false;
-    };
-  }, []);
+  const { items, hasMore, loading, error, loadMore } = usePagedList(
+    (cursor) => listAdminPropertyRequestsPage({ status: "PENDING", cursor }),
+    []
+  );
+  const requests = items.filter((r) => r.status !== "REJECTED");
 
   function openReview(id) {
     navigate(`/admin/property-requests/${id}`);
@@ -97,7 +78,7 @@ export default function AdminPropertyRequestsPage() {
       )}
 
       {requests.length === 0 ? (
-        <p className="pp-muted">Няма заявки за имоти.</p>
+        <p className="pp-muted">{loading ? "Зареждане..." : "Няма заявки за имоти."}</p>
       ) : (
         <Card style={{ marginTop: 6 }}>
           <table className="pp-table">
@@ -176,6 +157,14 @@ export default function AdminPropertyRequestsPage() {
               })}
             </tbody>
           </table>
+
+          {hasMore && (
+            <div style={{ display: "flex", justifyContent: "center", marginTop: 10 }}>
+              <Btn onClick={loadMore} disabled={loading}>
+                {loading ? "Зареждане..." : "Зареди още"}
+              </Btn>
+            </div>
+          )}
         </Card>
       )}
     </PropertyShell>
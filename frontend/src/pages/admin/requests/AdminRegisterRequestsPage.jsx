@@ -1,6 +1,6 @@
 import React, { useEffect, useMemo, useState } from "react";
 import {
-  getRegistrationRequests,
+  getRegistrationRequestsPage,
   approveRegistrationRequest,
   rejectRegistrationRequest,
   getRegistrationIdCardFront,
@@ -53,9 +53,11 @@ export default function AdminRegisterRequestsPage() {
   const { showAlert } = useUiAlert();
 
   const [requests, setRequests] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [selectedId, setSelectedId] = useState(null);
 
   const [loadingList, setLoadingList] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [loadingAction, setLoadingAction] = useState(false);
 
   const [idFrontUrl, setIdFrontUrl] = useState("");
@@ -135,11 +137,12 @@ export default function AdminRegisterRequestsPage() {
     let mounted = true;
     setLoadingList(true);
 
-    getRegistrationRequests()
-      .then((rows) => {
+    getRegistrationRequestsPage()
+      .then((page) => {
         if (!mounted) return;
-        const normalized = Array.isArray(rows) ? rows.map(normalizeRow) : [];
+        const normalized = page.items.map(normalizeRow);
         setRequests(normalized);
+        setNextCursor(page.nextCursor);
 
         // auto-select first
         const firstId = normalized[0]?.id || null;
@@ -160,30 +163,39 @@ export default function AdminRegisterRequestsPage() {
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, []);
 
-  async function refreshList(keepId) {
-    setLoadingList(true);
+  async function loadMore() {
+    if (!nextCursor) return;
+    setLoadingMore(true);
     try {
-      const rows = await getRegistrationRequests();
-      const normalized = Array.isArray(rows) ? rows.map(normalizeRow) : [];
-      setRequests(normalized);
-
-      // keep selection if still exists
-      const exists = normalized.some((r) => String(r.id) === String(keepId));
-      setSelectedId(exists ? keepId : normalized[0]?.id || null);
+      const page = await getRegistrationRequestsPage(nextCursor);
+      const normalized = page.items.map(normalizeRow);
+      setRequests((prev) => {
+        const seen = new Set(prev.map((r) => String(r.id)));
+        return [...prev, ...normalized.filter((r) => !seen.has(String(r.id)))];
+      });
+      setNextCursor(page.nextCursor);
     } catch (e) {
       showAlert(e?.message || "Грешка при зареждане на заявки.", { title: "Грешка" });
     } finally {
-      setLoadingList(false);
+      setLoadingMore(false);
     }
   }
 
+  // the decided registration leaves the queue; loaded pages and the cursor stay valid
+  function removeFromList(userId) {
+    const idx = requests.findIndex((r) => String(r.id) === String(userId));
+    const rest = requests.filter((r) => String(r.id) !== String(userId));
+    setRequests(rest);
+    setSelectedId(rest[Math.min(Math.max(idx, 0), rest.length - 1)]?.id || null);
+  }
+
   async function onApprove(userId) {
     if (!userId) return;
     setLoadingAction(true);
     try {
       await approveRegistrationRequest(userId);
       showAlert("Заявката е одобрена успешно.", { title: "Съобщение" });
-      await refreshList(userId);
+      removeFromList(userId);
     } catch (e) {
       showAlert(e?.message || "Грешка при одобрение.", { title: "Грешка" });
     } finally {
@@ -197,7 +209,7 @@ export default function AdminRegisterRequestsPage() {
     try {
       await rejectRegistrationRequest(userId);
       showAlert("Заявката е отхвърлена/изтрита успешно.", { title: "Съобщение" });
-      await refreshList(userId);
+      removeFromList(userId);
     } catch (e) {
       showAlert(e?.message || "Грешка при отхвърляне.", { title: "Грешка" });
     } finally {
@@ -235,7 +247,8 @@ export default function AdminRegisterRequestsPage() {
               Чакащи заявки
             </div>
             <span className="pp-muted" style={{ fontSize: 13 }}>
-              ({requests.length})
+              ({requests.length}
+              {nextCursor ? "+" : ""})
             </span>
           </div>
 
@@ -273,6 +286,14 @@ export default function AdminRegisterRequestsPage() {
                   </button>
                 );
               })}
+
+              {nextCursor && (
+                <div style={{ display: "flex", justifyContent: "center", padding: 12 }}>
+                  <Btn onClick={loadMore} disabled={loadingMore}>
+                    {loadingMore ? "Зареждане..." : "Зареди още"}
+                  </Btn>
+                </div>
+              )}
             </div>
           )}
         </Card>
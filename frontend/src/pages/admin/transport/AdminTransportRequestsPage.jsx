@@ -1,13 +1,14 @@
-import { useEffect, useMemo, useState } from "react";
+import { useMemo, useState } from "react";
 import { useNavigate } from "react-router-dom";
 
-import { listAdminTransportRequests } from "../../../api/adminTransportApi";
+import { listAdminTransportRequestsPage } from "../../../api/adminTransportApi";
 
 import {
   VEHICLE_REQUEST_STATUSES,
   vehicleRequestKindLabel,
   vehicleRequestStatusLabel,
 } from "../../../utils/transport/vehiclesModel";
+import { usePagedList } from "../../../ui/usePagedList";
 
 // ✅ Property UI (коригирай пътя при нужда)
 import { PropertyShell, PropertyHead, Card, HeadRow, Btn } from "../../../ui/property/PropertyUI";
@@ -15,41 +16,34 @@ import { PropertyShell, PropertyHead, Card, HeadRow, Btn } from "../../../ui/pro
 export default function AdminTransportRequestsPage() {
   const navigate = useNavigate();
 
-  const [requests, setRequests] = useState([]);
   const [showRejected, setShowRejected] = useState(false);
 
-  async function load() {
-    try {
-      const basePromises = [
-        listAdminTransportRequests("PENDING").catch(() => []),
-        listAdminTransportRequests("APPROVED").catch(() => []),
-      ];
-
-      if (showRejected) basePromises.push(listAdminTransportRequests("REJECTED").catch(() => []));
-
-      const parts = await Promise.all(basePromises);
-      const merged = parts.flat().filter(Boolean);
-
-      // de-dupe by id
-      const map = new Map();
-      for (const r of merged) map.set(r.id, r);
-      setRequests(Array.from(map.values()));
-    } catch {
-      setRequests([]);
-    }
-  }
+  // without a status the backend lists everything except REJECTED; rejected ones are a second stream
+  const active = usePagedList((cursor) => listAdminTransportRequestsPage({ cursor }), []);
+  const rejected = usePagedList(
+    showRejected ? (cursor) => listAdminTransportRequestsPage({ status: "REJECTED", cursor }) : null,
+    [showRejected]
+  );
 
-  useEffect(() => {
-    load();
-    // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [showRejected]);
+  const hasMore = active.hasMore || (showRejected && rejected.hasMore);
+  const loading = active.loading || rejected.loading;
+
+  function loadMore() {
+    active.loadMore();
+    if (showRejected) rejected.loadMore();
+  }
 
   const filtered = useMemo(() => {
-    const base = [...requests];
+    // de-dupe by id (a request may be rejected between two page loads)
+    const map = new Map();
+    for (const r of active.items) map.set(r.id, r);
+    if (showRejected) for (const r of rejected.items) map.set(r.id, r);
+
+    const base = Array.from(map.values());
     base.sort((a, b) => new Date(b.createdAt || 0) - new Date(a.createdAt || 0));
     if (showRejected) return base;
     return base.filter((r) => r.status !== VEHICLE_REQUEST_STATUSES.REJECTED);
-  }, [requests, showRejected]);
+  }, [active.items, rejected.items, showRejected]);
 
   const pendingCount = useMemo(
     () => filtered.filter((r) => r.status === VEHICLE_REQUEST_STATUSES.PENDING).length,
@@ -85,7 +79,10 @@ export default function AdminTransportRequestsPage() {
 
       <Card style={{ marginTop: 12 }}>
         <HeadRow style={{ alignItems: "center" }}>
-          <span style={{ fontWeight: 900 }}>{pendingCount} чакащи</span>
+          <span style={{ fontWeight: 900 }}>
+            {pendingCount}
+            {hasMore ? "+" : ""} чакащи
+          </span>
 
           <label style={{ display: "flex", alignItems: "center", gap: 8, marginLeft: "auto" }}>
             <input type="checkbox" checked={showRejected} onChange={(e) => setShowRejected(e.target.checked)} />
@@ -95,7 +92,7 @@ export default function AdminTransportRequestsPage() {
 
         {filtered.length === 0 ? (
           <p className="pp-muted" style={{ marginTop: 10, marginBottom: 0 }}>
-            Няма заявки.
+            {loading ? "Зареждане..." : "Няма заявки."}
           </p>
         ) : (
           <table className="pp-table" style={{ marginTop: 10 }}>
@@ -146,6 +143,14 @@ export default function AdminTransportRequestsPage() {
           </table>
         )}
 
+        {hasMore && (
+          <div style={{ display: "flex", justifyContent: "center", marginTop: 10 }}>
+            <Btn onClick={loadMore} disabled={loading}>
+              {loading ? "Зареждане..." : "Зареди още"}
+            </Btn>
+          </div>
+        )}
+
         <div style={{ fontSize: 12, opacity: 0.7, marginTop: 10 }}>
           * „Прегледай“ е активно само за чакащи заявки.
         </div>
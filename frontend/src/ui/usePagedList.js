@@ -0,0 +1,63 @@
+// src/ui/usePagedList.js
+import { useCallback, useEffect, useRef, useState } from "react";
+
+/**
+ * State for a keyset-paged admin list (see httpPage): loads the first page whenever `deps` change and
+ * appends the next one on loadMore(). Pass `fetchPage = null` to keep the list empty (disabled).
+ *
+ * @param {((cursor: string|null) => Promise<{ items: any[], nextCursor: string|null }>) | null} fetchPage
+ * @param {any[]} deps
+ */
+export function usePagedList(fetchPage, deps = []) {
+  const [items, setItems] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loading, setLoading] = useState(false);
+  const [error, setError] = useState("");
+
+  // responses of an older first-page load are dropped
+  const generation = useRef(0);
+  const fetchRef = useRef(fetchPage);
+
+  useEffect(() => {
+    fetchRef.current = fetchPage;
+  });
+
+  const load = useCallback(async (cursor) => {
+    const gen = generation.current;
+    const fetcher = fetchRef.current;
+    if (!fetcher) return;
+
+    setLoading(true);
+    setError("");
+    try {
+      const page = await fetcher(cursor);
+      if (gen !== generation.current) return;
+      setItems((prev) => (cursor ? [...prev, ...page.items] : page.items));
+      setNextCursor(page.nextCursor);
+    } catch (e) {
+      if (gen !== generation.current) return;
+      setError(e?.message || "Грешка при зареждане.");
+    } finally {
+      if (gen === generation.current) setLoading(false);
+    }
+  }, []);
+
+  const reload = useCallback(() => {
+    generation.current += 1;
+    setItems([]);
+    setNextCursor(null);
+    setLoading(false);
+    return load(null);
+  }, [load]);
+
+  useEffect(() => {
+    reload();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, deps);
+
+  const loadMore = useCallback(() => {
+    if (nextCursor && !loading) return load(nextCursor);
+  }, [nextCursor, loading, load]);
+
+  return { items, hasMore: Boolean(nextCursor), loading, error, loadMore, reload };
+}